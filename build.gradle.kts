@@ -2,6 +2,7 @@ plugins {
     kotlin("jvm") version "1.7.21"
     `maven-publish`
     signing
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "com.pkware.generex"
@@ -23,6 +24,19 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Benchmarks live in src/jmh. Run them with `./gradlew jmh`, then compare build/results/jmh/results.json against
+// src/jmh/baseline.json, e.g. with https://jmh.morethan.io.
+jmh {
+    jmhVersion.set(libs.versions.jmhVersion)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+}
+
 kotlin {
     explicitApi()
     jvmToolchain { languageVersion.set(JavaLanguageVersion.of(8)) }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of turning a pattern into something that can generate strings: the regex conversion and automaton construction
+ * on their own, with the derived length bounds, and through the shared cache.
+ */
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+
+    @Param({"email", "uuid", "ipv4", "word", "alternation", "counted"})
+    public String pattern;
+
+    private String regex;
+
+    @Setup
+    public void setUp() {
+        regex = Patterns.get(pattern);
+    }
+
+    @Benchmark
+    public Generex construct() {
+        return new Generex(regex);
+    }
+
+    @Benchmark
+    public int constructAndAnalyze() {
+        return new CompiledGenerex(regex).getMinLength();
+    }
+
+    @Benchmark
+    public Generex compileCached() {
+        return Generex.compile(regex);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.CharBuffer;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Throughput of walking the matched strings in order, reported per string. Infinite patterns are left out: their walk
+ * only ever deepens, so it measures the cost of ever longer strings rather than of stepping.
+ */
+@State(Scope.Thread)
+public class EnumerationBenchmark {
+
+    private static final int STRINGS = 10_000;
+
+    @Param({"email", "uuid", "ipv4", "alternation", "counted"})
+    public String pattern;
+
+    private Generex generex;
+
+    @Setup
+    public void setUp() {
+        generex = new Generex(Patterns.get(pattern));
+        generex.iterator().next();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STRINGS)
+    public void iterator(Blackhole blackhole) {
+        Iterator<String> iterator = generex.iterator();
+        for (int i = 0; i < STRINGS && iterator.hasNext(); i++) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STRINGS)
+    public void forEachMatch(final Blackhole blackhole) {
+        generex.forEachMatch(STRINGS, new Consumer<CharBuffer>() {
+            @Override
+            public void accept(CharBuffer match) {
+                blackhole.consume(match.get(match.limit() - 1));
+            }
+        });
+    }
+}
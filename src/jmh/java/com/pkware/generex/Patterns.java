@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+/**
+ * The pattern corpus shared by the benchmarks, selected by name through each benchmark's {@code pattern} parameter so
+ * that result files stay readable. Benchmarks that count or rank leave out {@code word}, the only infinite pattern.
+ */
+final class Patterns {
+
+    private Patterns() {
+    }
+
+    static String get(String name) {
+        switch (name) {
+            case "email": return "[a-z]{3,10}\\@[a-z]{2,8}\\.(com|net|org)";
+            case "uuid": return "[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+            case "ipv4": return "((25[0-5]|2[0-4][0-9]|1[0-9]{2}|[1-9]?[0-9])\\.){3}(25[0-5]|2[0-4][0-9]|1[0-9]{2}|[1-9]?[0-9])";
+            case "word": return "\\w+";
+            case "alternation": return "(alpha|beta|gamma|delta|epsilon|zeta|eta|theta|iota|kappa)(-(one|two|three|four|five)){1,3}";
+            case "counted": return "[a-zA-Z0-9]{1,100}";
+            default: throw new IllegalArgumentException("Unknown pattern: " + name);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Throughput of random generation from an already compiled pattern. Each thread owns its {@code Generex} and
+ * {@code Random}, seeded so that runs are comparable.
+ */
+@State(Scope.Thread)
+public class RandomBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    @Param({"email", "uuid", "ipv4", "word", "alternation", "counted"})
+    public String pattern;
+
+    private Generex generex;
+
+    @Setup
+    public void setUp() {
+        generex = new Generex(Patterns.get(pattern), new Random(42));
+        // Compute the lazily derived data up front so that it isn't part of the first measurement.
+        generex.uniformRandom(1, 40);
+    }
+
+    @Benchmark
+    public String random() {
+        return generex.random();
+    }
+
+    @Benchmark
+    public String randomRange() {
+        return generex.random(1, 40);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> randomBatch() {
+        return generex.randomBatch(BATCH, 1, 40);
+    }
+
+    @Benchmark
+    public String uniformRandom() {
+        return generex.uniformRandom(1, 40);
+    }
+}
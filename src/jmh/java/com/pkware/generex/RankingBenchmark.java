@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import dk.brics.automaton.Automaton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+
+/**
+ * Cost of counting a finite language from scratch, and of mapping between positions and strings once it is counted.
+ */
+@State(Scope.Thread)
+public class RankingBenchmark {
+
+    @Param({"email", "uuid", "ipv4", "alternation", "counted"})
+    public String pattern;
+
+    private Automaton automaton;
+    private Generex generex;
+    private BigInteger middle;
+    private String middleMatch;
+
+    @Setup
+    public void setUp() {
+        generex = new Generex(Patterns.get(pattern));
+        automaton = generex.getCompiled().getAutomaton();
+        middle = generex.matchedStringsCount().shiftRight(1);
+        middleMatch = generex.getMatchedString(middle);
+    }
+
+    /**
+     * Counts on a new {@code CompiledGenerex} over the same automaton, so that the per-pattern preparation is measured
+     * without the regex compilation.
+     */
+    @Benchmark
+    public BigInteger matchedStringsCount() {
+        return new CompiledGenerex(automaton).matchedStringsCount();
+    }
+
+    @Benchmark
+    public String getMatchedString() {
+        return generex.getMatchedString(middle);
+    }
+
+    @Benchmark
+    public BigInteger rankOf() {
+        return generex.rankOf(middleMatch);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.State;
+import dk.brics.automaton.Transition;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable set of Unicode code points, stored as sorted, disjoint and non-adjacent ranges, which is what a
+ * character class parses into.
+ * <p>
+ * Automatons run over UTF-16 characters, so {@link #toAutomaton()} turns the code points above the BMP into the
+ * surrogate pairs that encode them, grouped so that a class like {@code \p{L}} needs a few dozen states rather than
+ * one string per code point.
+ */
+final class CodePointSet {
+
+    static final CodePointSet EMPTY = new CodePointSet(new int[0]);
+
+    /**
+     * The sorted, disjoint and non-adjacent ranges of the set, as pairs of first and last code point.
+     */
+    private final int[] ranges;
+
+    private CodePointSet(int[] ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * @param ranges ranges in any order, as pairs of first and last code point
+     */
+    static CodePointSet of(int... ranges) {
+        int[][] sorted = new int[ranges.length / 2][];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = new int[] {ranges[2 * i], ranges[2 * i + 1]};
+        Arrays.sort(sorted, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(a[0], b[0]);
+            }
+        });
+
+        int[] merged = new int[ranges.length];
+        int size = 0;
+        for (int[] range : sorted) {
+            if (range[0] > range[1]) continue;
+            if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], range[1]);
+            } else {
+                merged[size++] = range[0];
+                merged[size++] = range[1];
+            }
+        }
+        return new CodePointSet(Arrays.copyOf(merged, size));
+    }
+
+    /**
+     * @return the set of every code point {@code predicate} accepts, found by testing each of them
+     */
+    static CodePointSet matching(IntPredicate predicate) {
+        int[] ranges = new int[16];
+        int size = 0;
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+            if (!predicate.test(codePoint)) continue;
+            if (size > 0 && ranges[size - 1] == codePoint - 1) {
+                ranges[size - 1] = codePoint;
+            } else {
+                if (size == ranges.length) ranges = Arrays.copyOf(ranges, size * 2);
+                ranges[size++] = codePoint;
+                ranges[size++] = codePoint;
+            }
+        }
+        return new CodePointSet(Arrays.copyOf(ranges, size));
+    }
+
+    static CodePointSet union(List<CodePointSet> sets) {
+        if (sets.size() == 1) return sets.get(0);
+        int length = 0;
+        for (CodePointSet set : sets) length += set.ranges.length;
+        int[] all = new int[length];
+        int size = 0;
+        for (CodePointSet set : sets) {
+            System.arraycopy(set.ranges, 0, all, size, set.ranges.length);
+            size += set.ranges.length;
+        }
+        return of(all);
+    }
+
+    /**
+     * Like the negated classes of brics, the complement is taken within the BMP, so that {@code [^a]} and
+     * {@code \P{L}} keep producing one character at a time.
+     *
+     * @return the set of every BMP code point that is not in this set
+     */
+    CodePointSet complement() {
+        int[] result = new int[ranges.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length && next <= Character.MAX_VALUE; i += 2) {
+            if (ranges[i] > next) {
+                result[size++] = next;
+                result[size++] = Math.min(ranges[i] - 1, Character.MAX_VALUE);
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            result[size++] = next;
+            result[size++] = Character.MAX_VALUE;
+        }
+        return new CodePointSet(Arrays.copyOf(result, size));
+    }
+
+    boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    int rangeCount() {
+        return ranges.length / 2;
+    }
+
+    int getFirst(int range) {
+        return ranges[2 * range];
+    }
+
+    int getLast(int range) {
+        return ranges[2 * range + 1];
+    }
+
+    boolean contains(int codePoint) {
+        int low = 0;
+        int high = rangeCount() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (codePoint < getFirst(middle)) {
+                high = middle - 1;
+            } else if (codePoint > getLast(middle)) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the minimal automaton of the set directly. BMP code points lead straight to the accepting state, and the
+     * high surrogate of a supplementary code point to a state for the low surrogates that can follow it, shared by
+     * every high surrogate followed by the same ones. A single code point therefore stays a single choice of
+     * transition, whatever the number of ranges.
+     *
+     * @return a new deterministic automaton accepting the code points of the set, one per string
+     */
+    Automaton toAutomaton() {
+        State initial = new State();
+        State accept = new State();
+        accept.setAccept(true);
+
+        // The ranges of low surrogates that can follow each high surrogate, as pairs of first and last character.
+        int highCount = Character.MAX_HIGH_SURROGATE - Character.MIN_HIGH_SURROGATE + 1;
+        int[][] lows = new int[highCount][];
+        int[] lowSizes = new int[highCount];
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i + 1] < Character.MIN_SUPPLEMENTARY_CODE_POINT) continue;
+            int first = Math.max(ranges[i], Character.MIN_SUPPLEMENTARY_CODE_POINT);
+            int last = ranges[i + 1];
+            for (char high = Character.highSurrogate(first); high <= Character.highSurrogate(last); high++) {
+                int h = high - Character.MIN_HIGH_SURROGATE;
+                if (lows[h] == null) lows[h] = new int[4];
+                if (lowSizes[h] == lows[h].length) lows[h] = Arrays.copyOf(lows[h], lowSizes[h] * 2);
+                lows[h][lowSizes[h]++] = Math.max(first, Character.toCodePoint(high, Character.MIN_LOW_SURROGATE));
+                lows[h][lowSizes[h]++] = Math.min(last, Character.toCodePoint(high, Character.MAX_LOW_SURROGATE));
+            }
+        }
+
+        // A high surrogate that is also in the set on its own makes the state after it accepting.
+        State[] afterHigh = new State[highCount];
+        Map<IntBuffer, State> lowStates = new HashMap<IntBuffer, State>();
+        for (int h = 0; h < highCount; h++) {
+            if (lows[h] == null) continue;
+            boolean alone = contains(Character.MIN_HIGH_SURROGATE + h);
+            int[] key = Arrays.copyOf(lows[h], lowSizes[h] + 1);
+            key[lowSizes[h]] = alone ? 1 : 0;
+            State state = lowStates.get(IntBuffer.wrap(key));
+            if (state == null) {
+                state = new State();
+                state.setAccept(alone);
+                for (int i = 0; i < lowSizes[h]; i += 2) {
+                    state.addTransition(new Transition(Character.lowSurrogate(lows[h][i]),
+                            Character.lowSurrogate(lows[h][i + 1]), accept));
+                }
+                lowStates.put(IntBuffer.wrap(key), state);
+            }
+            afterHigh[h] = state;
+        }
+
+        for (int i = 0; i < ranges.length && ranges[i] <= Character.MAX_VALUE; i += 2) {
+            addBmpTransitions(initial, ranges[i], Math.min(ranges[i + 1], Character.MAX_VALUE), afterHigh, accept);
+        }
+        for (int h = 0; h < highCount; ) {
+            if (afterHigh[h] == null) {
+                h++;
+                continue;
+            }
+            int first = h;
+            while (h + 1 < highCount && afterHigh[h + 1] == afterHigh[first]) h++;
+            initial.addTransition(new Transition((char) (Character.MIN_HIGH_SURROGATE + first),
+                    (char) (Character.MIN_HIGH_SURROGATE + h), afterHigh[first]));
+            h++;
+        }
+
+        Automaton automaton = new Automaton();
+        automaton.setInitialState(initial);
+        automaton.setDeterministic(true);
+        return automaton;
+    }
+
+    /**
+     * Adds transitions to {@code accept} for {@code [first, last]}, except for the high surrogates that start a pair.
+     */
+    private static void addBmpTransitions(State initial, int first, int last, State[] afterHigh, State accept) {
+        int start = first;
+        for (int c = Math.max(first, Character.MIN_HIGH_SURROGATE); c <= Math.min(last, Character.MAX_HIGH_SURROGATE);
+             c++) {
+            if (afterHigh[c - Character.MIN_HIGH_SURROGATE] == null) continue;
+            if (start < c) initial.addTransition(new Transition((char) start, (char) (c - 1), accept));
+            start = c + 1;
+        }
+        if (start <= last) initial.addTransition(new Transition((char) start, (char) last, accept));
+    }
+}
@@ -0,0 +1,1431 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.BasicAutomata;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The immutable, compiled form of a pattern.
+ * <p>
+ * A {@code CompiledGenerex} holds no per-call state, so a single instance can be shared by any number of threads
+ * without locking. Every method that needs randomness takes the {@code Random} to use as a parameter; pass a source
+ * that is confined to the calling thread, such as {@link java.util.concurrent.ThreadLocalRandom#current()}, to avoid
+ * contention. Callers that prefer an object with its own {@code Random} can wrap the compiled pattern in a cheap
+ * {@link Generex} per thread with {@link Generex#Generex(CompiledGenerex, Random)}.
+ * <p>
+ * Compilation is lazy: the constructor only parses the pattern, and the automaton is built on first use, once, by
+ * whichever thread needs it first. Data derived from the automaton, such as its length bounds, is computed the same
+ * way. Call {@link #prepare()} to pay for all of it up front instead.
+ * <p>
+ * Random strings can also be drawn without a deterministic automaton: see {@link SamplingMode}.
+ */
+public final class CompiledGenerex implements Iterable<String> {
+
+    /**
+     * Which automaton {@link #random(Random, int, int)} and the other random methods walk. Counting, indexing,
+     * iterating and the uniform samplers always need the deterministic automaton.
+     */
+    public enum SamplingMode {
+        /**
+         * Walks the deterministic automaton, unless determinizing the pattern would take many more states than the
+         * nondeterministic automaton has, in which case it walks the nondeterministic one like {@link #NFA}. The check
+         * runs once, on first use, and is bounded by a few thousand states. Once the deterministic automaton has been
+         * built, for instance by {@link #prepare()}, it is always used.
+         */
+        AUTOMATIC,
+
+        /**
+         * Always walks the deterministic automaton.
+         */
+        DFA,
+
+        /**
+         * Always walks the nondeterministic automaton, built operator by operator from the parsed pattern without the
+         * subset construction, so that building it takes time and memory linear in the size of the pattern. Patterns
+         * like {@code (a|b)*a(a|b){20}}, whose deterministic automaton has millions of states, can be sampled right
+         * away.
+         * <p>
+         * The strings are still matches, with lengths drawn the same way, but a string that the nondeterministic
+         * automaton accepts along several paths is proportionally more likely to come up. Only complements and the
+         * operands of intersections are determinized, since they can't be built otherwise.
+         */
+        NFA
+    }
+
+    /**
+     * The parsed pattern the automaton is built from, or {@code null} if the automaton was given.
+     */
+    private final RegexNode pattern;
+
+    /**
+     * Whether {@link #automaton()} minimizes the automaton it builds from {@link #pattern}.
+     */
+    private final boolean minimize;
+
+    private final SamplingMode samplingMode;
+
+    /**
+     * Lazily built by {@link #automaton()}; {@code null} until then.
+     */
+    private volatile Automaton automaton;
+
+    /**
+     * Lazily built by {@link #nondeterministic()}, and dropped once {@link #walkedAnalysis()} has used it;
+     * {@code null} otherwise.
+     */
+    private volatile FlatAutomaton nondeterministic;
+
+    /**
+     * Lazily computed by {@link #analysis()}; {@code null} until then.
+     */
+    private volatile Analysis analysis;
+
+    /**
+     * Lazily computed and extended by {@link #lengthCounts(int, long)}; {@code null} until first needed.
+     */
+    private volatile LengthCounts lengthCounts;
+
+    /**
+     * Lazily computed by {@link #languageCounts()} for finite patterns; {@code null} until then.
+     */
+    private volatile LanguageCounts languageCounts;
+
+    /**
+     * The counts of the longest length {@link #rollingLengthCounts(int)} was asked for; {@code null} until then.
+     */
+    private volatile RollingLengthCounts rollingLengthCounts;
+
+    /**
+     * Lazily chosen by {@link #sampler()}; {@code null} until then.
+     */
+    private volatile Sampler sampler;
+
+    /**
+     * The first four bytes of every pattern written by {@link #writeTo(OutputStream)}: {@code "GNRX"} in ASCII.
+     */
+    public static final int MAGIC = 0x474E5258;
+
+    /**
+     * The version of the format written by {@link #writeTo(OutputStream)}. {@link #readFrom(ByteBuffer)} only
+     * accepts this version; it changes whenever the layout does.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * {@link SamplingMode#AUTOMATIC} walks the nondeterministic automaton if the deterministic one would have more
+     * states than this and than twice the nondeterministic one.
+     */
+    private static final int MAX_SAMPLING_DFA_STATES = 4096;
+
+    /**
+     * The largest {@link LengthReachability} table kept, in bits: about 16 MiB. It only gets near that for long
+     * chains of states with optional characters, like {@code [a-z]{1,50000}}, which fall back to a backtracking walk.
+     */
+    private static final long MAX_REACHABILITY_BITS = 1L << 27;
+
+    /**
+     * The largest {@link LengthCounts} table kept for later uniform samples, as estimated by
+     * {@link LengthCounts#estimateBytes}: 4 MiB. Bigger tables, up to {@link Generex#MAX_UNIFORM_COUNTS_BYTES}, are
+     * rebuilt by every call that needs them, since an instance shared through a {@link GenerexCache} would otherwise
+     * keep them alive for as long as the pattern is cached.
+     */
+    private static final long MAX_SHARED_COUNTS_BYTES = 4L << 20;
+
+    /**
+     * Compiles {@code regex} into a determinized, minimized automaton on first use.
+     *
+     * @param regex the regular expression to generate strings for
+     * @throws NullPointerException     if {@code regex} is {@code null}
+     * @throws IllegalArgumentException if {@code regex} is not a valid pattern
+     */
+    public CompiledGenerex(String regex) {
+        this(regex, true);
+    }
+
+    /**
+     * Compiles {@code regex} into a determinized automaton on first use, minimizing it only if {@code minimize} is
+     * {@code true}.
+     * <p>
+     * Minimization makes the automaton smaller and every later traversal cheaper, but can cost more than the
+     * conversion itself. Skipping it pays off for patterns that are only sampled a few times. The matched strings are
+     * the same either way, and so are counts, indexes and enumeration order, but a seeded {@code Random} may pick
+     * different random strings.
+     *
+     * @param regex    the regular expression to generate strings for
+     * @param minimize whether to minimize the automaton
+     * @throws NullPointerException     if {@code regex} is {@code null}
+     * @throws IllegalArgumentException if {@code regex} is not a valid pattern
+     */
+    public CompiledGenerex(String regex, boolean minimize) {
+        this(regex, minimize, SamplingMode.AUTOMATIC);
+    }
+
+    /**
+     * Compiles {@code regex} like {@link #CompiledGenerex(String, boolean)}, drawing random strings as
+     * {@code samplingMode} says.
+     *
+     * @param regex        the regular expression to generate strings for
+     * @param minimize     whether to minimize the automaton
+     * @param samplingMode which automaton the random methods walk
+     * @throws NullPointerException     if {@code regex} or {@code samplingMode} is {@code null}
+     * @throws IllegalArgumentException if {@code regex} is not a valid pattern
+     */
+    public CompiledGenerex(String regex, boolean minimize, SamplingMode samplingMode) {
+        this(RegexParser.parse(regex), minimize, samplingMode);
+    }
+
+    /**
+     * Compiles an already parsed pattern on first use.
+     */
+    CompiledGenerex(RegexNode pattern, boolean minimize, SamplingMode samplingMode) {
+        if (samplingMode == null) throw new NullPointerException("samplingMode");
+        this.pattern = pattern;
+        this.minimize = minimize;
+        this.samplingMode = samplingMode;
+    }
+
+    /**
+     * Wraps an existing automaton. The automaton is shared, not copied, and must not be modified afterwards.
+     *
+     * @param automaton the automaton to generate strings for
+     */
+    public CompiledGenerex(Automaton automaton) {
+        this.pattern = null;
+        this.minimize = false;
+        this.samplingMode = SamplingMode.DFA;
+        this.automaton = automaton;
+    }
+
+    /**
+     * Restores a pattern read by {@link #readFrom(ByteBuffer)}, with its analysis and counts already computed.
+     */
+    private CompiledGenerex(Analysis analysis, LanguageCounts languageCounts) {
+        this.pattern = null;
+        this.minimize = false;
+        this.samplingMode = SamplingMode.DFA;
+        this.analysis = analysis;
+        this.languageCounts = languageCounts;
+    }
+
+    /**
+     * Returns the automaton of this pattern, building it on first use from {@link #pattern}, or from the flattened
+     * automaton of a pattern that was {@link #readFrom(ByteBuffer) read back}.
+     */
+    private Automaton automaton() {
+        Automaton result = automaton;
+        if (result == null) {
+            synchronized (this) {
+                result = automaton;
+                if (result == null) {
+                    if (pattern == null) {
+                        result = analysis.flat.toAutomaton();
+                    } else {
+                        result = pattern.toAutomaton(minimize);
+                        // Without minimization brics leaves the automaton nondeterministic, but every traversal here
+                        // relies on each string having a single path.
+                        if (!minimize) result.determinize();
+                    }
+                    automaton = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the automaton of this pattern and the data derived from it now, instead of on first use. Calling it again
+     * does nothing.
+     *
+     * @return this instance
+     */
+    public CompiledGenerex prepare() {
+        analysis();
+        return this;
+    }
+
+    /**
+     * @return {@code true} once the automaton has been built.
+     */
+    boolean isCompiled() {
+        return automaton != null;
+    }
+
+    /**
+     * Returns the data derived from {@link #automaton()}, computing it on first use.
+     * <p>
+     * Every traversal of the automaton must go through here first: computing the analysis also expands brics'
+     * lazy singleton representation, which would otherwise race between threads.
+     */
+    private Analysis analysis() {
+        Analysis result = analysis;
+        if (result == null) {
+            synchronized (this) {
+                result = analysis;
+                if (result == null) {
+                    result = new Analysis(automaton());
+                    analysis = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the per-length counts of this pattern, covering every length up to {@code maxLength}.
+     * <p>
+     * The shared table only ever grows, and never past the longest length requested so far. A table estimated to take
+     * more than {@link #MAX_SHARED_COUNTS_BYTES} is built for the caller, from the rows already shared, and left for
+     * the garbage collector rather than kept alive by this instance.
+     */
+    private LengthCounts lengthCounts(int maxLength, long estimatedBytes) {
+        LengthCounts result = lengthCounts;
+        if (result == null || result.getMaxLength() < maxLength) {
+            Analysis analysis = analysis();
+            synchronized (this) {
+                result = lengthCounts;
+                if (result == null) {
+                    result = new LengthCounts(analysis.flat, 0);
+                    lengthCounts = result;
+                }
+                result = result.extendTo(maxLength);
+                if (estimatedBytes <= MAX_SHARED_COUNTS_BYTES) lengthCounts = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns what the random methods walk, choosing it on first use as {@link #samplingMode} says.
+     */
+    private Sampler sampler() {
+        Sampler result = sampler;
+        if (result == null) {
+            Analysis walked = walkedAnalysis();
+            synchronized (this) {
+                result = sampler;
+                if (result == null) {
+                    result = new Sampler(walked);
+                    sampler = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the analysis of the deterministic automaton, or of the nondeterministic one if {@link #samplingMode}
+     * picks it.
+     */
+    private Analysis walkedAnalysis() {
+        if (pattern == null || samplingMode == SamplingMode.DFA) return analysis();
+        if (samplingMode == SamplingMode.AUTOMATIC && isCompiled()) return analysis();
+
+        FlatAutomaton nfa = nondeterministic();
+        nondeterministic = null;
+        if (samplingMode == SamplingMode.AUTOMATIC) {
+            FlatAutomaton deterministic = nfa.isDeterministic()
+                    ? nfa
+                    : nfa.determinizeWithin(Math.max(MAX_SAMPLING_DFA_STATES, 2 * nfa.getStateCount()));
+            if (deterministic != null) {
+                // The check already did the subset construction, so finish the automaton from it instead of building
+                // it again from the pattern.
+                synchronized (this) {
+                    if (automaton == null) automaton = minimize ? deterministic.minimize() : deterministic.toAutomaton();
+                }
+                return analysis();
+            }
+        }
+        return new Analysis(nfa);
+    }
+
+    /**
+     * Returns the counts of {@code length}, continuing from the longest length computed so far when it isn't longer.
+     */
+    private RollingLengthCounts rollingLengthCounts(int length) {
+        RollingLengthCounts last = rollingLengthCounts;
+        if (last != null && last.getLength() == length) return last;
+
+        RollingLengthCounts start = last != null && last.getLength() < length
+                ? last
+                : new RollingLengthCounts(analysis().flat);
+        RollingLengthCounts result = start.advanceTo(length);
+        synchronized (this) {
+            if (rollingLengthCounts == null || rollingLengthCounts.getLength() < length) rollingLengthCounts = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of strings every state accepts, computing it on first use.
+     *
+     * @throws IllegalStateException if the pattern is infinite
+     */
+    private LanguageCounts languageCounts() {
+        LanguageCounts result = languageCounts;
+        if (result == null) {
+            Analysis analysis = analysis();
+            if (!analysis.finite) {
+                throw new IllegalStateException("The pattern matches an infinite number of strings.");
+            }
+            synchronized (this) {
+                result = languageCounts;
+                if (result == null) {
+                    result = new LanguageCounts(analysis.flat);
+                    languageCounts = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the nondeterministic automaton of {@link #pattern}, built without the subset construction
+     */
+    private FlatAutomaton nondeterministic() {
+        FlatAutomaton result = nondeterministic;
+        if (result == null) {
+            // Two threads may both build it; either copy will do.
+            result = Analysis.flatten(pattern.toAutomaton(false));
+            nondeterministic = result;
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the memory this pattern takes without building anything expensive: the number of states plus the
+     * number of transitions of its automaton if it has been built, or else of its nondeterministic automaton, which
+     * takes time linear in the size of the pattern even when determinizing it would blow up.
+     */
+    long weight() {
+        if (pattern == null || isCompiled()) {
+            Automaton built = getAutomaton();
+            return (long) built.getNumberOfStates() + built.getNumberOfTransitions();
+        }
+        FlatAutomaton nfa = nondeterministic();
+        return (long) nfa.getStateCount() + nfa.getTransitionCount();
+    }
+
+    /**
+     * @return the automaton this pattern was compiled to. It is shared and must not be modified.
+     */
+    Automaton getAutomaton() {
+        analysis();
+        return automaton();
+    }
+
+    /**
+     * Tells whether or not the pattern generates an infinite number of strings.
+     *
+     * @return {@code true} if the pattern generates an infinite number of strings, {@code false} otherwise
+     * @see Generex#isInfinite()
+     */
+    public boolean isInfinite() {
+        return !analysis().finite;
+    }
+
+    /**
+     * @return the minimum length of any string this pattern matches.
+     */
+    public int getMinLength() {
+        return analysis().minLength;
+    }
+
+    /**
+     * @return the maximum length of any string this pattern matches, or {@link Integer#MAX_VALUE} if the pattern is
+     * infinite.
+     */
+    public int getMaxLength() {
+        return analysis().maxLength;
+    }
+
+    /**
+     * See {@link Generex#random()}.
+     */
+    public String random(Random random) {
+        return random(random, 1);
+    }
+
+    /**
+     * See {@link Generex#random(int)}.
+     */
+    public String random(Random random, int minLength) {
+        return random(random, minLength, defaultMaxLength());
+    }
+
+    /**
+     * @return the maximum length {@link #random(Random, int)} generates up to.
+     */
+    int defaultMaxLength() {
+        Analysis analysis = sampler().analysis;
+        // maxLength is Integer.MAX_VALUE for infinite regexes; fall back to the friendlier
+        // default since the caller didn't specify their own cap.
+        return analysis.finite ? analysis.maxLength : Generex.DEFAULT_INFINITE_MAX_LENGTH;
+    }
+
+    /**
+     * Generates a string with the semantics of {@link Generex#random(int, int)}, drawing randomness from
+     * {@code random}.
+     *
+     * @param random    the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     * @param minLength Minimum wanted length of the generated string.
+     * @param maxLength Maximum wanted length of the generated string.
+     * @return a string as described by {@link Generex#random(int, int)}.
+     */
+    public String random(Random random, int minLength, int maxLength) {
+        return random(random, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #random(Random, int, int)}, but draws the length of the string from {@code lengths}.
+     */
+    public String random(Random random, int minLength, int maxLength, LengthDistribution lengths) {
+        Sampler sampler = sampler();
+        Analysis analysis = sampler.analysis;
+        LengthReachability reachability = sampler.reachability(maxLength);
+        return random(new RandomWalk(random, analysis.finite), random, analysis, reachability,
+                sampler.lengthTable(lengths, reachability, minLength, maxLength), minLength, maxLength);
+    }
+
+    /**
+     * See {@link Generex#randomBatch(int, int, int)}.
+     *
+     * @param random the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public List<String> randomBatch(Random random, int count, int minLength, int maxLength) {
+        return randomBatch(random, count, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #randomBatch(Random, int, int, int)}, but draws the length of every string from {@code lengths}.
+     */
+    public List<String> randomBatch(Random random, int count, int minLength, int maxLength,
+                                    LengthDistribution lengths) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative: " + count);
+        String[] batch = new String[count];
+        fill(random, batch, minLength, maxLength, lengths);
+        return Arrays.asList(batch);
+    }
+
+    /**
+     * See {@link Generex#fill(String[], int, int)}.
+     *
+     * @param random the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public void fill(Random random, String[] out, int minLength, int maxLength) {
+        fill(random, out, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #fill(Random, String[], int, int)}, but draws the length of every string from {@code lengths}.
+     */
+    public void fill(Random random, String[] out, int minLength, int maxLength, LengthDistribution lengths) {
+        Sampler sampler = sampler();
+        Analysis analysis = sampler.analysis;
+        RandomWalk walk = new RandomWalk(random, analysis.finite);
+        LengthReachability reachability = sampler.reachability(maxLength);
+        LengthTable table = sampler.lengthTable(lengths, reachability, minLength, maxLength);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = random(walk, random, analysis, reachability, table, minLength, maxLength);
+        }
+    }
+
+    /**
+     * See {@link Generex#randomStream(int, int)}.
+     *
+     * @param random the source of randomness. The stream uses it on whichever thread consumes the stream.
+     */
+    public Stream<String> randomStream(Random random, int minLength, int maxLength) {
+        return randomStream(random, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #randomStream(Random, int, int)}, but draws the length of every string from {@code lengths}.
+     */
+    public Stream<String> randomStream(final Random random, final int minLength, final int maxLength,
+                                       LengthDistribution lengths) {
+        final Sampler sampler = sampler();
+        final Analysis analysis = sampler.analysis;
+        final RandomWalk walk = new RandomWalk(random, analysis.finite);
+        final LengthReachability reachability = sampler.reachability(maxLength);
+        final LengthTable table = sampler.lengthTable(lengths, reachability, minLength, maxLength);
+        return Stream.generate(new Supplier<String>() {
+            @Override
+            public String get() {
+                return random(walk, random, analysis, reachability, table, minLength, maxLength);
+            }
+        });
+    }
+
+    /**
+     * See {@link Generex#randomAt(long, int, int)}.
+     *
+     * @param seed  identifies the stream of samples
+     * @param index the position of the sample in that stream
+     */
+    public String randomAt(long seed, long index, int minLength, int maxLength) {
+        return randomAt(seed, index, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #randomAt(long, long, int, int)}, but draws the length of the string from {@code lengths}.
+     */
+    public String randomAt(long seed, long index, int minLength, int maxLength, LengthDistribution lengths) {
+        if (index < 0) throw new IllegalArgumentException("index must not be negative: " + index);
+        return new IndexedSamples(this, seed, index, index + 1, minLength, maxLength, lengths).sample();
+    }
+
+    /**
+     * See {@link Generex#randomStream(long, long, int, int)}.
+     *
+     * @param seed identifies the stream of samples
+     */
+    public Stream<String> randomStream(long seed, long fromIndex, long toIndex, int minLength, int maxLength) {
+        return randomStream(seed, fromIndex, toIndex, minLength, maxLength, LengthDistribution.UNIFORM);
+    }
+
+    /**
+     * Same as {@link #randomStream(long, long, long, int, int)}, but draws the length of every string from
+     * {@code lengths}.
+     */
+    public Stream<String> randomStream(long seed, long fromIndex, long toIndex, int minLength, int maxLength,
+                                       LengthDistribution lengths) {
+        if (fromIndex < 0) throw new IllegalArgumentException("fromIndex must not be negative: " + fromIndex);
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex " + fromIndex + " is after toIndex " + toIndex);
+        }
+        return StreamSupport.stream(
+                new IndexedSamples(this, seed, fromIndex, toIndex, minLength, maxLength, lengths), false);
+    }
+
+    /**
+     * Generates one string for {@link #random(Random, int, int, LengthDistribution)}, with the per-pattern data and
+     * scratch space already prepared by the caller.
+     * <p>
+     * The target length is drawn from the lengths in range that some match has, uniformly or from {@code lengths} if
+     * there is a table, and the walk then only takes transitions that can still reach it, so it never backtracks.
+     * Without a reachability table, or if no match has a length in range, the backtracking walk gets as close as it
+     * can instead.
+     */
+    private static String random(RandomWalk walk, Random random, Analysis analysis, LengthReachability reachability,
+                                 LengthTable lengths, int minLength, int maxLength) {
+        // Calculate actual valid range by comparing the regex and the user defined bounds.
+        // For infinite regexes maxLength is Integer.MAX_VALUE, so the min() leaves the user's maxLength alone.
+        int actualMinLength = Math.max(minLength, analysis.minLength);
+        int actualMaxLength = Math.min(maxLength, analysis.maxLength);
+
+        if (reachability != null && actualMinLength <= actualMaxLength) {
+            int targetLength = lengths != null
+                    ? lengths.pick(random)
+                    : pickReachableLength(random, reachability, actualMinLength, actualMaxLength);
+            if (targetLength >= 0) return walk.walk(analysis.flat, reachability, targetLength);
+        }
+
+        // Pre-select target length uniformly from valid range
+        int targetLength;
+        if (actualMinLength > actualMaxLength) {
+            targetLength = actualMaxLength;
+        } else {
+            targetLength = actualMinLength + random.nextInt(actualMaxLength - actualMinLength + 1);
+        }
+
+        String result = walk.walk(analysis.flat, minLength, maxLength, targetLength);
+        // Substring in case a length of 'maxLength + 1' is returned, which is possible if a smaller string can't be produced.
+        return result.substring(0, Math.min(maxLength, result.length()));
+    }
+
+    /**
+     * The number of lengths drawn from the whole range before {@link #pickReachableLength} counts the lengths that
+     * are actually reachable.
+     */
+    private static final int LENGTH_ATTEMPTS = 8;
+
+    /**
+     * Draws a length uniformly from the lengths in {@code [minLength, maxLength]} that some match has.
+     *
+     * @return the length, or {@code -1} if no match has a length in range
+     */
+    private static int pickReachableLength(Random random, LengthReachability reachability, int minLength, int maxLength) {
+        int range = maxLength - minLength + 1;
+        // Most patterns have matches of most lengths, so draw from the whole range and retry a few times first.
+        for (int attempt = 0; attempt < LENGTH_ATTEMPTS; attempt++) {
+            int length = minLength + random.nextInt(range);
+            if (reachability.canReach(FlatAutomaton.INITIAL_STATE, length)) return length;
+        }
+
+        long below = reachability.countReachable(FlatAutomaton.INITIAL_STATE, minLength);
+        long reachable = reachability.countReachable(FlatAutomaton.INITIAL_STATE, maxLength + 1L) - below;
+        if (reachable == 0) return -1;
+        return reachability.findReachable(FlatAutomaton.INITIAL_STATE, below + RandomNumbers.nextLong(random, reachable));
+    }
+
+    /**
+     * See {@link Generex#uniformRandom(int, int)}.
+     *
+     * @param random the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public String uniformRandom(Random random, int minLength, int maxLength) {
+        return uniformSampler(minLength, maxLength).sample(random, minLength, maxLength);
+    }
+
+    /**
+     * See {@link Generex#uniformRandomPerLength(int, int)}.
+     *
+     * @param random the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public String uniformRandomPerLength(Random random, int minLength, int maxLength) {
+        return uniformSampler(minLength, maxLength).samplePerLength(random, minLength, maxLength);
+    }
+
+    private UniformSampler uniformSampler(int minLength, int maxLength) {
+        if (minLength < 0 || minLength > maxLength) {
+            throw new IllegalArgumentException("Invalid length range [" + minLength + ", " + maxLength + "].");
+        }
+        Analysis analysis = analysis();
+        int countedLength = Math.min(maxLength, analysis.maxLength);
+        long limit = Generex.MAX_UNIFORM_COUNTS_BYTES;
+        long estimatedBytes = LengthCounts.estimateBytes(analysis.flat, countedLength, limit);
+        if (estimatedBytes > limit) {
+            throw new IllegalArgumentException("Counting the matches of every length up to " + countedLength
+                    + " would take more than the " + Generex.MAX_UNIFORM_COUNTS_BYTES
+                    + " bytes uniform sampling allows.");
+        }
+        return new UniformSampler(analysis.flat, lengthCounts(countedLength, estimatedBytes));
+    }
+
+    /**
+     * See {@link Generex#matchedStringsCount()}.
+     */
+    public BigInteger matchedStringsCount() {
+        return languageCounts().getTotal();
+    }
+
+    /**
+     * See {@link Generex#countOfLength(int)}.
+     */
+    public BigInteger countOfLength(int length) {
+        if (length < 0) throw new IllegalArgumentException("length must not be negative: " + length);
+        if (length > analysis().maxLength) return BigInteger.ZERO;
+        return rollingLengthCounts(length).getCount();
+    }
+
+    /**
+     * See {@link Generex#countUpToLength(int)}.
+     */
+    public BigInteger countUpToLength(int length) {
+        if (length < 0) throw new IllegalArgumentException("length must not be negative: " + length);
+        // Past the longest string of a finite pattern, the rows are all zero: stop at the longest one.
+        return rollingLengthCounts(Math.min(length, analysis().maxLength)).getCountUpTo();
+    }
+
+    /**
+     * See {@link Generex#getMatchedString(BigInteger)}.
+     */
+    public String getMatchedString(BigInteger indexOrder) {
+        return languageCounts().unrank(indexOrder.subtract(BigInteger.ONE));
+    }
+
+    /**
+     * See {@link Generex#rankOf(String)}.
+     */
+    public BigInteger rankOf(String match) {
+        return languageCounts().rank(match).add(BigInteger.ONE);
+    }
+
+    /**
+     * See {@link Generex#shuffledIterator()}.
+     *
+     * @param random the source of the order. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public Iterator<String> shuffledIterator(Random random) {
+        LanguageCounts counts = languageCounts();
+        BigInteger total = counts.getTotal();
+        if (total.signum() == 0) return Collections.<String>emptyList().iterator();
+        return new ShuffledIterator(counts, new FeistelPermutation(total, random));
+    }
+
+    /**
+     * See {@link Generex#distinctRandom(int)}.
+     *
+     * @param random the source of randomness. Only this call uses it, so it can be confined to the calling thread.
+     */
+    public List<String> distinctRandom(Random random, int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative: " + count);
+        if (matchedStringsCount().compareTo(BigInteger.valueOf(count)) < 0) {
+            throw new IllegalArgumentException(
+                    "The pattern matches " + matchedStringsCount() + " strings, fewer than " + count + "."
+            );
+        }
+
+        List<String> result = new ArrayList<String>(count);
+        Iterator<String> shuffled = shuffledIterator(random);
+        while (result.size() < count) result.add(shuffled.next());
+        return result;
+    }
+
+    /**
+     * Walks the positions {@code 0, 1, 2...} through a permutation of the language and unranks each image, so every
+     * string is returned exactly once without remembering the ones already returned.
+     */
+    private static final class ShuffledIterator implements Iterator<String> {
+        private final LanguageCounts counts;
+        private final FeistelPermutation permutation;
+        private final long longTotal;
+        private final BigInteger total;
+        private long longNext;
+        private BigInteger next = BigInteger.ZERO;
+
+        private ShuffledIterator(LanguageCounts counts, FeistelPermutation permutation) {
+            this.counts = counts;
+            this.permutation = permutation;
+            this.total = counts.getTotal();
+            this.longTotal = permutation.isLong() ? total.longValue() : -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return longTotal >= 0 ? longNext < longTotal : next.compareTo(total) < 0;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (longTotal >= 0) return counts.unrank(BigInteger.valueOf(permutation.permute(longNext++)));
+
+            BigInteger rank = permutation.permute(next);
+            next = next.add(BigInteger.ONE);
+            return counts.unrank(rank);
+        }
+    }
+
+    /**
+     * See {@link Generex#getAllMatchedStrings()}.
+     */
+    public List<String> getAllMatchedStrings() {
+        return getMatchedStrings(Integer.MAX_VALUE);
+    }
+
+    /**
+     * See {@link Generex#getMatchedStrings(int)}.
+     */
+    public List<String> getMatchedStrings(int limit) {
+        Generation generation = new Generation(analysis().flat, limit);
+        generation.generate("", FlatAutomaton.INITIAL_STATE);
+        return generation.matchedStrings;
+    }
+
+    /**
+     * The state of a single {@link #getMatchedStrings(int)} call, kept off the shared instance so that concurrent
+     * calls don't interfere.
+     */
+    private static final class Generation {
+        private final FlatAutomaton automaton;
+        private final List<String> matchedStrings = new ArrayList<String>();
+        private final int limit;
+        private int matchedStringCounter = 0;
+
+        private Generation(FlatAutomaton automaton, int limit) {
+            this.automaton = automaton;
+            this.limit = limit;
+        }
+
+        private void generate(String strMatch, int state) {
+            if (matchedStringCounter == limit)
+                return;
+            ++matchedStringCounter;
+            int start = automaton.getTransitionStart(state);
+            int end = automaton.getTransitionEnd(state);
+            if (start == end) {
+                // Only the initial state of a pattern that matches nothing can have no transitions and not accept.
+                if (automaton.isAccept(state)) matchedStrings.add(strMatch);
+                return;
+            }
+            if (automaton.isAccept(state)) {
+                matchedStrings.add(strMatch);
+            }
+            for (int t = start; t < end; t++) {
+                for (char c = automaton.getMin(t); c <= automaton.getMax(t); ++c) {
+                    generate(strMatch + c, automaton.getDest(t));
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new MatchCursor(analysis().flat);
+    }
+
+    /**
+     * See {@link Generex#iterator(BigInteger)}.
+     */
+    public Iterator<String> iterator(BigInteger indexOrder) {
+        LanguageCounts counts = languageCounts();
+        BigInteger total = counts.getTotal();
+        MatchCursor cursor = new MatchCursor(analysis().flat);
+        // One past the last string is a valid place to resume from: it simply has nothing left.
+        if (indexOrder.equals(total.add(BigInteger.ONE))) {
+            if (total.signum() > 0) {
+                cursor.seek(counts.unrank(total.subtract(BigInteger.ONE)));
+                cursor.next();
+            }
+            return cursor;
+        }
+        return cursor.seek(counts.unrank(indexOrder.subtract(BigInteger.ONE)));
+    }
+
+    /**
+     * See {@link Generex#iteratorFrom(String)}.
+     */
+    public Iterator<String> iteratorFrom(String lowerBound) {
+        return new MatchCursor(analysis().flat).seek(lowerBound);
+    }
+
+    /**
+     * See {@link Generex#iteratorWithPrefix(String)}.
+     */
+    public Iterator<String> iteratorWithPrefix(String prefix) {
+        return new PrefixIterator(new MatchCursor(analysis().flat).seek(prefix), prefix);
+    }
+
+    /**
+     * Returns the strings of a cursor until the first one that doesn't start with {@link #prefix}. In lexicographical
+     * order, the strings that start with a given prefix all come one after the other, right from the prefix itself.
+     */
+    private static final class PrefixIterator implements Iterator<String> {
+        private final MatchCursor cursor;
+        private final String prefix;
+
+        private PrefixIterator(MatchCursor cursor, String prefix) {
+            this.cursor = cursor;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!cursor.hasNext() || cursor.length() < prefix.length()) return false;
+            char[] buffer = cursor.buffer();
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buffer[i] != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return cursor.next();
+        }
+    }
+
+    /**
+     * See {@link Generex#withPrefix(String)}.
+     */
+    public CompiledGenerex withPrefix(String prefix) {
+        return constrain(BasicAutomata.makeString(prefix).concatenate(BasicAutomata.makeAnyString()));
+    }
+
+    /**
+     * See {@link Generex#withSuffix(String)}.
+     */
+    public CompiledGenerex withSuffix(String suffix) {
+        return constrain(BasicAutomata.makeAnyString().concatenate(BasicAutomata.makeString(suffix)));
+    }
+
+    /**
+     * See {@link Generex#containing(String)}.
+     */
+    public CompiledGenerex containing(String infix) {
+        Automaton anyString = BasicAutomata.makeAnyString();
+        return constrain(anyString.concatenate(BasicAutomata.makeString(infix)).concatenate(anyString));
+    }
+
+    /**
+     * See {@link Generex#intersect(Generex)}.
+     */
+    public CompiledGenerex intersect(CompiledGenerex other) {
+        return intersect(other.analysis().flat);
+    }
+
+    /**
+     * See {@link Generex#printableOnly()}.
+     */
+    public CompiledGenerex printableOnly() {
+        return intersect(PrintableStrings.AUTOMATON);
+    }
+
+    /**
+     * The automaton of every string of printable characters, built the first time a pattern is restricted to them.
+     */
+    private static final class PrintableStrings {
+        static final FlatAutomaton AUTOMATON = Analysis.flatten(
+                RegexNode.repeat(RegexNode.chars(UnicodeProperties.printable()), 0, -1).toAutomaton(true));
+    }
+
+    /**
+     * @param constraint a new automaton, which is determinized and flattened here
+     */
+    private CompiledGenerex constrain(Automaton constraint) {
+        return intersect(Analysis.flatten(FlatAutomaton.minimize(constraint)));
+    }
+
+    private CompiledGenerex intersect(FlatAutomaton other) {
+        // The product is built from the flat copies rather than with brics' intersection, which numbers the states
+        // of its operands in place and so would write to an automaton other threads may be reading.
+        return new CompiledGenerex(FlatAutomaton.minimize(analysis().flat.intersection(other)));
+    }
+
+    /**
+     * See {@link Generex#forEachMatch(Consumer)}.
+     */
+    public void forEachMatch(Consumer<? super CharBuffer> action) {
+        forEachMatch(Long.MAX_VALUE, action);
+    }
+
+    /**
+     * See {@link Generex#forEachMatch(long, Consumer)}.
+     */
+    public void forEachMatch(long limit, Consumer<? super CharBuffer> action) {
+        MatchCursor cursor = new MatchCursor(analysis().flat);
+        CharBuffer view = CharBuffer.wrap(cursor.buffer());
+        for (long visited = 0; visited < limit && cursor.advance(); visited++) {
+            // The cursor only replaces its buffer when a longer string needs more room.
+            if (!view.hasArray() || view.array() != cursor.buffer()) view = CharBuffer.wrap(cursor.buffer());
+            view.clear();
+            view.limit(cursor.length());
+            action.accept(view);
+        }
+    }
+
+    /**
+     * See {@link Generex#spliterator()}.
+     */
+    @Override
+    public Spliterator<String> spliterator() {
+        if (isInfinite()) {
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+        return new MatchSpliterator(analysis().flat, languageCounts(), BigInteger.ZERO);
+    }
+
+    /**
+     * See {@link Generex#stream()}.
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * See {@link Generex#exportTo(Path, ExportOptions)}.
+     */
+    public long exportTo(Path path, ExportOptions options) throws IOException {
+        return new LanguageExport(analysis().flat, languageCounts(), options).run(path);
+    }
+
+    /**
+     * Writes this pattern in a compact binary form that {@link #readFrom(ByteBuffer)} restores without compiling it
+     * again.
+     * <p>
+     * The record starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed by the length bounds, the flattened
+     * automaton and, for finite patterns, the number of strings every state accepts. Everything is big-endian. The
+     * stream is flushed but not closed, so several patterns can be written one after the other.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     * @see GenerexBundle
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        Analysis analysis = analysis();
+        LanguageCounts counts = analysis.finite ? languageCounts() : null;
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(analysis.minLength);
+        data.writeInt(analysis.maxLength);
+        analysis.flat.writeTo(data);
+        data.writeBoolean(counts != null);
+        if (counts != null) counts.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Reads a pattern written by {@link #writeTo(OutputStream)} from the position of {@code buffer}, and advances the
+     * buffer past it. The byte order of {@code buffer} is ignored. Nothing is compiled: the returned pattern is ready
+     * to generate strings right away.
+     *
+     * @param buffer the buffer to read from, such as a slice of a memory-mapped file
+     * @return the pattern that was written
+     * @throws IllegalArgumentException if the buffer doesn't start with a pattern of a supported version, or the
+     *                                  pattern is corrupt or truncated
+     */
+    public static CompiledGenerex readFrom(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            int magic = in.getInt();
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("Not a compiled pattern: bad magic number "
+                        + Integer.toHexString(magic) + ".");
+            }
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported format version " + version + ", expected "
+                        + FORMAT_VERSION + ".");
+            }
+            int minLength = in.getInt();
+            int maxLength = in.getInt();
+            if (minLength < 0 || maxLength < 0) {
+                throw new IllegalArgumentException("Corrupt pattern: negative length bounds.");
+            }
+            FlatAutomaton flat = FlatAutomaton.readFrom(in);
+            LanguageCounts counts = in.get() != 0 ? LanguageCounts.readFrom(in, flat) : null;
+            if (flat.isFinite() != (counts != null)) {
+                throw new IllegalArgumentException("Corrupt pattern: counts don't match the automaton.");
+            }
+
+            buffer.position(in.position());
+            return new CompiledGenerex(new Analysis(flat, minLength, maxLength), counts);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated compiled pattern.", e);
+        }
+    }
+
+    /**
+     * The lengths of a range that some match has, with their cumulative weights under a {@link LengthDistribution},
+     * so that drawing a target length is a single binary search.
+     */
+    private static final class LengthTable {
+
+        private final LengthDistribution distribution;
+        private final int minLength;
+        private final int maxLength;
+
+        private final int[] lengths;
+
+        /**
+         * The total weight of each length and the lengths before it, or {@code null} if every weight is zero.
+         */
+        private final double[] cumulativeWeights;
+
+        private LengthTable(LengthDistribution distribution, LengthReachability reachability, int minLength,
+                            int maxLength) {
+            this.distribution = distribution;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+
+            int lastLength = (int) Math.min(maxLength, minLength + (long) LengthDistribution.MAX_WEIGHED_LENGTHS - 1);
+            int[] reachable = new int[lastLength - minLength + 1];
+            double[] cumulative = new double[reachable.length];
+            int count = 0;
+            double total = 0;
+            for (int length = minLength; length <= lastLength; length++) {
+                if (!reachability.canReach(FlatAutomaton.INITIAL_STATE, length)) continue;
+                double weight = distribution.weight(length, minLength, maxLength);
+                if (!(weight >= 0) || Double.isInfinite(weight)) {
+                    throw new IllegalArgumentException("Invalid weight for length " + length + ": " + weight);
+                }
+                total += weight;
+                reachable[count] = length;
+                cumulative[count++] = total;
+            }
+            lengths = Arrays.copyOf(reachable, count);
+            cumulativeWeights = total > 0 ? Arrays.copyOf(cumulative, count) : null;
+        }
+
+        private boolean isFor(LengthDistribution distribution, int minLength, int maxLength) {
+            return this.distribution == distribution && this.minLength == minLength && this.maxLength == maxLength;
+        }
+
+        /**
+         * @return a length drawn with the probability of its weight, or {@code -1} if no match has a length in range
+         */
+        private int pick(Random random) {
+            if (lengths.length == 0) return -1;
+            if (cumulativeWeights == null) return lengths[random.nextInt(lengths.length)];
+
+            double value = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int index = Arrays.binarySearch(cumulativeWeights, value);
+            // A miss gives the first total above the value; a hit lands on a length whose own weight ends there.
+            index = index >= 0 ? index + 1 : -index - 1;
+            // Zero-weight lengths share the total of the length before them, so move past them.
+            while (index < lengths.length - 1 && cumulativeWeights[index] <= value) index++;
+            return lengths[Math.min(index, lengths.length - 1)];
+        }
+    }
+
+    /**
+     * A {@link Spliterator} over a range of sample indexes of a seeded stream, which generates sample {@code i} from a
+     * {@link SplitMixRandom} reset to {@code (seed, i)}.
+     * <p>
+     * Since no sample depends on another, splitting is just halving the range, and the strings come out the same
+     * however the range is split and on however many threads it is traversed. Each half creates its own generator and
+     * walk the first time it generates a string, and reuses them for the rest of its range.
+     */
+    private static final class IndexedSamples implements Spliterator<String> {
+
+        /**
+         * Ranges smaller than this are not split further, since handing them to another thread costs more than
+         * generating them.
+         */
+        private static final long MINIMUM_SPLIT_SIZE = 64;
+
+        private final Analysis analysis;
+        private final LengthReachability reachability;
+        private final LengthTable lengths;
+        private final int minLength;
+        private final int maxLength;
+        private final long seed;
+
+        /**
+         * Index of the next sample to generate.
+         */
+        private long next;
+
+        /**
+         * Index one past the last sample to generate.
+         */
+        private final long end;
+
+        private SplitMixRandom random;
+        private RandomWalk walk;
+
+        IndexedSamples(CompiledGenerex compiled, long seed, long next, long end, int minLength, int maxLength,
+                       LengthDistribution lengths) {
+            Sampler sampler = compiled.sampler();
+            this.analysis = sampler.analysis;
+            this.reachability = sampler.reachability(maxLength);
+            this.lengths = sampler.lengthTable(lengths, reachability, minLength, maxLength);
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.seed = seed;
+            this.next = next;
+            this.end = end;
+        }
+
+        private IndexedSamples(IndexedSamples parent, long end) {
+            this.analysis = parent.analysis;
+            this.reachability = parent.reachability;
+            this.lengths = parent.lengths;
+            this.minLength = parent.minLength;
+            this.maxLength = parent.maxLength;
+            this.seed = parent.seed;
+            this.next = parent.next;
+            this.end = end;
+        }
+
+        /**
+         * @return sample {@link #next}, advancing past it
+         */
+        String sample() {
+            if (random == null) {
+                random = new SplitMixRandom();
+                walk = new RandomWalk(random, analysis.finite);
+            }
+            random.reset(seed, next++);
+            return random(walk, random, analysis, reachability, lengths, minLength, maxLength);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (next >= end) return false;
+            action.accept(sample());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            while (next < end) action.accept(sample());
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            if (end - next < MINIMUM_SPLIT_SIZE) return null;
+
+            long middle = next + (end - next >>> 1);
+            IndexedSamples prefix = new IndexedSamples(this, middle);
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * The automaton the random methods walk, along with the reachability table they share.
+     */
+    private static final class Sampler {
+
+        private final Analysis analysis;
+
+        /**
+         * Lazily computed and extended by {@link #lengthReachability(int)}; {@code null} until first needed.
+         */
+        private volatile LengthReachability lengthReachability;
+
+        /**
+         * The weights of the last length distribution and range asked for; {@code null} until then.
+         */
+        private volatile LengthTable lengthTable;
+
+        private Sampler(Analysis analysis) {
+            this.analysis = analysis;
+        }
+
+        /**
+         * @return the reachability table for generating strings of up to {@code maxLength} characters, or
+         * {@code null} if there is none.
+         */
+        private LengthReachability reachability(int maxLength) {
+            int actualMaxLength = Math.min(maxLength, analysis.maxLength);
+            return actualMaxLength < 0 ? null : lengthReachability(actualMaxLength);
+        }
+
+        /**
+         * Returns the weights of the lengths {@code lengths} draws from for a range, reusing the last table if it is
+         * for the same distribution and range.
+         *
+         * @return the table, or {@code null} to draw uniformly or to fall back to the backtracking walk
+         */
+        private LengthTable lengthTable(LengthDistribution lengths, LengthReachability reachability, int minLength,
+                                        int maxLength) {
+            if (lengths == null) throw new NullPointerException("lengths");
+            int actualMinLength = Math.max(minLength, analysis.minLength);
+            int actualMaxLength = Math.min(maxLength, analysis.maxLength);
+            if (lengths == LengthDistribution.UNIFORM || reachability == null || actualMinLength > actualMaxLength) {
+                return null;
+            }
+
+            LengthTable result = lengthTable;
+            if (result == null || !result.isFor(lengths, actualMinLength, actualMaxLength)) {
+                result = new LengthTable(lengths, reachability, actualMinLength, actualMaxLength);
+                lengthTable = result;
+            }
+            return result;
+        }
+
+        /**
+         * Returns which states can reach an accepting state in how many characters, covering at least every length
+         * up to {@code maxLength}, or {@code null} if that would take a table larger than
+         * {@link #MAX_REACHABILITY_BITS}.
+         * <p>
+         * The table only ever grows, geometrically, so that a sequence of slowly increasing lengths doesn't recompute
+         * the shared prefix over and over.
+         */
+        private LengthReachability lengthReachability(int maxLength) {
+            LengthReachability result = lengthReachability;
+            if (result == null || !result.covers(maxLength)) {
+                long maxRows = MAX_REACHABILITY_BITS / analysis.flat.getStateCount();
+                synchronized (this) {
+                    result = lengthReachability;
+                    if (result == null || (!result.covers(maxLength) && result.getRowCount() < maxRows)) {
+                        long grown = result == null ? maxLength : Math.max(maxLength, 2L * result.getRowCount());
+                        int lastRow = (int) Math.min(grown, maxRows - 1);
+                        result = result == null
+                                ? new LengthReachability(analysis.flat, lastRow)
+                                : result.extendTo(lastRow);
+                        lengthReachability = result;
+                    }
+                }
+                if (!result.covers(maxLength)) return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Data derived from the automaton once and shared by every caller afterwards.
+     */
+    private static final class Analysis {
+
+        private final boolean finite;
+
+        private final FlatAutomaton flat;
+
+        /**
+         * Minimum length of any string this regex accepts.
+         */
+        private final int minLength;
+
+        /**
+         * The regex's own upper bound on generated string length. For infinite regexes this is
+         * {@link Integer#MAX_VALUE} (no natural cap) so that {@code Math.min(userMax, maxLength)} collapses to the
+         * user's value. Callers that need a default when the user supplied no max should use
+         * {@link Generex#DEFAULT_INFINITE_MAX_LENGTH} instead for infinite regexes.
+         */
+        private final int maxLength;
+
+        /**
+         * Flattens the automaton and calculates the possible bounds of the generated string from it.
+         * <br>
+         * For finite automatons, both {@code minLength} and {@code maxLength} are populated from the longest and
+         * shortest paths to an accepting state. For infinite automatons, {@code maxLength} is set to
+         * {@link Integer#MAX_VALUE} (meaning "no natural upper bound").
+         */
+        private Analysis(Automaton automaton) {
+            this(flatten(automaton));
+        }
+
+        private Analysis(FlatAutomaton flat) {
+            this(flat, flat.getMinLength(), flat.getMaxLength());
+        }
+
+        private Analysis(FlatAutomaton flat, int minLength, int maxLength) {
+            this.flat = flat;
+            this.finite = flat.isFinite();
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        private static FlatAutomaton flatten(Automaton automaton) {
+            // Brics keeps single-string languages in a lazy "singleton" form and expands it on first access, which
+            // would race between threads sharing the automaton. Expand it once, before publishing.
+            automaton.expandSingleton();
+            return new FlatAutomaton(automaton.getInitialState());
+        }
+    }
+}
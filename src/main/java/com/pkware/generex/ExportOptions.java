@@ -0,0 +1,267 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Settings for {@link Generex#exportTo(java.nio.file.Path, ExportOptions)}, which writes every string a finite
+ * pattern matches to disk, one per line, in lexicographical order.
+ * <p>
+ * The strings are split by position into shards, which are enumerated, encoded and written in parallel. Instances are
+ * immutable and made with a {@link Builder}:
+ * <pre>{@code
+ * ExportOptions options = ExportOptions.builder()
+ *         .threads(8)
+ *         .layout(ExportOptions.Layout.SHARD_FILES)
+ *         .progressListener((exported, total) -> System.out.println(exported + "/" + total))
+ *         .build();
+ * }</pre>
+ */
+public final class ExportOptions {
+
+    /**
+     * Where the shards end up.
+     */
+    public enum Layout {
+        /**
+         * A single file at the export path, holding every shard in order. Shards after the first are written to
+         * temporary files next to it, and appended to it in order as soon as they are complete.
+         */
+        CONCATENATED,
+
+        /**
+         * One file per shard, named {@code part-00000}, {@code part-00001} and so on, in a directory at the export
+         * path. Concatenating them in name order gives the same content as {@link #CONCATENATED}.
+         */
+        SHARD_FILES
+    }
+
+    /**
+     * Receives the progress of an export.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called every time a shard has written another buffer of strings, and when it is done. Shards run in
+         * parallel, so calls may come from several threads at once, and may not arrive in increasing order of
+         * {@code exported}.
+         *
+         * @param exported the number of strings written so far, over all shards
+         * @param total    the number of strings the export writes
+         */
+        void onProgress(long exported, long total);
+    }
+
+    /**
+     * The smallest buffer size accepted, so that a line separator always fits.
+     */
+    public static final int MINIMUM_BUFFER_SIZE = 64;
+
+    private static final ExportOptions DEFAULTS = builder().build();
+
+    private final int threads;
+    private final int shards;
+    private final Layout layout;
+    private final Charset charset;
+    private final String lineSeparator;
+    private final boolean replaceUnencodable;
+    private final int bufferSize;
+    private final ExecutorService executor;
+    private final ProgressListener progressListener;
+
+    private ExportOptions(Builder builder) {
+        threads = builder.threads;
+        shards = builder.shards;
+        layout = builder.layout;
+        charset = builder.charset;
+        lineSeparator = builder.lineSeparator;
+        replaceUnencodable = builder.replaceUnencodable;
+        bufferSize = builder.bufferSize;
+        executor = builder.executor;
+        progressListener = builder.progressListener;
+    }
+
+    /**
+     * @return options with every setting at its default: one thread per processor, four shards per thread,
+     * {@link Layout#CONCATENATED}, UTF-8, {@code "\n"} and 1 MiB buffers.
+     */
+    public static ExportOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of threads of the pool the export creates, when it isn't given an {@link #getExecutor()
+     * executor}.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of shards the strings are split into, or {@code 0} for four per thread. Never more shards
+     * than strings are used.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return the charset the strings are encoded with. See {@link #isReplacingUnencodable()} for characters it
+     * can't encode.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    /**
+     * @return {@code true} if characters the charset can't encode, and unpaired surrogates, are replaced with the
+     * charset's replacement, as {@link String#getBytes(Charset)} does, or {@code false} if the export fails on them
+     * instead, since the lines would no longer match the pattern. {@code false} by default.
+     */
+    public boolean isReplacingUnencodable() {
+        return replaceUnencodable;
+    }
+
+    /**
+     * @return the size of the direct buffer each shard encodes into before writing it out.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the executor the shards run on, or {@code null} if the export creates its own pool of
+     * {@link #getThreads()} threads, and shuts it down when done.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the listener notified of progress, or {@code null}.
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Creates {@link ExportOptions}. Every setting starts at its default.
+     */
+    public static final class Builder {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int shards = 0;
+        private Layout layout = Layout.CONCATENATED;
+        private Charset charset = StandardCharsets.UTF_8;
+        private String lineSeparator = "\n";
+        private boolean replaceUnencodable = false;
+        private int bufferSize = 1 << 20;
+        private ExecutorService executor;
+        private ProgressListener progressListener;
+
+        private Builder() {
+        }
+
+        /**
+         * @throws IllegalArgumentException if {@code threads} is not positive
+         */
+        public Builder threads(int threads) {
+            if (threads <= 0) throw new IllegalArgumentException("threads must be positive: " + threads);
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param shards the number of shards, or {@code 0} for four per thread
+         * @throws IllegalArgumentException if {@code shards} is negative
+         */
+        public Builder shards(int shards) {
+            if (shards < 0) throw new IllegalArgumentException("shards must not be negative: " + shards);
+            this.shards = shards;
+            return this;
+        }
+
+        public Builder layout(Layout layout) {
+            if (layout == null) throw new NullPointerException("layout");
+            this.layout = layout;
+            return this;
+        }
+
+        public Builder charset(Charset charset) {
+            if (charset == null) throw new NullPointerException("charset");
+            this.charset = charset;
+            return this;
+        }
+
+        public Builder lineSeparator(String lineSeparator) {
+            if (lineSeparator == null) throw new NullPointerException("lineSeparator");
+            this.lineSeparator = lineSeparator;
+            return this;
+        }
+
+        /**
+         * @see ExportOptions#isReplacingUnencodable()
+         */
+        public Builder replaceUnencodable(boolean replaceUnencodable) {
+            this.replaceUnencodable = replaceUnencodable;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if {@code bufferSize} is below {@link #MINIMUM_BUFFER_SIZE}
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < MINIMUM_BUFFER_SIZE) {
+                throw new IllegalArgumentException(
+                        "bufferSize must be at least " + MINIMUM_BUFFER_SIZE + ": " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * @param executor the executor to run the shards on, which the export leaves running, or {@code null} to
+         *                 create a pool of {@link #threads(int)} threads
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder progressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public ExportOptions build() {
+            return new ExportOptions(this);
+        }
+    }
+}
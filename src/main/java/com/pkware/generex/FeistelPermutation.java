@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * A keyed, pseudo-random permutation of {@code [0, size)}, evaluated one value at a time in constant memory.
+ * <p>
+ * Values are encrypted with a balanced Feistel network over the smallest even number of bits that covers
+ * {@code size}, which is a bijection of {@code [0, 2^bits)} for any round function. Outputs that fall outside
+ * {@code [0, size)} are encrypted again ("cycle walking") until they land inside, which keeps the mapping a bijection
+ * of {@code [0, size)}. Since {@code 2^bits < 4 * size}, that takes fewer than four encryptions on average.
+ * <p>
+ * Domains that fit in 62 bits are permuted with {@code long} arithmetic; larger ones with {@link BigInteger}.
+ */
+final class FeistelPermutation {
+
+    private static final int ROUNDS = 6;
+
+    /**
+     * Domains of up to this many bits use the {@code long} implementation.
+     */
+    private static final int MAX_LONG_BITS = 62;
+
+    private final BigInteger size;
+    private final long longSize;
+    private final int halfBits;
+    private final long[] keys = new long[ROUNDS];
+
+    /**
+     * @param size   the number of values to permute
+     * @param random the source of the permutation's keys
+     */
+    FeistelPermutation(BigInteger size, Random random) {
+        if (size.signum() <= 0) throw new IllegalArgumentException("size must be positive: " + size);
+        this.size = size;
+
+        int bits = Math.max(2, size.subtract(BigInteger.ONE).bitLength());
+        bits += bits & 1;
+        halfBits = bits / 2;
+        longSize = bits <= MAX_LONG_BITS ? size.longValue() : -1;
+
+        for (int i = 0; i < ROUNDS; i++) keys[i] = random.nextLong();
+    }
+
+    /**
+     * @return the image of {@code value}, which must be in {@code [0, size)}.
+     */
+    BigInteger permute(BigInteger value) {
+        if (longSize >= 0) return BigInteger.valueOf(permute(value.longValue()));
+
+        BigInteger mask = BigInteger.ONE.shiftLeft(halfBits).subtract(BigInteger.ONE);
+        do {
+            BigInteger left = value.shiftRight(halfBits);
+            BigInteger right = value.and(mask);
+            for (long key : keys) {
+                BigInteger next = left.xor(round(key, right, mask));
+                left = right;
+                right = next;
+            }
+            value = left.shiftLeft(halfBits).or(right);
+        } while (value.compareTo(size) >= 0);
+        return value;
+    }
+
+    /**
+     * Same as {@link #permute(BigInteger)} for domains that use the {@code long} implementation.
+     */
+    long permute(long value) {
+        long mask = (1L << halfBits) - 1;
+        do {
+            long left = value >>> halfBits;
+            long right = value & mask;
+            for (long key : keys) {
+                long next = left ^ (mix(key ^ right) & mask);
+                left = right;
+                right = next;
+            }
+            value = left << halfBits | right;
+        } while (value >= longSize);
+        return value;
+    }
+
+    /**
+     * @return {@code true} if {@link #permute(long)} can be used.
+     */
+    boolean isLong() {
+        return longSize >= 0;
+    }
+
+    /**
+     * The round function for halves wider than a {@code long}: hashes {@code half} with {@code key}, then stretches
+     * the hash to the width of {@code mask} in counter mode.
+     */
+    private static BigInteger round(long key, BigInteger half, BigInteger mask) {
+        long hash = key;
+        for (byte b : half.toByteArray()) hash = mix(hash ^ b);
+
+        byte[] bytes = new byte[(mask.bitLength() + 63) / 64 * 8];
+        for (int block = 0; block < bytes.length / 8; block++) {
+            long value = mix(hash + block);
+            for (int i = 0; i < 8; i++) bytes[block * 8 + i] = (byte) (value >>> (i * 8));
+        }
+        return new BigInteger(1, bytes).and(mask);
+    }
+
+    /**
+     * The SplitMix64 finalizer: a cheap bijective mix of all 64 bits.
+     */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
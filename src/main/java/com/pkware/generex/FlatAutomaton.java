@@ -0,0 +1,818 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.State;
+import dk.brics.automaton.Transition;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, array-based copy of an automaton, which every generation, counting and iteration path runs over.
+ * <p>
+ * States are numbered in breadth-first order from the initial state, which is always state {@code 0}. The
+ * transitions of state {@code s} are stored at indexes {@code [transitionStart[s], transitionStart[s + 1])} of the
+ * transition arrays, sorted by their first character so that walking them in order visits strings in lexicographical
+ * order.
+ * <p>
+ * Dead states, from which no accepting state can be reached, are left out along with the transitions leading to them.
+ * Every state but the initial one therefore leads to at least one accepted string, and walks never need to explore a
+ * branch that can't match.
+ */
+final class FlatAutomaton {
+
+    static final int INITIAL_STATE = 0;
+
+    private final int[] transitionStart;
+    private final char[] min;
+    private final char[] max;
+    private final int[] dest;
+
+    /**
+     * The number of code points each transition starts, which is the weight of the transition in a uniform choice of
+     * character: the number of characters it can produce, times the number of low surrogates that can follow for a
+     * transition over high surrogates.
+     */
+    private final int[] weight;
+
+    /**
+     * The total weight of each transition and the transitions before it in the same state, so that a weighted choice
+     * of transition is a binary search.
+     */
+    private final int[] cumulativeWeight;
+
+    /**
+     * One bit per state, set if the state accepts.
+     */
+    private final long[] accept;
+
+    private final int stateCount;
+
+    /**
+     * The states ordered so that every state comes after all the states its transitions lead to, or {@code null} if
+     * the automaton has cycles.
+     */
+    private final int[] reverseTopologicalOrder;
+
+    FlatAutomaton(State initialState) {
+        Map<State, Integer> numbers = new HashMap<State, Integer>();
+        List<State> states = new ArrayList<State>();
+        numbers.put(initialState, INITIAL_STATE);
+        states.add(initialState);
+
+        Map<State, Boolean> live = liveStates(initialState);
+        List<Transition> transitions = new ArrayList<Transition>();
+        List<Integer> starts = new ArrayList<Integer>();
+
+        // The state list grows while it is walked, which makes this a breadth-first traversal.
+        for (int i = 0; i < states.size(); i++) {
+            starts.add(transitions.size());
+            for (Transition transition : states.get(i).getSortedTransitions(false)) {
+                if (!live.containsKey(transition.getDest())) continue;
+                transitions.add(transition);
+                if (!numbers.containsKey(transition.getDest())) {
+                    numbers.put(transition.getDest(), states.size());
+                    states.add(transition.getDest());
+                }
+            }
+        }
+
+        stateCount = states.size();
+        int transitionCount = transitions.size();
+        this.transitionStart = new int[stateCount + 1];
+        this.accept = new long[(stateCount + 63) >>> 6];
+        this.min = new char[transitionCount];
+        this.max = new char[transitionCount];
+        this.dest = new int[transitionCount];
+        this.weight = new int[transitionCount];
+        this.cumulativeWeight = new int[transitionCount];
+
+        for (int s = 0; s < stateCount; s++) {
+            this.transitionStart[s] = starts.get(s);
+            if (states.get(s).isAccept()) this.accept[s >>> 6] |= 1L << s;
+        }
+        this.transitionStart[stateCount] = transitionCount;
+
+        for (int t = 0; t < transitionCount; t++) {
+            Transition transition = transitions.get(t);
+            this.min[t] = transition.getMin();
+            this.max[t] = transition.getMax();
+            this.dest[t] = numbers.get(transition.getDest());
+        }
+
+        computeWeights();
+        reverseTopologicalOrder = reverseTopologicalOrder();
+    }
+
+    /**
+     * Reassembles an automaton from the arrays written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @throws IllegalArgumentException if the arrays don't describe a valid automaton
+     */
+    private FlatAutomaton(int[] transitionStart, long[] accept, char[] min, char[] max, int[] dest) {
+        stateCount = transitionStart.length - 1;
+        int transitionCount = dest.length;
+        if (stateCount < 1 || transitionStart[0] != 0 || transitionStart[stateCount] != transitionCount) {
+            throw new IllegalArgumentException("Corrupt automaton: bad transition table.");
+        }
+        for (int s = 0; s < stateCount; s++) {
+            if (transitionStart[s] > transitionStart[s + 1]) {
+                throw new IllegalArgumentException("Corrupt automaton: bad transition table.");
+            }
+            for (int t = transitionStart[s]; t < transitionStart[s + 1]; t++) {
+                // Transitions must be sorted and disjoint for lexicographical order and ranking to hold.
+                if (min[t] > max[t] || t > transitionStart[s] && min[t] <= max[t - 1]) {
+                    throw new IllegalArgumentException("Corrupt automaton: unsorted transitions in state " + s + ".");
+                }
+                if (dest[t] < 0 || dest[t] >= stateCount) {
+                    throw new IllegalArgumentException("Corrupt automaton: bad destination " + dest[t] + ".");
+                }
+            }
+        }
+
+        this.transitionStart = transitionStart;
+        this.accept = accept;
+        this.min = min;
+        this.max = max;
+        this.dest = dest;
+        this.weight = new int[transitionCount];
+        this.cumulativeWeight = new int[transitionCount];
+        computeWeights();
+        reverseTopologicalOrder = reverseTopologicalOrder();
+    }
+
+    private void computeWeights() {
+        for (int s = 0; s < stateCount; s++) {
+            int total = 0;
+            for (int t = transitionStart[s]; t < transitionStart[s + 1]; t++) {
+                weight[t] = getWidth(t) * lowSurrogatesAfter(t);
+                total += weight[t];
+                cumulativeWeight[t] = total;
+            }
+        }
+    }
+
+    /**
+     * Weighs a transition over high surrogates by the low surrogates its destination can produce, so that a
+     * supplementary code point is as likely as any other character instead of sharing the weight of a single
+     * character with every code point of its high surrogate.
+     *
+     * @return the number of low surrogates the destination of {@code transition} can produce if it only produces high
+     * surrogates, {@code 1} otherwise
+     */
+    private int lowSurrogatesAfter(int transition) {
+        if (min[transition] < Character.MIN_HIGH_SURROGATE || max[transition] > Character.MAX_HIGH_SURROGATE) return 1;
+
+        int lows = 0;
+        int state = dest[transition];
+        for (int t = transitionStart[state]; t < transitionStart[state + 1]; t++) {
+            int first = Math.max(min[t], Character.MIN_LOW_SURROGATE);
+            int last = Math.min(max[t], Character.MAX_LOW_SURROGATE);
+            if (first <= last) lows += last - first + 1;
+        }
+        return Math.max(lows, 1);
+    }
+
+    /**
+     * Writes the arrays this automaton is made of, in the layout {@link #readFrom(ByteBuffer)} expects: the state and
+     * transition counts, then {@code transitionStart}, {@code accept}, {@code min}, {@code max} and {@code dest}.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(stateCount);
+        out.writeInt(dest.length);
+        for (int start : transitionStart) out.writeInt(start);
+        for (long bits : accept) out.writeLong(bits);
+        for (char c : min) out.writeChar(c);
+        for (char c : max) out.writeChar(c);
+        for (int d : dest) out.writeInt(d);
+    }
+
+    /**
+     * Reads an automaton written by {@link #writeTo(DataOutputStream)} from the position of {@code in}, which must be
+     * big-endian, and advances it past the automaton.
+     *
+     * @throws IllegalArgumentException if the data doesn't describe a valid automaton
+     * @throws java.nio.BufferUnderflowException if {@code in} ends before the automaton does
+     */
+    static FlatAutomaton readFrom(ByteBuffer in) {
+        int stateCount = in.getInt();
+        int transitionCount = in.getInt();
+        // Checked against what's left first, so that corrupt counts can't allocate huge arrays.
+        long size = 4L * (stateCount + 1) + 8L * ((stateCount + 63L) >>> 6) + 8L * transitionCount;
+        if (stateCount < 1 || transitionCount < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt automaton: " + stateCount + " states and " + transitionCount
+                    + " transitions don't fit in the remaining " + in.remaining() + " bytes.");
+        }
+
+        int[] transitionStart = new int[stateCount + 1];
+        long[] accept = new long[(stateCount + 63) >>> 6];
+        char[] min = new char[transitionCount];
+        char[] max = new char[transitionCount];
+        int[] dest = new int[transitionCount];
+        in.asIntBuffer().get(transitionStart);
+        in.position(in.position() + 4 * transitionStart.length);
+        in.asLongBuffer().get(accept);
+        in.position(in.position() + 8 * accept.length);
+        in.asCharBuffer().get(min);
+        in.position(in.position() + 2 * transitionCount);
+        in.asCharBuffer().get(max);
+        in.position(in.position() + 2 * transitionCount);
+        in.asIntBuffer().get(dest);
+        in.position(in.position() + 4 * transitionCount);
+        return new FlatAutomaton(transitionStart, accept, min, max, dest);
+    }
+
+    /**
+     * @return a brics automaton accepting the same strings, built from this copy.
+     */
+    Automaton toAutomaton() {
+        State[] states = new State[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            states[s] = new State();
+            states[s].setAccept(isAccept(s));
+        }
+        for (int s = 0; s < stateCount; s++) {
+            for (int t = transitionStart[s]; t < transitionStart[s + 1]; t++) {
+                states[s].addTransition(new Transition(min[t], max[t], states[dest[t]]));
+            }
+        }
+        Automaton automaton = new Automaton();
+        automaton.setInitialState(states[INITIAL_STATE]);
+        automaton.setDeterministic(true);
+        return automaton;
+    }
+
+    /**
+     * Finds the states reachable from {@code initialState} that can reach an accepting state, by walking the reversed
+     * transitions back from every accepting state.
+     */
+    private static Map<State, Boolean> liveStates(State initialState) {
+        Map<State, List<State>> predecessors = new HashMap<State, List<State>>();
+        List<State> reachable = new ArrayList<State>();
+        predecessors.put(initialState, new ArrayList<State>());
+        reachable.add(initialState);
+        for (int i = 0; i < reachable.size(); i++) {
+            State state = reachable.get(i);
+            for (Transition transition : state.getTransitions()) {
+                List<State> destPredecessors = predecessors.get(transition.getDest());
+                if (destPredecessors == null) {
+                    destPredecessors = new ArrayList<State>();
+                    predecessors.put(transition.getDest(), destPredecessors);
+                    reachable.add(transition.getDest());
+                }
+                destPredecessors.add(state);
+            }
+        }
+
+        Map<State, Boolean> live = new HashMap<State, Boolean>();
+        List<State> pending = new ArrayList<State>();
+        for (State state : reachable) {
+            if (state.isAccept()) {
+                live.put(state, Boolean.TRUE);
+                pending.add(state);
+            }
+        }
+        while (!pending.isEmpty()) {
+            for (State predecessor : predecessors.get(pending.remove(pending.size() - 1))) {
+                if (live.put(predecessor, Boolean.TRUE) == null) pending.add(predecessor);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Orders the states so that every state comes after all the states its transitions lead to. Uses an explicit
+     * stack, since long chains of states (such as {@code a{10000}}) would overflow the call stack.
+     *
+     * @return the order, or {@code null} if a transition leads back to a state still on the stack.
+     */
+    private int[] reverseTopologicalOrder() {
+        int[] order = new int[stateCount];
+        int ordered = 0;
+
+        // 0: not visited yet, 1: on the stack, 2: ordered.
+        byte[] visited = new byte[stateCount];
+        int[] stateStack = new int[stateCount];
+        int[] transitionStack = new int[stateCount];
+        int depth = 0;
+
+        stateStack[0] = INITIAL_STATE;
+        transitionStack[0] = transitionStart[INITIAL_STATE];
+        visited[INITIAL_STATE] = 1;
+        while (depth >= 0) {
+            int state = stateStack[depth];
+            int t = transitionStack[depth];
+            if (t == transitionStart[state + 1]) {
+                visited[state] = 2;
+                order[ordered++] = state;
+                depth--;
+                continue;
+            }
+            transitionStack[depth]++;
+            int next = dest[t];
+            if (visited[next] == 1) return null;
+            if (visited[next] == 0) {
+                visited[next] = 1;
+                depth++;
+                stateStack[depth] = next;
+                transitionStack[depth] = transitionStart[next];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return {@code true} if no two transitions of the same state share a character, so that every string has at most
+     * one path.
+     */
+    boolean isDeterministic() {
+        for (int s = 0; s < stateCount; s++) {
+            for (int t = transitionStart[s] + 1; t < transitionStart[s + 1]; t++) {
+                // Transitions are sorted by their first character, so any overlap involves a transition that starts
+                // before the previous one ends.
+                if (min[t] <= max[t - 1]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the subset construction on this automaton until it either completes or finds more than {@code maxStates}
+     * sets of states. This tells whether determinizing the automaton stays small at a cost bounded by
+     * {@code maxStates}, rather than by the size of the deterministic automaton, and keeps the result if it does.
+     *
+     * @return the deterministic automaton, or {@code null} if it has more than {@code maxStates} states
+     */
+    FlatAutomaton determinizeWithin(int maxStates) {
+        return determinize(maxStates);
+    }
+
+    /**
+     * @return a deterministic automaton accepting the same strings, built by the subset construction
+     */
+    FlatAutomaton determinize() {
+        return determinize(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds the deterministic automaton whose states are the sets of states this automaton can be in. The transitions
+     * of a set are found in a single sweep over the sorted bounds of its members' transitions, so the cost depends on
+     * the number of transitions, not on the number of characters they span.
+     *
+     * @return the deterministic automaton, or {@code null} if it has more than {@code maxStates} states
+     */
+    private FlatAutomaton determinize(int maxStates) {
+        Map<IntBuffer, Integer> numbers = new HashMap<IntBuffer, Integer>();
+        List<int[]> sets = new ArrayList<int[]>();
+        int[] initial = {INITIAL_STATE};
+        numbers.put(IntBuffer.wrap(initial), 0);
+        sets.add(initial);
+
+        int[] starts = new int[16];
+        long[] accepts = new long[1];
+        char[] mins = new char[16];
+        char[] maxes = new char[16];
+        int[] dests = new int[16];
+        int transitionCount = 0;
+
+        int[] active = new int[stateCount];
+        boolean[] listed = new boolean[stateCount];
+        // The list grows while it is walked, like in the constructor.
+        for (int i = 0; i < sets.size(); i++) {
+            int[] set = sets.get(i);
+            if (i + 1 >= starts.length) starts = Arrays.copyOf(starts, starts.length * 2);
+            if ((i >>> 6) >= accepts.length) accepts = Arrays.copyOf(accepts, accepts.length * 2);
+            starts[i] = transitionCount;
+            for (int state : set) {
+                if (isAccept(state)) accepts[i >>> 6] |= 1L << i;
+            }
+
+            // Sweep the transitions of the set by character: each event starts or ends a transition, and every run of
+            // characters between two event positions leads to the set of destinations active over it.
+            int eventCount = 0;
+            for (int state : set) eventCount += 2 * (transitionStart[state + 1] - transitionStart[state]);
+            long[] events = new long[eventCount];
+            int e = 0;
+            for (int state : set) {
+                for (int t = transitionStart[state]; t < transitionStart[state + 1]; t++) {
+                    events[e++] = (long) min[t] << 32 | (long) dest[t] << 1 | 1;
+                    events[e++] = (long) (max[t] + 1) << 32 | (long) dest[t] << 1;
+                }
+            }
+            Arrays.sort(events);
+
+            List<Integer> targets = new ArrayList<Integer>();
+            for (int j = 0; j < eventCount; ) {
+                long position = events[j] >>> 32;
+                for (; j < eventCount && events[j] >>> 32 == position; j++) {
+                    int target = (int) events[j] >>> 1;
+                    if ((events[j] & 1) != 0) {
+                        if (active[target]++ == 0 && !listed[target]) {
+                            listed[target] = true;
+                            targets.add(target);
+                        }
+                    } else {
+                        active[target]--;
+                    }
+                }
+
+                int size = 0;
+                for (int target : targets) {
+                    if (active[target] > 0) size++;
+                }
+                if (size == 0) continue;
+                int[] next = new int[size];
+                int n = 0;
+                for (int target : targets) {
+                    if (active[target] > 0) next[n++] = target;
+                }
+                Arrays.sort(next);
+                Integer number = numbers.get(IntBuffer.wrap(next));
+                if (number == null) {
+                    if (sets.size() >= maxStates) return null;
+                    number = sets.size();
+                    numbers.put(IntBuffer.wrap(next), number);
+                    sets.add(next);
+                }
+
+                // Some member is active at every event position but the last, so the run ends at the next one.
+                char first = (char) position;
+                char last = (char) ((events[j] >>> 32) - 1);
+                if (transitionCount > starts[i] && dests[transitionCount - 1] == number
+                        && maxes[transitionCount - 1] + 1 == first) {
+                    maxes[transitionCount - 1] = last;
+                    continue;
+                }
+                if (transitionCount == dests.length) {
+                    mins = Arrays.copyOf(mins, transitionCount * 2);
+                    maxes = Arrays.copyOf(maxes, transitionCount * 2);
+                    dests = Arrays.copyOf(dests, transitionCount * 2);
+                }
+                mins[transitionCount] = first;
+                maxes[transitionCount] = last;
+                dests[transitionCount++] = number;
+            }
+            for (int target : targets) listed[target] = false;
+        }
+
+        int count = sets.size();
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = transitionCount;
+        return new FlatAutomaton(starts, Arrays.copyOf(accepts, (count + 63) >>> 6),
+                Arrays.copyOf(mins, transitionCount), Arrays.copyOf(maxes, transitionCount),
+                Arrays.copyOf(dests, transitionCount));
+    }
+
+    /**
+     * Automatons whose transitions split the characters into more intervals than this are minimized by
+     * {@link #refine()} rather than by brics.
+     */
+    private static final int MAX_BRICS_INTERVALS = 64;
+
+    /**
+     * Minimizes {@code automaton} into a new automaton, like brics' {@link Automaton#minimize()}.
+     * <p>
+     * Brics steps through every interval of the alphabet, as split by the bounds of all transitions, for every state
+     * while it determinizes and minimizes, which is slow for the hundreds of ranges of a class like {@code \p{L}}. So
+     * the automaton is always determinized with {@link #determinize()}, and automatons over many intervals are then
+     * minimized with {@link #refine()}, whose rounds are linear in the number of transitions. Brics still minimizes
+     * the others, since refinement takes as many rounds as the longest string needed to tell two states apart, like
+     * the 50,000 of {@code [a-z]{1,50000}}.
+     *
+     * @return a new minimal, deterministic automaton accepting the same strings
+     */
+    static Automaton minimize(Automaton automaton) {
+        automaton.expandSingleton();
+        FlatAutomaton flat = new FlatAutomaton(automaton.getInitialState());
+        return (flat.isDeterministic() ? flat : flat.determinize()).minimize();
+    }
+
+    /**
+     * Same as {@link #minimize(Automaton)} for an automaton that is already deterministic.
+     *
+     * @return a new minimal, deterministic automaton accepting the same strings
+     */
+    Automaton minimize() {
+        if (intervalCount() <= MAX_BRICS_INTERVALS) {
+            Automaton deterministic = toAutomaton();
+            deterministic.minimize();
+            return deterministic;
+        }
+        return refine().toAutomaton();
+    }
+
+    /**
+     * @return the number of intervals the bounds of all transitions split the characters into
+     */
+    private int intervalCount() {
+        boolean[] bounds = new boolean[Character.MAX_VALUE + 2];
+        int count = 1;
+        for (int t = 0; t < dest.length; t++) {
+            if (!bounds[min[t]]) {
+                bounds[min[t]] = true;
+                count++;
+            }
+            if (!bounds[max[t] + 1]) {
+                bounds[max[t] + 1] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Minimizes this deterministic automaton with Moore's algorithm: states start out split by whether they accept,
+     * and each round splits them further by the blocks their transitions lead to, until a round splits nothing.
+     *
+     * @return the automaton whose states are the final blocks
+     */
+    private FlatAutomaton refine() {
+        int[] block = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) block[s] = isAccept(s) ? 1 : 0;
+        int blockCount = -1;
+        List<int[]> signatures;
+        while (true) {
+            Map<IntBuffer, Integer> blocks = new HashMap<IntBuffer, Integer>();
+            signatures = new ArrayList<int[]>();
+            int[] next = new int[stateCount];
+            // Numbering blocks in order of their first state keeps the initial state in block 0.
+            for (int s = 0; s < stateCount; s++) {
+                int[] signature = signature(s, block);
+                Integer number = blocks.get(IntBuffer.wrap(signature));
+                if (number == null) {
+                    number = signatures.size();
+                    blocks.put(IntBuffer.wrap(signature), number);
+                    signatures.add(signature);
+                }
+                next[s] = number;
+            }
+            block = next;
+            if (signatures.size() == blockCount) break;
+            blockCount = signatures.size();
+        }
+
+        int transitionCount = 0;
+        for (int[] signature : signatures) transitionCount += (signature.length - 1) / 3;
+        int[] starts = new int[blockCount + 1];
+        long[] accepts = new long[(blockCount + 63) >>> 6];
+        char[] mins = new char[transitionCount];
+        char[] maxes = new char[transitionCount];
+        int[] dests = new int[transitionCount];
+        int t = 0;
+        for (int b = 0; b < blockCount; b++) {
+            int[] signature = signatures.get(b);
+            starts[b] = t;
+            // The signature starts with the previous block, which includes whether the states accept.
+            if (isAccept(firstState(block, b))) accepts[b >>> 6] |= 1L << b;
+            for (int i = 1; i < signature.length; i += 3) {
+                mins[t] = (char) signature[i];
+                maxes[t] = (char) signature[i + 1];
+                // The signature holds blocks of the previous round, which the last round didn't split.
+                dests[t++] = signature[i + 2];
+            }
+        }
+        starts[blockCount] = t;
+        return new FlatAutomaton(starts, accepts, mins, maxes, dests);
+    }
+
+    /**
+     * @return the block of {@code state}, followed by the first character, last character and destination block of
+     * each run of its transitions, with adjacent transitions into the same block merged
+     */
+    private int[] signature(int state, int[] block) {
+        int[] signature = new int[1 + 3 * (transitionStart[state + 1] - transitionStart[state])];
+        signature[0] = block[state];
+        int size = 1;
+        for (int t = transitionStart[state]; t < transitionStart[state + 1]; t++) {
+            if (size > 1 && signature[size - 1] == block[dest[t]] && signature[size - 2] + 1 == min[t]) {
+                signature[size - 2] = max[t];
+            } else {
+                signature[size++] = min[t];
+                signature[size++] = max[t];
+                signature[size++] = block[dest[t]];
+            }
+        }
+        return Arrays.copyOf(signature, size);
+    }
+
+    private static int firstState(int[] block, int number) {
+        int s = 0;
+        while (block[s] != number) s++;
+        return s;
+    }
+
+    /**
+     * Builds the product of this automaton and {@code other}, which accepts the strings both of them accept.
+     * <p>
+     * Only the pairs of states reachable from the pair of initial states are built, and the transitions of each pair
+     * are the overlaps of the two sorted transition lists, found in a single merge pass. Neither automaton is
+     * modified, so either can be shared.
+     *
+     * @return a new deterministic brics automaton, neither minimized nor pruned of dead states
+     */
+    Automaton intersection(FlatAutomaton other) {
+        Map<Long, State> states = new HashMap<Long, State>();
+        List<Long> pending = new ArrayList<Long>();
+        State initial = new State();
+        states.put(0L, initial);
+        pending.add(0L);
+
+        // The list grows while it is walked, like in the constructor.
+        for (int i = 0; i < pending.size(); i++) {
+            long pair = pending.get(i);
+            int state = (int) (pair / other.stateCount);
+            int otherState = (int) (pair % other.stateCount);
+            State product = states.get(pair);
+            product.setAccept(isAccept(state) && other.isAccept(otherState));
+
+            int t = transitionStart[state];
+            int otherT = other.transitionStart[otherState];
+            while (t < transitionStart[state + 1] && otherT < other.transitionStart[otherState + 1]) {
+                char low = (char) Math.max(min[t], other.min[otherT]);
+                char high = (char) Math.min(max[t], other.max[otherT]);
+                if (low <= high) {
+                    long destPair = (long) dest[t] * other.stateCount + other.dest[otherT];
+                    State destState = states.get(destPair);
+                    if (destState == null) {
+                        destState = new State();
+                        states.put(destPair, destState);
+                        pending.add(destPair);
+                    }
+                    product.addTransition(new Transition(low, high, destState));
+                }
+                // Move past whichever transition ends first; the other one may still overlap the next.
+                if (max[t] < other.max[otherT]) {
+                    t++;
+                } else {
+                    otherT++;
+                }
+            }
+        }
+
+        Automaton automaton = new Automaton();
+        automaton.setInitialState(initial);
+        automaton.setDeterministic(true);
+        return automaton;
+    }
+
+    int getStateCount() {
+        return stateCount;
+    }
+
+    int getTransitionCount() {
+        return dest.length;
+    }
+
+    boolean isAccept(int state) {
+        return (accept[state >>> 6] & 1L << state) != 0;
+    }
+
+    /**
+     * @return {@code true} if the automaton accepts a finite number of strings.
+     */
+    boolean isFinite() {
+        return reverseTopologicalOrder != null;
+    }
+
+    /**
+     * @return the states ordered so that every state comes after all the states its transitions lead to. Only
+     * available for finite automata.
+     */
+    int[] getReverseTopologicalOrder() {
+        if (reverseTopologicalOrder == null) throw new IllegalStateException("The automaton has cycles.");
+        return reverseTopologicalOrder;
+    }
+
+    /**
+     * @return the length of the shortest accepted string, or {@link Integer#MAX_VALUE} if no string is accepted.
+     */
+    int getMinLength() {
+        // Breadth-first, so the first accepting state found is the nearest one.
+        int[] distance = new int[stateCount];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = INITIAL_STATE;
+        distance[INITIAL_STATE] = 0;
+        while (head < tail) {
+            int state = queue[head++];
+            if (isAccept(state)) return distance[state];
+            for (int t = transitionStart[state]; t < transitionStart[state + 1]; t++) {
+                if (distance[dest[t]] < 0) {
+                    distance[dest[t]] = distance[state] + 1;
+                    queue[tail++] = dest[t];
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the length of the longest accepted string, or {@link Integer#MAX_VALUE} if the automaton has cycles.
+     */
+    int getMaxLength() {
+        if (reverseTopologicalOrder == null) return Integer.MAX_VALUE;
+        int[] longest = new int[stateCount];
+        for (int state : reverseTopologicalOrder) {
+            // Dead states are pruned, so only a non-accepting initial state with no transitions accepts nothing.
+            int length = 0;
+            for (int t = transitionStart[state]; t < transitionStart[state + 1]; t++) {
+                length = Math.max(length, longest[dest[t]] + 1);
+            }
+            longest[state] = length;
+        }
+        return longest[INITIAL_STATE];
+    }
+
+    /**
+     * @return the index of the first transition of {@code state}.
+     */
+    int getTransitionStart(int state) {
+        return transitionStart[state];
+    }
+
+    /**
+     * @return the index after the last transition of {@code state}.
+     */
+    int getTransitionEnd(int state) {
+        return transitionStart[state + 1];
+    }
+
+    char getMin(int transition) {
+        return min[transition];
+    }
+
+    char getMax(int transition) {
+        return max[transition];
+    }
+
+    int getDest(int transition) {
+        return dest[transition];
+    }
+
+    /**
+     * @return the number of different characters {@code transition} can produce.
+     */
+    int getWidth(int transition) {
+        return max[transition] - min[transition] + 1;
+    }
+
+    /**
+     * @return the weight of {@code transition} in a uniform choice of character, which is its width unless it
+     * produces high surrogates.
+     */
+    int getWeight(int transition) {
+        return weight[transition];
+    }
+
+    /**
+     * @return the total weight of the transitions of {@code state}.
+     */
+    int getTotalWeight(int state) {
+        int end = transitionStart[state + 1];
+        return end == transitionStart[state] ? 0 : cumulativeWeight[end - 1];
+    }
+
+    /**
+     * Picks a transition of {@code state} with a probability proportional to its weight.
+     *
+     * @param value a uniform value in {@code [0, getTotalWeight(state))}
+     * @return the transition whose share of the total weight contains {@code value}
+     */
+    int pickTransition(int state, int value) {
+        int low = transitionStart[state];
+        int high = transitionStart[state + 1] - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeight[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+}
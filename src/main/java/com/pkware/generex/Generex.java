@@ -19,23 +19,18 @@
 package com.pkware.generex;
 
 import dk.brics.automaton.Automaton;
-import dk.brics.automaton.RegExp;
-import dk.brics.automaton.State;
-import dk.brics.automaton.Transition;
-import org.jetbrains.annotations.NotNull;
-
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * A Java utility class that help generating string values that match a given regular expression.It generate all values
@@ -46,26 +41,16 @@ import java.util.regex.Pattern;
  */
 public class Generex implements Iterable<String> {
 
-    private RegExp regExp;
-    private Automaton automaton;
-    private List<String> matchedStrings = new ArrayList<String>();
-    private Node rootNode;
-    private boolean isTransactionNodeBuilt;
+    private final CompiledGenerex compiled;
+    private Random random;
 
     /**
-     * Minimum length of any string this regex accepts. Populated on first access by
-     * {@link #calculateLengthBounds()}; {@code null} until then (doubles as the cache-populated flag).
+     * The seed of {@link #randomAt(long, int, int)}, valid once {@link #seeded} is set.
      */
-    private Integer cachedMinLength;
+    private long seed;
+    private boolean seeded;
 
-    /**
-     * The regex's own upper bound on generated string length. Populated on first access by
-     * {@link #calculateLengthBounds()}. For infinite regexes this is {@link Integer#MAX_VALUE}
-     * (no natural cap) so that {@code Math.min(userMax, cachedMaxLength)} collapses to the user's
-     * value. Callers that need a default when the user supplied no max should use
-     * {@link #DEFAULT_INFINITE_MAX_LENGTH} instead for infinite regexes.
-     */
-    private Integer cachedMaxLength;
+    private LengthDistribution lengthDistribution = LengthDistribution.UNIFORM;
 
     /**
      * Fallback maximum length used by {@link #random(int)} (and overloads that delegate to it)
@@ -73,6 +58,15 @@ public class Generex implements Iterable<String> {
      */
     public static final int DEFAULT_INFINITE_MAX_LENGTH = 50;
 
+    /**
+     * The most memory, in bytes, {@link #uniformRandom(int, int)} and {@link #uniformRandomPerLength(int, int)} may
+     * use to count matches: 64 MiB. They keep the number of matches of every length up to {@code maxLength}, for
+     * every state of the automaton, and those numbers grow with the length, so the table grows with the square of
+     * {@code maxLength}. That allows lengths of about 10,000 for {@code \w+}, and fewer for patterns with more
+     * states or wider character classes.
+     */
+    public static final long MAX_UNIFORM_COUNTS_BYTES = 64L << 20;
+
     public Generex(String regex) {
         this(regex, new Random());
     }
@@ -82,222 +76,139 @@ public class Generex implements Iterable<String> {
     }
 
     public Generex(String regex, Random random) {
-        regex = requote(regex);
-        regExp = createRegExp(regex);
-        automaton = regExp.toAutomaton();
-        this.random = random;
+        this(new CompiledGenerex(regex), random);
     }
 
     public Generex(Automaton automaton, Random random) {
-        this.automaton = automaton;
-        this.random = random;
+        this(new CompiledGenerex(automaton), random);
+    }
+
+    public Generex(CompiledGenerex compiled) {
+        this(compiled, new Random());
     }
 
     /**
-     * Creates a {@code RegExp} instance from the given regular expression.
+     * Creates a {@code Generex} that shares an already compiled pattern. This is cheap: the compiled pattern is
+     * neither copied nor recompiled, so a single {@link CompiledGenerex} can back one {@code Generex} per thread.
      *
-     * @param regex the regular expression used to build the {@code RegExp} instance
-     * @return a {@code RegExp} instance for the given regular expression
-     * @throws NullPointerException     if the given regular expression is {@code null}
-     * @throws IllegalArgumentException if an error occurred while parsing the given regular expression
-     * @throws StackOverflowError       if the regular expression has to many transitions
-     * @see #isValidPattern(String)
+     * @param compiled the compiled pattern to generate strings for
+     * @param random   the source of randomness owned by the new instance
      */
-    private static RegExp createRegExp(String regex) {
-        return new RegExp(convertToBricsRegex(regex));
+    public Generex(CompiledGenerex compiled, Random random) {
+        this.compiled = compiled;
+        this.random = random;
     }
 
     /**
-     * Converts a regex pattern to brics-compatible syntax for use with Generex.
-     *
-     * <p>Performs the following transformations:
-     * <ul>
-     *   <li>Removes an unescaped {@code ^} anchor at the start of the pattern, as brics treats
-     *       {@code ^} as a literal character rather than a start-of-input assertion.</li>
-     *   <li>Removes an unescaped {@code $} anchor at the end of the pattern, as brics treats
-     *       {@code $} as a literal character rather than an end-of-input assertion.</li>
-     *   <li>Converts non-capturing groups {@code (?:...)} to plain capturing groups {@code (...)},
-     *       since brics does not support non-capturing group syntax. This is a lossless
-     *       transformation because Generex only generates strings and never extracts capture
-     *       groups.</li>
-     *   <li>Expands the predefined shorthand classes {@code \d \D \s \S \w \W} into brics-native
-     *       character classes. Inside a {@code [...]} they expand to class-body form (e.g.
-     *       {@code \d -> 0-9}); outside a class they expand to the full bracketed form
-     *       ({@code \d -> [0-9]}). Negated shorthands inside a class expand to an explicit
-     *       complementary Unicode range, so {@code [a\D]} yields {@code [a} plus every
-     *       non-digit Unicode BMP codepoint.</li>
-     * </ul>
-     *
-     * <p>The conversion is performed in a single pass that tracks escape sequences and character
-     * class boundaries to avoid incorrect replacements.
+     * Creates a {@code Generex} for {@code regex}, reusing the compiled automaton from the
+     * {@link GenerexCache#getSharedCache() shared cache} when the same pattern was compiled before.
+     * <p>
+     * Prefer this over {@link #Generex(String)} when the same patterns are instantiated repeatedly: the
+     * regex-to-automaton conversion then only runs once per pattern. The returned instance has its own {@code Random}.
      *
-     * @param regex The Java regex pattern to convert.
-     * @return the brics-compatible regex.
+     * @param regex the regular expression to generate strings for
+     * @return a new {@code Generex} sharing the cached automaton of {@code regex}
+     * @throws NullPointerException     if {@code regex} is {@code null}
+     * @throws IllegalArgumentException if {@code regex} is not a valid pattern
      */
-    @NotNull
-    private static String convertToBricsRegex(@NotNull String regex) {
-        if (regex.isEmpty()) return regex;
-
-        StringBuilder result = new StringBuilder(regex.length());
-        boolean escaped = false;
-        boolean inCharClass = false;
-        int start = 0;
-
-        // Strip leading ^ anchor (not escaped since it's the first character)
-        if (regex.charAt(0) == '^') {
-            start = 1;
-        }
-
-        for (int i = start; i < regex.length(); i++) {
-            char c = regex.charAt(i);
-
-            if (escaped) {
-                result.append(c);
-                escaped = false;
-                continue;
-            }
-
-            if (c == '\\') {
-                if (i + 1 < regex.length()) {
-                    String expansion = expandShorthandClass(regex.charAt(i + 1), inCharClass);
-                    if (expansion != null) {
-                        result.append(expansion);
-                        i++;
-                        continue;
-                    }
-                }
-                result.append(c);
-                escaped = true;
-                continue;
-            }
-
-            if (inCharClass) {
-                if (c == ']') inCharClass = false;
-                result.append(c);
-                continue;
-            }
-
-            if (c == '[') {
-                inCharClass = true;
-                result.append(c);
-                // Per regex standard, ] right after [ or [^ is a literal ] inside the class, not
-                // the closing bracket. Only pre-consume ^ when it pairs with such a literal ];
-                // otherwise let the main loop handle ^ on its next iteration so it isn't appended
-                // twice.
-                int next = i + 1;
-                boolean hasCaret = next < regex.length() && regex.charAt(next) == '^';
-                int closeCandidate = hasCaret ? next + 1 : next;
-                if (closeCandidate < regex.length() && regex.charAt(closeCandidate) == ']') {
-                    if (hasCaret) result.append('^');
-                    result.append(']');
-                    i = closeCandidate;
-                }
-                continue;
-            }
-
-            // Convert (?:...) to (...) — only outside character classes and not escaped
-            if (c == '(' && i + 2 < regex.length() && regex.charAt(i + 1) == '?' && regex.charAt(i + 2) == ':') {
-                result.append('(');
-                i += 2;
-                continue;
-            }
-
-            result.append(c);
-        }
+    public static Generex compile(String regex) {
+        return compile(regex, new Random());
+    }
 
-        // Strip trailing $ anchor if the last character is an unescaped $
-        if (result.length() > 0 && result.charAt(result.length() - 1) == '$') {
-            // Count preceding backslashes — odd means $ is escaped, even means $ is an anchor
-            int backslashes = 0;
-            for (int i = result.length() - 2; i >= 0 && result.charAt(i) == '\\'; i--) {
-                backslashes++;
-            }
-            if (backslashes % 2 == 0) {
-                result.deleteCharAt(result.length() - 1);
-            }
-        }
+    /**
+     * See {@link #compile(String)}.
+     */
+    public static Generex compile(String regex, Random random) {
+        return new Generex(GenerexCache.getSharedCache().get(regex), random);
+    }
 
-        return result.toString();
+    /**
+     * @return the immutable compiled pattern backing this instance, which can be shared with other threads.
+     */
+    public CompiledGenerex getCompiled() {
+        return compiled;
     }
 
     /**
-     * Returns the brics-compatible expansion of a Java shorthand character class, or {@code null}
-     * if {@code shorthand} is not one of {@code d D s S w W}.
+     * Builds the automaton of this pattern and the data derived from it now, instead of on first use.
      *
-     * <p>The expansion form depends on whether the caller is currently inside a {@code [...]}:
-     * inside a class it returns class-body form ({@code 0-9}) so it can be concatenated with
-     * other class members; outside a class it returns the bracketed form ({@code [0-9]}).
-     * Negative shorthands inside a class expand to explicit complementary Unicode BMP ranges,
-     * since brics character classes cannot mix negation with other set members.
+     * @return this instance
+     * @see CompiledGenerex#prepare()
      */
-    private static String expandShorthandClass(char shorthand, boolean inCharClass) {
-        switch (shorthand) {
-            case 'd': return inCharClass ? "0-9" : "[0-9]";
-            case 'D': return inCharClass ? " -/:-￿" : "[^0-9]";
-            case 's': return inCharClass ? " \t\n\f\r" : "[ \t\n\f\r]";
-            case 'S': return inCharClass ? " --!-￿" : "[^ \t\n\f\r]";
-            case 'w': return inCharClass ? "a-zA-Z_0-9" : "[a-zA-Z_0-9]";
-            // Range \[-\^ covers the contiguous code points 0x5b-0x5e ('[', '\', ']', '^'); each
-            // endpoint is escaped because both ] and \ would otherwise be parsed by brics as
-            // structural characters inside the class.
-            case 'W': return inCharClass ? " -/:-@\\[-\\^`{-￿" : "[^a-zA-Z_0-9]";
-            default: return null;
-        }
+    public Generex prepare() {
+        compiled.prepare();
+        return this;
     }
 
     /**
      * initialize the random instance used with a seed value  to generate a
      * pseudo random suite of strings based on the passed seed and matches the used regular expression
      * instance
+     * <p>
+     * The seed also identifies the strings {@link #randomAt(long, int, int)} and {@link #randomStream(long, long, int,
+     * int)} generate.
      *
      * @param seed
      */
     public void setSeed(long seed) {
         random = new Random(seed);
+        this.seed = seed;
+        seeded = true;
+    }
+
+    /**
+     * Sets how {@link #random(int, int)} and the methods built on it pick the length of each string among the lengths
+     * in range that the regex can match. Defaults to {@link LengthDistribution#UNIFORM}.
+     *
+     * @throws NullPointerException if {@code lengthDistribution} is {@code null}
+     */
+    public void setLengthDistribution(LengthDistribution lengthDistribution) {
+        if (lengthDistribution == null) throw new NullPointerException("lengthDistribution");
+        this.lengthDistribution = lengthDistribution;
     }
 
     /**
      * @param indexOrder ( 1&lt;= indexOrder &lt;=n)
      * @return The matched string by the given pattern in the given it's order in the sorted list of matched String.<br>
-     * <code>indexOrder</code> between 1 and <code>n</code> where <code>n</code> is the number of matched String.<br> If
-     * indexOrder &gt;= n , return an empty string. if there is an infinite number of String that matches the given Regex,
-     * the method throws {@code StackOverflowError}
+     * <code>indexOrder</code> between 1 and <code>n</code> where <code>n</code> is the number of matched String. An
+     * <code>indexOrder</code> of 0 is treated as 1. Use {@link #getMatchedString(BigInteger)} for positions beyond
+     * {@link Integer#MAX_VALUE}.
+     * @throws IndexOutOfBoundsException if {@code indexOrder} is negative or greater than {@code n}
+     * @throws IllegalStateException     if the pattern matches an infinite number of strings
      */
     public String getMatchedString(int indexOrder) {
-        buildRootNode();
         if (indexOrder == 0)
             indexOrder = 1;
-        String result = buildStringFromNode(rootNode, indexOrder);
-        result = result.substring(1, result.length() - 1);
-        return result;
+        return getMatchedString(BigInteger.valueOf(indexOrder));
     }
 
-    private String buildStringFromNode(Node node, int indexOrder) {
-        String result = "";
-        long passedStringNbr = 0;
-        long step = node.getNbrMatchedString() / node.getNbrChar();
-        for (char usedChar = node.getMinChar(); usedChar <= node.getMaxChar(); ++usedChar) {
-            passedStringNbr += step;
-            if (passedStringNbr >= indexOrder) {
-                passedStringNbr -= step;
-                indexOrder -= passedStringNbr;
-                result = result.concat("" + usedChar);
-                break;
-            }
-        }
-        long passedStringNbrInChildNode = 0;
-        if (result.length() == 0)
-            passedStringNbrInChildNode = passedStringNbr;
-        for (Node childN : node.getNextNodes()) {
-            passedStringNbrInChildNode += childN.getNbrMatchedString();
-            if (passedStringNbrInChildNode >= indexOrder) {
-                passedStringNbrInChildNode -= childN.getNbrMatchedString();
-                indexOrder -= passedStringNbrInChildNode;
-                result = result.concat(buildStringFromNode(childN, indexOrder));
-                break;
-            }
-        }
-        return result;
+    /**
+     * Returns the string at position {@code indexOrder} in the lexicographically sorted list of strings matched by the
+     * pattern. Unlike {@link #getMatchedString(int)}, this handles languages of any size: positions are computed with
+     * arbitrary precision, and the string is found in a single pass over its characters without enumerating the
+     * strings before it.
+     *
+     * @param indexOrder position of the wanted string, between {@code 1} and {@link #matchedStringsCount()}
+     * @return the matched string at {@code indexOrder}. {@link #rankOf(String)} is its inverse.
+     * @throws IndexOutOfBoundsException if {@code indexOrder} is not between {@code 1} and
+     *                                   {@link #matchedStringsCount()}
+     * @throws IllegalStateException     if the pattern matches an infinite number of strings
+     */
+    public String getMatchedString(BigInteger indexOrder) {
+        return compiled.getMatchedString(indexOrder);
+    }
+
+    /**
+     * Returns the position of {@code match} in the lexicographically sorted list of strings matched by the pattern,
+     * so that {@code getMatchedString(rankOf(match))} is {@code match}.
+     *
+     * @param match a string matched by the pattern
+     * @return the position of {@code match}, between {@code 1} and {@link #matchedStringsCount()}
+     * @throws IllegalArgumentException if the pattern doesn't match {@code match}
+     * @throws IllegalStateException    if the pattern matches an infinite number of strings
+     */
+    public BigInteger rankOf(String match) {
+        return compiled.rankOf(match);
     }
 
     /**
@@ -310,113 +221,73 @@ public class Generex implements Iterable<String> {
      * otherwise
      */
     public boolean isInfinite() {
-        return !automaton.isFinite();
+        return compiled.isInfinite();
     }
 
     /**
      * @return first string in lexicographical order that is matched by the given pattern.
+     * @throws IllegalStateException if the pattern matches an infinite number of strings
      */
     public String getFirstMatch() {
-        buildRootNode();
-        Node node = rootNode;
-        String result = "";
-        while (node.getNextNodes().size() > 0) {
-            result = result.concat("" + node.getMinChar());
-            node = node.getNextNodes().get(0);
-        }
-        result = result.substring(1);
-        return result;
+        return getMatchedString(BigInteger.ONE);
     }
 
     /**
      * @return the number of strings that are matched by the given pattern.
-     * @throws StackOverflowError if the given pattern generates a large, possibly infinite, number of strings.
+     * @throws ArithmeticException   if the pattern matches more than {@link Long#MAX_VALUE} strings. Use
+     *                               {@link #matchedStringsCount()} for those.
+     * @throws IllegalStateException if the pattern matches an infinite number of strings
      */
     public long matchedStringsSize() {
-        buildRootNode();
-        return rootNode.getNbrMatchedString();
+        return compiled.matchedStringsCount().longValueExact();
     }
 
     /**
-     * Prepare the rootNode and it's child nodes so that we can get matchedString by index
+     * Same as {@link #matchedStringsSize()}, for languages of any size.
+     *
+     * @return the number of strings that are matched by the given pattern.
+     * @throws IllegalStateException if the pattern matches an infinite number of strings
      */
-    private void buildRootNode() {
-        if (isTransactionNodeBuilt)
-            return;
-        isTransactionNodeBuilt = true;
-        rootNode = new Node();
-        rootNode.setNbrChar(1);
-        List<Node> nextNodes = prepareTransactionNodes(automaton.getInitialState());
-        rootNode.setNextNodes(nextNodes);
-        rootNode.updateNbrMatchedString();
+    public BigInteger matchedStringsCount() {
+        return compiled.matchedStringsCount();
     }
 
-    private int matchedStringCounter = 0;
-
-    private void generate(String strMatch, State state, int limit) {
-        if (matchedStringCounter == limit)
-            return;
-        ++matchedStringCounter;
-        List<Transition> transitions = state.getSortedTransitions(true);
-        if (transitions.size() == 0) {
-            matchedStrings.add(strMatch);
-            return;
-        }
-        if (state.isAccept()) {
-            matchedStrings.add(strMatch);
-        }
-        for (Transition transition : transitions) {
-            for (char c = transition.getMin(); c <= transition.getMax(); ++c) {
-                generate(strMatch + c, transition.getDest(), limit);
-            }
-        }
+    /**
+     * Counts the strings of exactly {@code length} characters matched by the pattern, which works for infinite
+     * patterns too.
+     * <p>
+     * The count is computed by dynamic programming over the automaton, one length at a time, keeping only the counts
+     * of the current length: memory stays proportional to the size of the automaton however long {@code length} is.
+     * The counts of the longest length asked for are kept, so that asking for increasing lengths only computes the
+     * lengths in between.
+     *
+     * @param length the length of the strings to count
+     * @return the number of matched strings of that length
+     * @throws IllegalArgumentException if {@code length} is negative
+     */
+    public BigInteger countOfLength(int length) {
+        return compiled.countOfLength(length);
     }
 
     /**
-     * Build list of nodes that present possible transactions from the <code>state</code>.
+     * Counts the strings of at most {@code length} characters matched by the pattern, in the same way as
+     * {@link #countOfLength(int)}.
      *
-     * @param state
-     * @return
+     * @param length the maximum length of the strings to count
+     * @return the number of matched strings of at most that length
+     * @throws IllegalArgumentException if {@code length} is negative
      */
-    private List<Node> prepareTransactionNodes(State state) {
-
-        List<Node> transactionNodes = new ArrayList<Node>();
-        if (preparedTransactionNode == Integer.MAX_VALUE / 2)
-            return transactionNodes;
-        ++preparedTransactionNode;
-
-        if (state.isAccept()) {
-            Node acceptedNode = new Node();
-            acceptedNode.setNbrChar(1);
-            transactionNodes.add(acceptedNode);
-        }
-        List<Transition> transitions = state.getSortedTransitions(true);
-        for (Transition transition : transitions) {
-            Node trsNode = new Node();
-            int nbrChar = transition.getMax() - transition.getMin() + 1;
-            trsNode.setNbrChar(nbrChar);
-            trsNode.setMaxChar(transition.getMax());
-            trsNode.setMinChar(transition.getMin());
-            List<Node> nextNodes = prepareTransactionNodes(transition.getDest());
-            trsNode.setNextNodes(nextNodes);
-            transactionNodes.add(trsNode);
-        }
-        return transactionNodes;
+    public BigInteger countUpToLength(int length) {
+        return compiled.countUpToLength(length);
     }
 
-    private int preparedTransactionNode;
-    private Random random;
-
     /**
      * Generate all Strings that matches the given Regex.
      *
      * @return
      */
     public List<String> getAllMatchedStrings() {
-        matchedStrings = new ArrayList<String>();
-        generate("", automaton.getInitialState(), Integer.MAX_VALUE);
-        return matchedStrings;
-
+        return compiled.getAllMatchedStrings();
     }
 
     /**
@@ -427,10 +298,7 @@ public class Generex implements Iterable<String> {
      * @return
      */
     public List<String> getMatchedStrings(int limit) {
-        matchedStrings = new ArrayList<String>();
-        generate("", automaton.getInitialState(), limit);
-        return matchedStrings;
-
+        return compiled.getMatchedStrings(limit);
     }
 
     /**
@@ -444,11 +312,7 @@ public class Generex implements Iterable<String> {
      * See {@link #random(int, int)}
      */
     public String random(int minLength) {
-        calculateLengthBounds();
-        // cachedMaxLength is Integer.MAX_VALUE for infinite regexes; fall back to the friendlier
-        // default since the caller didn't specify their own cap.
-        int defaultMaxLength = isInfinite() ? DEFAULT_INFINITE_MAX_LENGTH : cachedMaxLength;
-        return random(minLength, defaultMaxLength);
+        return compiled.random(random, minLength, compiled.defaultMaxLength(), lengthDistribution);
     }
 
     /**
@@ -460,9 +324,11 @@ public class Generex implements Iterable<String> {
      * regex can't generate a matching string greater than or equal to {@code minLength}, then a string with the maximum
      * length possible is returned.
      * <p></p>
-     * When a string is generated that may be an infinite length, it is attempted to be randomly generated in a way
-     * where repeated generations will produce a uniform distribution of lengths between `minLength` and `maxLength`. In
-     * practice, the accuracy of this depends on the complexity of the regex.
+     * The length is drawn from the lengths in range that the regex can match, uniformly unless another
+     * {@link #setLengthDistribution(LengthDistribution) length distribution} is set, and the string is then built
+     * one character at a time, only following branches that can still end on that length, so the result always
+     * matches when such a length exists. Only for very long chains of optional characters, such as
+     * {@code [a-z]{1,50000}}, does generation fall back to a backtracking search that gets as close as it can.
      *
      * @param minLength Minimum wanted length of the generated string. The generated string may be smaller if the given
      *                  regex can't produce a string of the wanted length. Assumed to be less than or equal to {@code maxLength}.
@@ -473,271 +339,392 @@ public class Generex implements Iterable<String> {
      * given range. Otherwise, see the {@code minLength} and {@code maxLength} docs.
      */
     public String random(int minLength, int maxLength) {
-        calculateLengthBounds();
-
-        // Calculate actual valid range by comparing the regex and the user defined bounds.
-        // For infinite regexes cachedMaxLength is Integer.MAX_VALUE, so the min() leaves maxLength alone.
-        int actualMinLength = Math.max(minLength, cachedMinLength);
-        int actualMaxLength = Math.min(maxLength, cachedMaxLength);
-
-        // Pre-select target length uniformly from valid range
-        int targetLength;
-        if (actualMinLength > actualMaxLength) {
-            targetLength = actualMaxLength;
-        } else {
-            targetLength = actualMinLength + random.nextInt(actualMaxLength - actualMinLength + 1);
-        }
-
-        String result = prepareRandom("", automaton.getInitialState(), minLength, maxLength, targetLength, isInfinite() ? new AttemptBudget() : null);
-        // Substring in case a length of 'maxLength + 1' is returned, which is possible if a smaller string can't be produced.
-        return result.substring(0, Math.min(maxLength, result.length()));
+        return compiled.random(random, minLength, maxLength, lengthDistribution);
     }
 
     /**
-     * Mutable counter shared by reference across recursive calls to {@link #prepareRandom},
-     * used to cap the total number of iterations and prevent exponential backtracking
-     * for infinite regexes.
+     * Generates {@code count} strings as if by calling {@link #random(int, int)} {@code count} times.
+     * <p>
+     * The per-pattern preparation and the scratch space of the generator are set up once for the whole batch rather
+     * than once per string, which matters when generating large numbers of short strings.
+     *
+     * @param count     the number of strings to generate
+     * @param minLength see {@link #random(int, int)}
+     * @param maxLength see {@link #random(int, int)}
+     * @return a list of {@code count} generated strings
+     * @throws IllegalArgumentException if {@code count} is negative
      */
-    private static class AttemptBudget {
-        private static final int MAX_ATTEMPTS = 1000;
-        int count = 0;
-
-        boolean isExhausted() {
-            return count >= MAX_ATTEMPTS;
-        }
-
-        void increment() {
-            count++;
-        }
+    public List<String> randomBatch(int count, int minLength, int maxLength) {
+        return compiled.randomBatch(random, count, minLength, maxLength, lengthDistribution);
     }
 
     /**
-     * Recursive function used to generate a regex as defined by {@link Generex#random(int, int)}.
+     * Same as {@link #randomBatch(int, int, int)}, storing the strings into every element of {@code out} instead of
+     * a new list.
      *
-     * @param currentMatch A string built from the accumulation of previous transitions.
-     * @param state        Current state of the regex.
-     * @param minLength    Minimum wanted length of the produced string.
-     * @param maxLength    Maximum wanted length of produced string.
-     * @param targetLength The desired length of the produced string, pre-selected uniformly from the valid range.
-     * @param budget       Shared attempt counter to limit recursion for infinite regexes, or {@code null} for finite regexes.
-     * @return A string built from the accumulation of previous transitions.
+     * @param out       the array to fill
+     * @param minLength see {@link #random(int, int)}
+     * @param maxLength see {@link #random(int, int)}
      */
-    private String prepareRandom(String currentMatch, State state, int minLength, int maxLength, int targetLength, AttemptBudget budget) {
+    public void fill(String[] out, int minLength, int maxLength) {
+        compiled.fill(random, out, minLength, maxLength, lengthDistribution);
+    }
 
-        // Return a string of length 'maxLength + 1' to indicate a dead branch.
-        if (currentMatch.length() > maxLength || state.getTransitions().isEmpty()) return currentMatch;
+    /**
+     * Returns an infinite, sequential stream of strings generated as if by {@link #random(int, int)}, sharing one
+     * preparation between all of them like {@link #randomBatch(int, int, int)}. Limit it with
+     * {@link Stream#limit(long)}.
+     * <p>
+     * The stream draws from this instance's {@code Random} and must not be made parallel. To generate in parallel, use
+     * {@link #randomStream(long, long, int, int)} instead.
+     *
+     * @param minLength see {@link #random(int, int)}
+     * @param maxLength see {@link #random(int, int)}
+     * @return an infinite stream of generated strings
+     */
+    public Stream<String> randomStream(int minLength, int maxLength) {
+        return compiled.randomStream(random, minLength, maxLength, lengthDistribution);
+    }
 
-        // For infinite regexes, the automaton has cycles that can cause exponential recursion.
-        // This budget limit caps total recursive iterations to prevent hanging.
-        if (budget != null && budget.isExhausted()) return currentMatch;
+    /**
+     * See {@link #randomAt(long, int, int)}
+     */
+    public String randomAt(long index) {
+        return randomAt(index, 1, compiled.defaultMaxLength());
+    }
 
-        String returnValue = null;
+    /**
+     * Generates the string at position {@code index} of the stream of strings identified by the seed, with the
+     * semantics of {@link #random(int, int)}.
+     * <p>
+     * The string only depends on the pattern, the seed, the index, the bounds and the length distribution: not on
+     * which strings were generated before, on which thread or in which process. Generating indexes {@code 0} to
+     * {@code n - 1} on any number of machines therefore gives the same strings as generating them in order on one.
+     * <p>
+     * The seed is the one last given to {@link #setSeed(long)}. Without one, it is drawn once from this instance's
+     * {@code Random} the first time it is needed.
+     *
+     * @param index     the position of the string in the stream
+     * @param minLength see {@link #random(int, int)}
+     * @param maxLength see {@link #random(int, int)}
+     * @return the string at {@code index}
+     * @throws IllegalArgumentException if {@code index} is negative
+     */
+    public String randomAt(long index, int minLength, int maxLength) {
+        return compiled.randomAt(seed(), index, minLength, maxLength, lengthDistribution);
+    }
 
-        if (state.isAccept()) {
-            // Set the current match to the value to return, just in case this would happen to be the cloest match to
-            // the target length.
-            returnValue = currentMatch;
+    /**
+     * Returns a sequential stream of the strings {@link #randomAt(long, int, int)} generates for the indexes in
+     * {@code [fromIndex, toIndex)}, in index order.
+     * <p>
+     * Call {@link Stream#parallel()} on the result to generate on every core: each string is still generated from its
+     * own index, so the output is the same for any number of threads, and the threads share no random state.
+     *
+     * @param fromIndex the index of the first string, inclusive
+     * @param toIndex   the index of the last string, exclusive
+     * @param minLength see {@link #random(int, int)}
+     * @param maxLength see {@link #random(int, int)}
+     * @return a stream of {@code toIndex - fromIndex} generated strings
+     * @throws IllegalArgumentException if {@code fromIndex} is negative or after {@code toIndex}
+     */
+    public Stream<String> randomStream(long fromIndex, long toIndex, int minLength, int maxLength) {
+        return compiled.randomStream(seed(), fromIndex, toIndex, minLength, maxLength, lengthDistribution);
+    }
 
-            if (currentMatch.length() == targetLength) return currentMatch;
+    private long seed() {
+        if (!seeded) {
+            seed = random.nextLong();
+            seeded = true;
         }
+        return seed;
+    }
 
-        // Make a copy so the original set is never modified.
-        Set<Transition> possibleTransitions = new HashSet<>(state.getTransitions());
-        int totalWeightedTransitions = calculateTotalWeightedTransitions(possibleTransitions);
-
-        // Will never start as empty due to the initial if statement in the function.
-        while (!possibleTransitions.isEmpty()) {
-            if (budget != null) {
-                budget.increment();
-                if (budget.isExhausted()) break;
-            }
-
-            Transition randomTransition = pickRandomWeightedTransition(possibleTransitions, totalWeightedTransitions);
-            int subTransitions = getWeightedTransitions(randomTransition);
-            totalWeightedTransitions -= subTransitions;
-            possibleTransitions.remove(randomTransition);
+    /**
+     * Returns an iterator over every string matched by the pattern, each exactly once, in a pseudo-random order
+     * drawn from this instance's {@code Random}.
+     * <p>
+     * The order comes from a keyed permutation of the positions of the strings, evaluated one position at a time, and
+     * each position is turned into its string with {@link #getMatchedString(BigInteger)}. Memory use is therefore
+     * constant and every string costs time proportional to its length, however large the language is and however far
+     * the iteration goes.
+     *
+     * @return an iterator over the matched strings in shuffled order
+     * @throws IllegalStateException if the pattern matches an infinite number of strings
+     */
+    public Iterator<String> shuffledIterator() {
+        return compiled.shuffledIterator(random);
+    }
 
-            char randomChar = (char) (random.nextInt(subTransitions) + randomTransition.getMin());
-            String result = prepareRandom(currentMatch + randomChar, randomTransition.getDest(), minLength, maxLength, targetLength, budget);
+    /**
+     * Generates {@code count} distinct strings matched by the pattern, drawn without replacement in a pseudo-random
+     * order. See {@link #shuffledIterator()}: unlike deduplicating the results of {@link #random()}, this needs no
+     * memory beyond the result and doesn't slow down as {@code count} approaches {@link #matchedStringsCount()}.
+     *
+     * @param count the number of strings to generate
+     * @return a list of {@code count} distinct matched strings
+     * @throws IllegalArgumentException if {@code count} is negative or greater than the number of matched strings
+     * @throws IllegalStateException    if the pattern matches an infinite number of strings
+     */
+    public List<String> distinctRandom(int count) {
+        return compiled.distinctRandom(random, count);
+    }
 
-            // Greedily return the first valid result found that is of the wanted length..
-            if (result.length() == targetLength) return result;
+    /**
+     * Generates a string drawn uniformly at random from every string the regex matches with a length in
+     * {@code [minLength, maxLength]}: each matching string is equally likely, so lengths with more matches come up more
+     * often.
+     * <p>
+     * Unlike {@link #random(int, int)}, this never returns a trimmed or partial match. The number of matches of every
+     * length up to {@code maxLength} is computed once per pattern and shared by every later call, after which a draw
+     * takes a single pass over the generated string.
+     *
+     * @param minLength Minimum length of the generated string.
+     * @param maxLength Maximum length of the generated string. Required to be finite even for infinite regexes, since
+     *                  the cost of the first call grows with it.
+     * @return a matching string with a length in {@code [minLength, maxLength]}.
+     * @throws IllegalArgumentException if {@code minLength} is negative or greater than {@code maxLength}, if the
+     *                                  regex matches no string with a length in that range, or if counting the
+     *                                  matches up to {@code maxLength} would take more than
+     *                                  {@link #MAX_UNIFORM_COUNTS_BYTES}.
+     */
+    public String uniformRandom(int minLength, int maxLength) {
+        return compiled.uniformRandom(random, minLength, maxLength);
+    }
 
-            returnValue = getBestMatch(result, returnValue, minLength, maxLength, targetLength);
-        }
+    /**
+     * Same as {@link #uniformRandom(int, int)}, except that every length in {@code [minLength, maxLength]} that has at
+     * least one match is equally likely. Strings of the selected length are drawn uniformly.
+     *
+     * @throws IllegalArgumentException if {@code minLength} is negative or greater than {@code maxLength}, if the
+     *                                  regex matches no string with a length in that range, or if counting the
+     *                                  matches up to {@code maxLength} would take more than
+     *                                  {@link #MAX_UNIFORM_COUNTS_BYTES}.
+     */
+    public String uniformRandomPerLength(int minLength, int maxLength) {
+        return compiled.uniformRandomPerLength(random, minLength, maxLength);
+    }
 
-        // For infinite regexes, if budget was exhausted before reaching an accept state, return currentMatch
-        // as a fallback instead of null.
-        return returnValue != null ? returnValue : currentMatch;
+    public Iterator<String> iterator() {
+        return compiled.iterator();
     }
 
     /**
-     * Determines if the new generation is better than the current generation.
-     * <p></p>
-     * The new generation is better if it is within the bounds and is closer to the target length than the current
-     * generation. Otherwise, the current generation is better.
+     * Returns an iterator over the strings matched by the pattern that starts at position {@code indexOrder} in
+     * lexicographical order, as if the first {@code indexOrder - 1} strings had already been returned.
+     * <p>
+     * The iterator is positioned directly, in time proportional to the length of the string at {@code indexOrder}, so
+     * an enumeration can be resumed from a checkpoint, or split by index among independent workers, without replaying
+     * the strings before it.
      *
-     * @param newMatch the new generation to compare against the current generation.
-     * @param currentMatch the current generation.
-     * @param min minimum length of the generated string.
-     * @param max maximum length of the generated string.
-     * @param target the target length of the generated string.
-     * @return the best match between the new generation and the current generation.
+     * @param indexOrder position of the first string to return, between {@code 1} and
+     *                   {@link #matchedStringsCount()}{@code  + 1}. The latter gives an iterator with nothing left.
+     * @return an iterator starting with {@link #getMatchedString(BigInteger) getMatchedString(indexOrder)}
+     * @throws IndexOutOfBoundsException if {@code indexOrder} is out of range
+     * @throws IllegalStateException     if the pattern matches an infinite number of strings. Use
+     *                                   {@link #iteratorFrom(String)} for those.
      */
-    private String getBestMatch(String newMatch, String currentMatch, int min, int max, int target) {
-
-        if (currentMatch == null) return newMatch;
-        if (newMatch.length() > max && currentMatch.length() > min) return currentMatch;
+    public Iterator<String> iterator(BigInteger indexOrder) {
+        return compiled.iterator(indexOrder);
+    }
 
-        boolean newInRange = newMatch.length() >= min;
-        boolean currentInRange = currentMatch.length() >= min && currentMatch.length() <= max;
+    /**
+     * See {@link #iterator(BigInteger)}.
+     */
+    public Iterator<String> iterator(long indexOrder) {
+        return iterator(BigInteger.valueOf(indexOrder));
+    }
 
-        if (newInRange && !currentInRange) return newMatch;
-        if (currentInRange && !newInRange) return currentMatch;
+    /**
+     * Returns an iterator over the strings matched by the pattern, in the same order as {@link #iterator()}, that
+     * starts at the first string that is not lower than {@code lowerBound} in lexicographical order. The bound itself
+     * doesn't need to be matched by the pattern, so the last string a previous run handled, or any shard boundary, can
+     * be used directly.
+     * <p>
+     * The iterator is positioned in time proportional to the length of {@code lowerBound}. Unlike
+     * {@link #iterator(BigInteger)}, this also works for infinite patterns.
+     *
+     * @param lowerBound the lowest string to return
+     * @return an iterator over the matched strings from {@code lowerBound} on
+     */
+    public Iterator<String> iteratorFrom(String lowerBound) {
+        return compiled.iteratorFrom(lowerBound);
+    }
 
-        int currentTargetDistance = Math.abs(currentMatch.length() - target);
-        int newTargetDistance = Math.abs(newMatch.length() - target);
+    /**
+     * Returns an iterator over the strings matched by the pattern that start with {@code prefix}, in the same order as
+     * {@link #iterator()}.
+     * <p>
+     * Those strings come one after the other in lexicographical order, so the iterator is positioned on the first of
+     * them like {@link #iteratorFrom(String)} and stops after the last, without building a new automaton or skipping
+     * any string that doesn't match.
+     *
+     * @param prefix the start every returned string shares
+     * @return an iterator over the matched strings that start with {@code prefix}
+     */
+    public Iterator<String> iteratorWithPrefix(String prefix) {
+        return compiled.iteratorWithPrefix(prefix);
+    }
 
-        if (newTargetDistance < currentTargetDistance) return newMatch;
-        return currentMatch;
+    /**
+     * Restricts the pattern to the strings that start with {@code prefix}.
+     * <p>
+     * The restricted automaton is built once, as the product of this pattern's automaton and one that accepts every
+     * string starting with {@code prefix}. Everything the returned {@code Generex} does, such as {@link #random(int,
+     * int)}, counting or iterating, then works on the matching strings directly instead of generating and filtering,
+     * however rare they are. Keep the returned instance to reuse it.
+     * <p>
+     * The returned {@code Generex} shares this instance's {@code Random} and {@link #setSeed(long) seed}.
+     *
+     * @param prefix the start every string of the returned pattern has
+     * @return a {@code Generex} for the strings matched by this pattern that start with {@code prefix}. It matches no
+     * string at all if there are none.
+     */
+    public Generex withPrefix(String prefix) {
+        return derive(compiled.withPrefix(prefix));
     }
 
     /**
-     * Calculate the possible bounds of the generated string by traversing the regex.
-     * <br>
-     * For finite automatons, both {@code cachedMinLength} and {@code cachedMaxLength} are populated
-     * from the DFS. For infinite automatons, {@code cachedMinLength} is computed from a BFS to the
-     * nearest accepting state, and {@code cachedMaxLength} is set to {@link Integer#MAX_VALUE}
-     * (meaning "no natural upper bound").
+     * Restricts the pattern to the strings that end with {@code suffix}, like {@link #withPrefix(String)}.
      */
-    private void calculateLengthBounds() {
-        if (cachedMinLength != null) return;
+    public Generex withSuffix(String suffix) {
+        return derive(compiled.withSuffix(suffix));
+    }
 
-        if (automaton.isFinite()) {
-            int[] bounds = dfsLengthBounds(automaton.getInitialState(), new HashMap<>());
-            cachedMinLength = bounds[0];
-            cachedMaxLength = bounds[1];
-        } else {
-            cachedMinLength = bfsMinLength(automaton.getInitialState());
-            cachedMaxLength = Integer.MAX_VALUE;
-        }
+    /**
+     * Restricts the pattern to the strings that contain {@code infix}, like {@link #withPrefix(String)}.
+     */
+    public Generex containing(String infix) {
+        return derive(compiled.containing(infix));
     }
 
     /**
-     * Uses a memoized depth first search to calculate the minimum and maximum length of the regex
-     * by traversing through the automaton.
-     * <br>
-     * Assumes the automaton is finite (acyclic). Under that assumption each state's bounds depend
-     * only on the state itself, so results can be cached in {@code memo}. Without memoization,
-     * automatons shaped like a chain of states with multiple parallel transitions (e.g.
-     * {@code [a-zA-Z0-9]{1,100}}, which determinizes to ~3 range-transitions per state) would be
-     * explored along every path — exponential in the chain length. Memoization makes this linear
-     * in the number of states.
+     * Restricts the pattern to the strings {@code other} matches too, like {@link #withPrefix(String)}: the product
+     * of both automatons is built once.
      *
-     * @param state the current state of the automaton.
-     * @param memo  cached bounds for states whose subtree has already been computed.
-     * @return an int array containing the minimum and maximum length of the regex.
+     * @param other the pattern every string of the returned pattern must also match
+     * @return a {@code Generex} for the strings matched by both patterns, sharing this instance's {@code Random} and
+     * {@link #setSeed(long) seed}
      */
-    private int[] dfsLengthBounds(State state, Map<State, int[]> memo) {
-        int[] cached = memo.get(state);
-        if (cached != null) return cached;
-
-        int minLength = state.isAccept() ? 0 : Integer.MAX_VALUE;
-        int maxLength = 0;
+    public Generex intersect(Generex other) {
+        return derive(compiled.intersect(other.compiled));
+    }
 
-        for (Transition transition : state.getTransitions()) {
-            int[] bounds = dfsLengthBounds(transition.getDest(), memo);
-            if (bounds[0] != Integer.MAX_VALUE) {
-                minLength = Math.min(minLength, bounds[0] + 1);
-            }
-            maxLength = Math.max(maxLength, bounds[1] + 1);
-        }
+    /**
+     * Restricts the pattern to the strings made of printable characters only, like {@link #withPrefix(String)}:
+     * letters, marks, numbers, punctuation, symbols and spaces, including those outside the BMP. Control and format
+     * characters, line and paragraph separators, lone surrogates, private use and unassigned code points are left out,
+     * which makes negated classes like {@code [^a-z]} and properties like {@code \P{L}} safe for generating readable
+     * text.
+     *
+     * @return a {@code Generex} for the printable strings matched by this pattern, sharing this instance's
+     * {@code Random} and {@link #setSeed(long) seed}
+     */
+    public Generex printableOnly() {
+        return derive(compiled.printableOnly());
+    }
 
-        int[] result = {minLength, maxLength};
-        memo.put(state, result);
+    private Generex derive(CompiledGenerex derived) {
+        Generex result = new Generex(derived, random);
+        result.seed = seed;
+        result.seeded = seeded;
         return result;
     }
 
     /**
-     * Computes the minimum length of any string the automaton accepts, via a breadth-first search
-     * from {@code initial} to the nearest accepting state.
-     * <br>
-     * Used for infinite (cyclic) automatons where the acyclic-memoized DFS assumption does not
-     * hold. Returns {@code 0} if {@code initial} itself is accepting. Returns
-     * {@link Integer#MAX_VALUE} if no accepting state is reachable (not expected for a valid regex).
-     *
-     * @param initial the state to search from.
-     * @return the shortest number of transitions needed to reach an accepting state.
-     */
-    private int bfsMinLength(State initial) {
-        Set<State> visited = new HashSet<>();
-        ArrayDeque<State> currentLevel = new ArrayDeque<>();
-        ArrayDeque<State> nextLevel = new ArrayDeque<>();
-
-        currentLevel.add(initial);
-        visited.add(initial);
-
-        int depth = 0;
-        while (!currentLevel.isEmpty()) {
-            for (State state : currentLevel) {
-                if (state.isAccept()) return depth;
-                for (Transition transition : state.getTransitions()) {
-                    State dest = transition.getDest();
-                    if (visited.add(dest)) nextLevel.add(dest);
-                }
-            }
-            ArrayDeque<State> tmp = currentLevel;
-            currentLevel = nextLevel;
-            nextLevel = tmp;
-            nextLevel.clear();
-            depth++;
-        }
-        return Integer.MAX_VALUE;
+     * Passes every string matched by the pattern to {@code action}, in lexicographical order, without allocating
+     * anything per string.
+     * <p>
+     * Each string is presented as a {@link CharBuffer} whose position is {@code 0} and whose limit is the length of the
+     * string. The buffer and its backing array are reused for the next string as soon as {@code action} returns, so
+     * {@code action} must copy anything it keeps, for instance with {@code toString()}. Consumers that hash the
+     * characters, or encode them straight into a channel, can enumerate any number of strings without creating garbage.
+     * <p>
+     * For infinite patterns this only returns if {@code action} throws; use {@link #forEachMatch(long, Consumer)}.
+     *
+     * @param action the consumer of each matched string
+     */
+    public void forEachMatch(Consumer<? super CharBuffer> action) {
+        compiled.forEachMatch(action);
     }
 
     /**
-     * Returns a {@link Transition} from the given collection randomly based on the total number of characters that
-     * {@link Transition} can produce.
+     * Same as {@link #forEachMatch(Consumer)}, stopping after the first {@code limit} strings.
      *
-     * @param transitions              Collection of transitions to choose from.
-     * @param totalWeightedTransitions The sum of the total number of characters each transition could produce.
-     * @throws IllegalArgumentException When {@code totalWeightedTransitions} is not equal to the sum of all weighted
-     *                                  transitions in {@code transitions}.
+     * @param limit  the maximum number of strings to visit
+     * @param action the consumer of each matched string
      */
-    private Transition pickRandomWeightedTransition(Collection<Transition> transitions, int totalWeightedTransitions) {
-
-        int value = random.nextInt(totalWeightedTransitions) + 1;
-        for (Transition transition : transitions) {
-
-            value -= getWeightedTransitions(transition);
-            if (value <= 0) return transition;
-        }
-
-        throw new IllegalArgumentException(
-                "totalWeightedTransitions was greater than the total number of weighted transitions in the supplied collection."
-        );
+    public void forEachMatch(long limit, Consumer<? super CharBuffer> action) {
+        compiled.forEachMatch(limit, action);
     }
 
     /**
-     * Calculates the sum of all the {@link #getWeightedTransitions(Transition) weighted transitions} from the given collection.
+     * Returns a {@link Spliterator} over the strings matched by the pattern, in lexicographical order.
+     * <p>
+     * For finite patterns the spliterator is {@link Spliterator#SIZED sized} whenever the count fits in a
+     * {@code long}, and it splits by position: every part builds its strings straight from their positions, so the
+     * parts can be traversed in parallel without building the strings before them. Infinite patterns are traversed
+     * sequentially with {@link #iterator()}.
      */
-    private static int calculateTotalWeightedTransitions(Collection<Transition> transitions) {
+    @Override
+    public Spliterator<String> spliterator() {
+        return compiled.spliterator();
+    }
 
-        int totalWeight = 0;
-        for (Transition transition : transitions) totalWeight += getWeightedTransitions(transition);
+    /**
+     * Returns a sequential {@code Stream} of the strings matched by the pattern, in lexicographical order. Nothing is
+     * materialized up front, so unlike {@link #getAllMatchedStrings()} this works for languages of any size, including
+     * infinite ones when limited with {@link Stream#limit(long)}.
+     * <p>
+     * Call {@link Stream#parallel()} on the result to spread the enumeration of a finite language over every core of
+     * the common fork-join pool. See {@link #spliterator()}.
+     *
+     * @return a stream of the matched strings
+     */
+    public Stream<String> stream() {
+        return compiled.stream();
+    }
 
-        return totalWeight;
+    /**
+     * Writes every string matched by the pattern to disk, one per line, in lexicographical order, with the default
+     * {@link ExportOptions}.
+     *
+     * @see #exportTo(Path, ExportOptions)
+     */
+    public long exportTo(Path path) throws IOException {
+        return compiled.exportTo(path, ExportOptions.defaults());
     }
 
     /**
-     * Calculates the number of different characters a {@link Transition} could produce.
+     * Writes every string matched by the pattern to disk, one per line, in lexicographical order.
+     * <p>
+     * The strings are split by position into {@linkplain ExportOptions#getShards() shards} that are enumerated in
+     * parallel, each encoding straight into a direct buffer written through a {@code FileChannel}. Depending on the
+     * {@linkplain ExportOptions#getLayout() layout}, {@code path} is either the single file all the shards end up in,
+     * in order, or a directory with one file per shard.
+     *
+     * @param path    the file or directory to write
+     * @param options how to split, encode and write the strings
+     * @return the number of strings written
+     * @throws IllegalStateException if the pattern matches an infinite number of strings, or more than
+     *                               {@link Long#MAX_VALUE}
+     * @throws IOException           if writing fails, a string can't be encoded in the charset and the options don't
+     *                               {@linkplain ExportOptions#isReplacingUnencodable() replace it}, or the calling
+     *                               thread is interrupted while waiting for the shards. The shards still running are
+     *                               cancelled.
      */
-    private static int getWeightedTransitions(Transition transition) {
-        return transition.getMax() - transition.getMin() + 1;
+    public long exportTo(Path path, ExportOptions options) throws IOException {
+        return compiled.exportTo(path, options);
     }
 
-    public Iterator<String> iterator() {
-        return new GenerexIterator(automaton.getInitialState());
+    /**
+     * Writes the compiled pattern in a compact binary form, which {@link CompiledGenerex#readFrom(java.nio.ByteBuffer)}
+     * restores without compiling it again. To store many patterns, see {@link GenerexBundle}.
+     *
+     * @see CompiledGenerex#writeTo(OutputStream)
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        compiled.writeTo(out);
     }
 
     /**
@@ -749,40 +736,11 @@ public class Generex implements Iterable<String> {
      */
     public static boolean isValidPattern(String regex) {
         try {
-            createRegExp(regex);
+            RegexParser.parse(regex);
             return true;
         } catch (IllegalArgumentException ignore) { // NOPMD - Not valid.
         } catch (StackOverflowError ignore) { // NOPMD - Possibly valid but stack not big enough to handle it.
         }
         return false;
     }
-
-    /**
-     * Requote a regular expression by escaping some parts of it from generation without need to escape each special
-     * character one by one. <br> this is done by setting the part to be interpreted as normal characters (thus, quote
-     * all meta-characters) between \Q and \E , ex : <br> <code> minion_\d{3}\Q@gru.evil\E </code> <br> will be
-     * transformed to : <br> <code> minion_\d{3}\@gru\.evil </code>
-     *
-     * @param regex
-     * @return
-     */
-    private static String requote(String regex) {
-        final Pattern patternRequoted = Pattern.compile("(?s)(?<!\\\\)(?:\\\\{2})*+\\\\Q(.*?)\\\\E");
-        // http://stackoverflow.com/questions/399078/what-special-characters-must-be-escaped-in-regular-expressions
-        // adding "@" prevents StackOverflowError inside generex: https://github.com/mifmif/Generex/issues/21
-        final Pattern patternSpecial = Pattern.compile("[.^$*+?(){|\\[\\\\@]");
-
-        StringBuilder sb = new StringBuilder();
-        Matcher matcher = patternRequoted.matcher(regex);
-        int index = 0;
-
-        while (matcher.find()) {
-            sb.append(regex, index, matcher.start(1) - 2); // Don't include \Q
-            sb.append(patternSpecial.matcher(matcher.group(1)).replaceAll("\\\\$0"));
-            index = matcher.end(1) + 2; // Don't include \E
-        }
-
-        sb.append(regex.substring(index));
-        return sb.toString();
-    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A file of many {@link CompiledGenerex compiled patterns}, each stored under a name, which can be memory-mapped so
+ * that a process starts with every pattern ready and nothing to compile.
+ * <p>
+ * A bundle is written once, typically at build time, with {@link #write(Path, Map)}, and opened with
+ * {@link #open(Path)}. Opening only reads the index; each pattern is decoded from the mapped file the first time it is
+ * {@link #get(String) asked for}, which copies its arrays out of the file but doesn't compile anything:
+ * <pre>{@code
+ * Map<String, CompiledGenerex> patterns = new LinkedHashMap<>();
+ * for (String regex : regexes) patterns.put(regex, new CompiledGenerex(regex));
+ * GenerexBundle.write(path, patterns);
+ *
+ * GenerexBundle bundle = GenerexBundle.open(path);
+ * Generex generex = new Generex(bundle.get("[a-z]{3,10}\\.com"));
+ * }</pre>
+ * The file starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed by the patterns in the format of
+ * {@link CompiledGenerex#writeTo(java.io.OutputStream)}, then the index: the number of patterns and, for each, its
+ * UTF-8 name and offset. The last four bytes hold the offset of the index. Everything is big-endian. Bundles are
+ * limited to 2 GiB, the most a single mapping can hold.
+ * <p>
+ * Instances are immutable apart from the cache of decoded patterns, and safe to share between threads.
+ */
+public final class GenerexBundle {
+
+    /**
+     * The first four bytes of every bundle: {@code "GNXB"} in ASCII.
+     */
+    public static final int MAGIC = 0x474E5842;
+
+    /**
+     * The version of the bundle layout written by {@link #write(Path, Map)}. Opening a bundle of another version
+     * fails.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * The whole bundle, positioned at its start. Never read from directly, only through duplicates.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The offset of every pattern in {@link #buffer}, by name, in the order they were written.
+     */
+    private final Map<String, Integer> offsets;
+
+    private final ConcurrentHashMap<String, CompiledGenerex> decoded = new ConcurrentHashMap<String, CompiledGenerex>();
+
+    private GenerexBundle(ByteBuffer buffer, Map<String, Integer> offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Writes {@code patterns} to a new bundle at {@code path}, replacing any existing file.
+     *
+     * @param path     the file to write
+     * @param patterns the patterns to store, by the name to look them up with. Using each pattern's regex as its name
+     *                 is the natural choice.
+     * @throws IOException if writing fails, or the bundle would be larger than 2 GiB
+     */
+    public static void write(Path path, Map<String, CompiledGenerex> patterns) throws IOException {
+        Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            for (Map.Entry<String, CompiledGenerex> pattern : patterns.entrySet()) {
+                offsets.put(pattern.getKey(), checkedSize(out));
+                pattern.getValue().writeTo(out);
+            }
+
+            int indexOffset = checkedSize(out);
+            out.writeInt(offsets.size());
+            for (Map.Entry<String, Integer> entry : offsets.entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(indexOffset);
+            checkedSize(out);
+        }
+    }
+
+    /**
+     * @return the number of bytes written to {@code out} so far.
+     * @throws IOException if that is more than a bundle can hold
+     */
+    private static int checkedSize(DataOutputStream out) throws IOException {
+        // DataOutputStream stops counting at Integer.MAX_VALUE.
+        if (out.size() == Integer.MAX_VALUE) throw new IOException("The bundle is larger than 2 GiB.");
+        return out.size();
+    }
+
+    /**
+     * Memory-maps the bundle at {@code path} and reads its index. The file must not be modified while the bundle is in
+     * use.
+     *
+     * @param path the bundle to open
+     * @return the opened bundle
+     * @throws IOException              if the file can't be read or mapped
+     * @throws IllegalArgumentException if the file isn't a bundle of a supported version, or its index is corrupt
+     */
+    public static GenerexBundle open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException(path + " is larger than 2 GiB.");
+            // The mapping stays valid after the channel is closed.
+            return readFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Reads the index of the bundle that spans {@code buffer} from its position to its limit. The buffer is shared,
+     * not copied, and must not be modified while the bundle is in use; its position, limit and byte order are not
+     * changed.
+     *
+     * @param buffer the bundle's bytes
+     * @return the bundle
+     * @throws IllegalArgumentException if the buffer isn't a bundle of a supported version, or its index is corrupt
+     */
+    public static GenerexBundle readFrom(ByteBuffer buffer) {
+        ByteBuffer bundle = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        ByteBuffer in = bundle.duplicate();
+        try {
+            int magic = in.getInt();
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("Not a bundle: bad magic number " + Integer.toHexString(magic) + ".");
+            }
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported bundle version " + version + ", expected "
+                        + FORMAT_VERSION + ".");
+            }
+
+            int indexOffset = in.getInt(bundle.limit() - 4);
+            if (indexOffset < in.position() || indexOffset > bundle.limit() - 8) {
+                throw new IllegalArgumentException("Corrupt bundle: index offset " + indexOffset
+                        + " is out of range.");
+            }
+            in.position(indexOffset).limit(bundle.limit() - 4);
+
+            int count = in.getInt();
+            Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+            for (int i = 0; i < count; i++) {
+                int nameLength = in.getInt();
+                if (nameLength < 0 || nameLength > in.remaining()) {
+                    throw new IllegalArgumentException("Corrupt bundle: name length " + nameLength + ".");
+                }
+                byte[] name = new byte[nameLength];
+                in.get(name);
+                int offset = in.getInt();
+                if (offset < 8 || offset >= indexOffset) {
+                    throw new IllegalArgumentException("Corrupt bundle: pattern offset " + offset
+                            + " is out of range.");
+                }
+                offsets.put(new String(name, StandardCharsets.UTF_8), offset);
+            }
+            return new GenerexBundle(bundle, Collections.unmodifiableMap(offsets));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated bundle.", e);
+        }
+    }
+
+    /**
+     * Returns the pattern stored under {@code name}, decoding it on the first call. Later calls return the same
+     * instance.
+     *
+     * @param name the name the pattern was written under
+     * @return the pattern, or {@code null} if the bundle has no pattern of that name
+     * @throws IllegalArgumentException if the pattern is corrupt
+     */
+    public CompiledGenerex get(String name) {
+        CompiledGenerex result = decoded.get(name);
+        if (result == null) {
+            Integer offset = offsets.get(name);
+            if (offset == null) return null;
+
+            ByteBuffer in = buffer.duplicate();
+            in.position(offset);
+            CompiledGenerex read = CompiledGenerex.readFrom(in);
+            result = decoded.putIfAbsent(name, read);
+            if (result == null) result = read;
+        }
+        return result;
+    }
+
+    /**
+     * @return the names of the patterns in this bundle, in the order they were written.
+     */
+    public Set<String> names() {
+        return offsets.keySet();
+    }
+
+    /**
+     * @return the number of patterns in this bundle.
+     */
+    public int size() {
+        return offsets.size();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe cache of {@link CompiledGenerex compiled patterns} keyed by their canonical form.
+ * <p>
+ * Converting a pattern into an automaton is by far the most expensive part of creating a {@link Generex}. Callers
+ * that build many instances from a recurring set of patterns should use {@link Generex#compile(String)}, which looks
+ * the compiled form up in the {@link #getSharedCache() shared cache}, so that the automaton is only built once per
+ * pattern, on first use like for any {@link CompiledGenerex}. Each
+ * returned {@code Generex} shares the immutable compiled pattern but still owns its own {@code Random}.
+ * <p>
+ * Patterns are parsed before the lookup, which is cheap, and looked up by a canonical rendering of the parsed pattern.
+ * Spellings of the same pattern, like {@code ^(?:ab)+$} and {@code (ab)+}, therefore share one entry.
+ * <p>
+ * The cache is bounded by weight rather than entry count, since a single large pattern can be orders of magnitude
+ * bigger than a typical one. An entry weighs the number of states plus the number of transitions of its
+ * nondeterministic automaton, which is built without the subset construction, so that patterns whose deterministic
+ * automaton would blow up can still be cached and sampled.
+ * When the total weight exceeds {@link #getMaximumWeight()} the least recently used entries are evicted. Entries
+ * heavier than the maximum weight are compiled but never stored.
+ */
+public final class GenerexCache {
+
+    /**
+     * Maximum weight of the {@link #getSharedCache() shared cache}. A typical pattern such as
+     * {@code [a-z0-9]{3,20}@[a-z]{2,10}\.com} weighs well under a thousand, so this holds thousands of patterns.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 1_000_000L;
+
+    private static final GenerexCache SHARED_CACHE = new GenerexCache(DEFAULT_MAXIMUM_WEIGHT);
+
+    private final long maximumWeight;
+
+    /**
+     * Access-ordered so that iteration starts at the least recently used entry. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maximumWeight the total weight above which least recently used entries are evicted. Must not be negative.
+     * @throws IllegalArgumentException if {@code maximumWeight} is negative
+     */
+    public GenerexCache(long maximumWeight) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * @return the cache used by {@link Generex#compile(String)}.
+     */
+    public static GenerexCache getSharedCache() {
+        return SHARED_CACHE;
+    }
+
+    /**
+     * Returns the compiled pattern for {@code regex}, compiling and caching it on a miss.
+     * <p>
+     * Compilation happens outside the lock so a slow pattern never blocks lookups of other patterns. Two threads
+     * missing on the same pattern at the same time may both compile it; only the first result is kept.
+     *
+     * @throws NullPointerException     if {@code regex} is {@code null}
+     * @throws IllegalArgumentException if {@code regex} is not a valid pattern
+     */
+    public CompiledGenerex get(String regex) {
+        RegexNode pattern = RegexParser.parse(regex);
+        String key = pattern.toString();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+                return entry.compiled;
+            }
+            missCount++;
+        }
+
+        CompiledGenerex compiled = new CompiledGenerex(pattern, true, CompiledGenerex.SamplingMode.AUTOMATIC);
+        long entryWeight = compiled.weight();
+        if (entryWeight > maximumWeight) return compiled;
+
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null) return existing.compiled;
+
+            entries.put(key, new Entry(compiled, entryWeight));
+            weight += entryWeight;
+            evictLeastRecentlyUsed();
+        }
+        return compiled;
+    }
+
+    /**
+     * Removes least recently used entries until the total weight is within {@link #maximumWeight}.
+     */
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            weight -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes every entry. Statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return the number of patterns currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the sum of the weights of all cached patterns.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @return the number of lookups that found an already compiled pattern.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that had to compile their pattern.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of entries removed to stay within {@link #getMaximumWeight()}.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the ratio of hits to lookups, or {@code 1.0} if there were no lookups yet.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+    }
+
+    private static final class Entry {
+        private final CompiledGenerex compiled;
+        private final long weight;
+
+        private Entry(CompiledGenerex compiled, long weight) {
+            this.compiled = compiled;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * The number of strings every state of a finite {@link FlatAutomaton} accepts, and the ranking of those strings in
+ * lexicographical order.
+ * <p>
+ * In lexicographical order, the strings accepted from a state are: the empty string if the state accepts, followed by
+ * the strings of each transition in character order, where a transition of width {@code w} contributes {@code w}
+ * consecutive blocks of {@code count(dest)} strings. Ranking and unranking skip whole blocks at a time, so both cost
+ * {@code O(length)} steps.
+ * <p>
+ * Counts are {@code long}s when the whole language fits, which is the common case, and {@link BigInteger}s otherwise.
+ * Every state is reachable from the initial state, so no state can count more strings than the whole language.
+ * Ranks are zero-based.
+ */
+final class LanguageCounts {
+
+    private final FlatAutomaton automaton;
+
+    /**
+     * Per-state counts, or {@code null} if the language doesn't fit in a {@code long}.
+     */
+    private final long[] longCounts;
+
+    /**
+     * Per-state counts, or {@code null} if {@link #longCounts} is used.
+     */
+    private final BigInteger[] bigCounts;
+
+    /**
+     * @param automaton an automaton without cycles
+     */
+    LanguageCounts(FlatAutomaton automaton) {
+        this.automaton = automaton;
+        int[] order = automaton.getReverseTopologicalOrder();
+        long[] counts = longCounts(automaton, order);
+        longCounts = counts;
+        bigCounts = counts == null ? bigCounts(automaton, order) : null;
+    }
+
+    private LanguageCounts(FlatAutomaton automaton, long[] longCounts, BigInteger[] bigCounts) {
+        this.automaton = automaton;
+        this.longCounts = longCounts;
+        this.bigCounts = bigCounts;
+    }
+
+    /**
+     * Writes the per-state counts: whether they are {@code long}s, then one {@code long} per state, or one
+     * length-prefixed two's-complement magnitude per state.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeBoolean(longCounts != null);
+        if (longCounts != null) {
+            for (long count : longCounts) out.writeLong(count);
+        } else {
+            for (BigInteger count : bigCounts) {
+                byte[] bytes = count.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads counts written by {@link #writeTo(DataOutputStream)} for {@code automaton} from the position of
+     * {@code in}, which must be big-endian, and advances it past them.
+     *
+     * @throws IllegalArgumentException if a count is malformed, negative, or not the number of strings its state
+     *                                  accepts
+     * @throws java.nio.BufferUnderflowException if {@code in} ends before the counts do
+     */
+    static LanguageCounts readFrom(ByteBuffer in, FlatAutomaton automaton) {
+        int stateCount = automaton.getStateCount();
+        if (in.get() != 0) {
+            long[] counts = new long[stateCount];
+            in.asLongBuffer().get(counts);
+            in.position(in.position() + 8 * stateCount);
+            for (long count : counts) {
+                if (count < 0) throw new IllegalArgumentException("Corrupt counts: " + count + " is negative.");
+            }
+            return new LanguageCounts(automaton, counts, null).verify();
+        }
+
+        BigInteger[] counts = new BigInteger[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            int length = in.getInt();
+            if (length < 1 || length > in.remaining()) {
+                throw new IllegalArgumentException("Corrupt counts: " + length + " bytes for a count.");
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            counts[state] = new BigInteger(bytes);
+            if (counts[state].signum() < 0) {
+                throw new IllegalArgumentException("Corrupt counts: " + counts[state] + " is negative.");
+            }
+        }
+        return new LanguageCounts(automaton, null, counts).verify();
+    }
+
+    /**
+     * Checks that the count of every state is the number of strings it accepts given the counts of the states it leads
+     * to, which ranking and unranking rely on. That is linear in the size of the automaton, like computing the counts.
+     *
+     * @return this instance
+     * @throws IllegalArgumentException if a count is wrong
+     */
+    private LanguageCounts verify() {
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            boolean matches;
+            if (longCounts != null) {
+                long expected = automaton.isAccept(state) ? 1 : 0;
+                try {
+                    for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                        long block = Math.multiplyExact(automaton.getWidth(t), longCounts[automaton.getDest(t)]);
+                        expected = Math.addExact(expected, block);
+                    }
+                    matches = expected == longCounts[state];
+                } catch (ArithmeticException overflow) {
+                    matches = false;
+                }
+            } else {
+                BigInteger expected = automaton.isAccept(state) ? BigInteger.ONE : BigInteger.ZERO;
+                for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                    BigInteger width = BigInteger.valueOf(automaton.getWidth(t));
+                    expected = expected.add(bigCounts[automaton.getDest(t)].multiply(width));
+                }
+                matches = expected.equals(bigCounts[state]);
+            }
+            if (!matches) {
+                throw new IllegalArgumentException("Corrupt counts: " + getCount(state) + " for state " + state
+                        + " is not the number of strings it accepts.");
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of accepted strings.
+     */
+    BigInteger getTotal() {
+        return getCount(FlatAutomaton.INITIAL_STATE);
+    }
+
+    private BigInteger getCount(int state) {
+        return longCounts != null ? BigInteger.valueOf(longCounts[state]) : bigCounts[state];
+    }
+
+    /**
+     * @return the accepted string at zero-based position {@code rank} in lexicographical order.
+     * @throws IndexOutOfBoundsException if {@code rank} is negative or not below {@link #getTotal()}
+     */
+    String unrank(BigInteger rank) {
+        if (rank.signum() < 0 || rank.compareTo(getTotal()) >= 0) {
+            throw new IndexOutOfBoundsException("Index " + rank + " is out of bounds for " + getTotal() + " matches.");
+        }
+        return longCounts != null ? unrankLong(rank.longValue()) : unrankBig(rank);
+    }
+
+    private String unrankLong(long rank) {
+        StringBuilder result = new StringBuilder();
+        int state = FlatAutomaton.INITIAL_STATE;
+        while (true) {
+            if (automaton.isAccept(state)) {
+                if (rank == 0) return result.toString();
+                rank--;
+            }
+            for (int t = automaton.getTransitionStart(state); ; t++) {
+                long destCount = longCounts[automaton.getDest(t)];
+                long block = destCount * automaton.getWidth(t);
+                if (rank < block) {
+                    result.append((char) (automaton.getMin(t) + rank / destCount));
+                    rank %= destCount;
+                    state = automaton.getDest(t);
+                    break;
+                }
+                rank -= block;
+            }
+        }
+    }
+
+    private String unrankBig(BigInteger rank) {
+        StringBuilder result = new StringBuilder();
+        int state = FlatAutomaton.INITIAL_STATE;
+        while (true) {
+            if (automaton.isAccept(state)) {
+                if (rank.signum() == 0) return result.toString();
+                rank = rank.subtract(BigInteger.ONE);
+            }
+            for (int t = automaton.getTransitionStart(state); ; t++) {
+                BigInteger destCount = bigCounts[automaton.getDest(t)];
+                BigInteger block = destCount.multiply(BigInteger.valueOf(automaton.getWidth(t)));
+                if (rank.compareTo(block) < 0) {
+                    BigInteger[] offsetAndRank = rank.divideAndRemainder(destCount);
+                    result.append((char) (automaton.getMin(t) + offsetAndRank[0].intValue()));
+                    rank = offsetAndRank[1];
+                    state = automaton.getDest(t);
+                    break;
+                }
+                rank = rank.subtract(block);
+            }
+        }
+    }
+
+    /**
+     * @return the zero-based position of {@code match} in lexicographical order.
+     * @throws IllegalArgumentException if the automaton doesn't accept {@code match}
+     */
+    BigInteger rank(CharSequence match) {
+        BigInteger rank = BigInteger.ZERO;
+        int state = FlatAutomaton.INITIAL_STATE;
+        for (int position = 0; position < match.length(); position++) {
+            char c = match.charAt(position);
+            if (automaton.isAccept(state)) rank = rank.add(BigInteger.ONE);
+
+            int next = -1;
+            for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                BigInteger destCount = getCount(automaton.getDest(t));
+                if (c > automaton.getMax(t)) {
+                    rank = rank.add(destCount.multiply(BigInteger.valueOf(automaton.getWidth(t))));
+                } else {
+                    if (c >= automaton.getMin(t)) {
+                        rank = rank.add(destCount.multiply(BigInteger.valueOf(c - automaton.getMin(t))));
+                        next = automaton.getDest(t);
+                    }
+                    break;
+                }
+            }
+            if (next < 0) throw notAccepted(match);
+            state = next;
+        }
+        if (!automaton.isAccept(state)) throw notAccepted(match);
+        return rank;
+    }
+
+    private static IllegalArgumentException notAccepted(CharSequence match) {
+        return new IllegalArgumentException("\"" + match + "\" is not matched by the pattern.");
+    }
+
+    /**
+     * @return the counts of every state, or {@code null} if one of them overflows a {@code long}.
+     */
+    private static long[] longCounts(FlatAutomaton automaton, int[] order) {
+        long[] counts = new long[automaton.getStateCount()];
+        try {
+            for (int state : order) {
+                long count = automaton.isAccept(state) ? 1 : 0;
+                for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                    count = Math.addExact(count, Math.multiplyExact(automaton.getWidth(t), counts[automaton.getDest(t)]));
+                }
+                counts[state] = count;
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return counts;
+    }
+
+    private static BigInteger[] bigCounts(FlatAutomaton automaton, int[] order) {
+        BigInteger[] counts = new BigInteger[automaton.getStateCount()];
+        for (int state : order) {
+            BigInteger count = automaton.isAccept(state) ? BigInteger.ONE : BigInteger.ZERO;
+            for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                count = count.add(counts[automaton.getDest(t)].multiply(BigInteger.valueOf(automaton.getWidth(t))));
+            }
+            counts[state] = count;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single run of {@link CompiledGenerex#exportTo(Path, ExportOptions)}.
+ * <p>
+ * The language is split by rank into contiguous shards. Each shard seeks a {@link MatchCursor} to its first string and
+ * steps through the rest, encoding the cursor's buffer straight into a direct {@link ByteBuffer} that is written to a
+ * {@link FileChannel} whenever it fills up, so no {@code String} is created per match. ASCII characters skip the
+ * encoder when the charset allows it. Direct buffers are pooled and reused by later shards.
+ */
+final class LanguageExport {
+
+    private final FlatAutomaton automaton;
+    private final LanguageCounts counts;
+    private final ExportOptions options;
+    private final long total;
+    private final byte[] lineSeparator;
+
+    /**
+     * {@code true} if the charset encodes ASCII characters as single bytes of the same value, so that they can be
+     * copied without going through the encoder.
+     */
+    private final boolean asciiCompatible;
+    private final AtomicLong exported = new AtomicLong();
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * @throws IllegalStateException if the language has more than {@link Long#MAX_VALUE} strings
+     */
+    LanguageExport(FlatAutomaton automaton, LanguageCounts counts, ExportOptions options) {
+        this.automaton = automaton;
+        this.counts = counts;
+        this.options = options;
+        if (counts.getTotal().bitLength() >= Long.SIZE) {
+            throw new IllegalStateException("The pattern matches too many strings to export: " + counts.getTotal());
+        }
+        total = counts.getTotal().longValue();
+        Charset charset = options.getCharset();
+        if (!options.isReplacingUnencodable() && !charset.newEncoder().canEncode(options.getLineSeparator())) {
+            throw new IllegalArgumentException("The line separator can't be encoded in " + charset + ".");
+        }
+        lineSeparator = options.getLineSeparator().getBytes(charset);
+        asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+        if (lineSeparator.length > options.getBufferSize()) {
+            throw new IllegalArgumentException("The line separator doesn't fit in the buffer.");
+        }
+    }
+
+    /**
+     * @return the number of strings written
+     */
+    long run(Path path) throws IOException {
+        int threads = options.getThreads();
+        long shardCount = options.getShards() != 0 ? options.getShards() : 4L * threads;
+        int shards = (int) Math.max(1, Math.min(shardCount, total));
+
+        ExecutorService executor = options.getExecutor();
+        boolean ownExecutor = executor == null;
+        if (ownExecutor) executor = Executors.newFixedThreadPool(threads, new ExportThreadFactory());
+
+        Path[] files = new Path[shards];
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(shards);
+        boolean done = false;
+        try {
+            if (options.getLayout() == ExportOptions.Layout.SHARD_FILES) {
+                Files.createDirectories(path);
+                for (int shard = 0; shard < shards; shard++) {
+                    files[shard] = path.resolve(String.format(Locale.ROOT, "part-%05d", shard));
+                }
+            } else {
+                // The first shard starts the file itself; the others go next to it until they can be appended.
+                Path directory = path.toAbsolutePath().getParent();
+                files[0] = path;
+                for (int shard = 1; shard < shards; shard++) {
+                    files[shard] = Files.createTempFile(directory, path.getFileName() + ".", ".part");
+                }
+            }
+
+            for (int shard = 0; shard < shards; shard++) {
+                Shard task = new Shard(files[shard], shardStart(shard, shards), shardStart(shard + 1, shards));
+                futures.add(executor.submit(task));
+            }
+
+            if (options.getLayout() == ExportOptions.Layout.SHARD_FILES) {
+                for (Future<Void> future : futures) await(future);
+            } else {
+                await(futures.get(0));
+                if (shards > 1) append(path, files, futures);
+            }
+            done = true;
+            return total;
+        } finally {
+            if (!done) {
+                for (Future<Void> future : futures) future.cancel(true);
+            }
+            if (ownExecutor) executor.shutdownNow();
+            if (options.getLayout() == ExportOptions.Layout.CONCATENATED) {
+                for (int shard = 1; shard < shards; shard++) {
+                    if (files[shard] != null) Files.deleteIfExists(files[shard]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the rank of the first string of {@code shard}, so that the shards' sizes differ by at most one.
+     */
+    private long shardStart(int shard, int shards) {
+        BigInteger start = BigInteger.valueOf(total).multiply(BigInteger.valueOf(shard));
+        return start.divide(BigInteger.valueOf(shards)).longValue();
+    }
+
+    /**
+     * Appends every shard after the first to {@code path} in order, each as soon as it is complete, with zero-copy
+     * transfers between the files.
+     */
+    private static void append(Path path, Path[] files, List<Future<Void>> futures) throws IOException {
+        FileChannel target = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            for (int shard = 1; shard < files.length; shard++) {
+                await(futures.get(shard));
+                FileChannel source = FileChannel.open(files[shard], StandardOpenOption.READ);
+                try {
+                    long size = source.size();
+                    for (long position = 0; position < size; ) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                } finally {
+                    source.close();
+                }
+                Files.delete(files[shard]);
+            }
+        } finally {
+            target.close();
+        }
+    }
+
+    private static void await(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while exporting.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Writes the strings of ranks {@code [start, end)} to a file.
+     */
+    private final class Shard implements Callable<Void> {
+        private final Path file;
+        private final long start;
+        private final long end;
+
+        private Shard(Path file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            ByteBuffer out = buffers.poll();
+            if (out == null) out = ByteBuffer.allocateDirect(options.getBufferSize());
+            out.clear();
+
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                CodingErrorAction onError = options.isReplacingUnencodable()
+                        ? CodingErrorAction.REPLACE
+                        : CodingErrorAction.REPORT;
+                CharsetEncoder encoder = options.getCharset().newEncoder()
+                        .onMalformedInput(onError)
+                        .onUnmappableCharacter(onError);
+                MatchCursor cursor = new MatchCursor(automaton);
+                if (start < end) cursor.seek(counts.unrank(BigInteger.valueOf(start)));
+                CharBuffer in = CharBuffer.wrap(cursor.buffer());
+
+                long unreported = 0;
+                for (long rank = start; rank < end; rank++) {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Export cancelled.");
+                    cursor.advance();
+                    char[] chars = cursor.buffer();
+                    int length = cursor.length();
+
+                    int copied = 0;
+                    if (asciiCompatible && out.remaining() >= length) {
+                        while (copied < length && chars[copied] < 0x80) out.put((byte) chars[copied++]);
+                    }
+                    if (copied < length) {
+                        // The cursor only replaces its buffer when a longer string needs more room.
+                        if (in.array() != chars) in = CharBuffer.wrap(chars);
+                        in.clear();
+                        in.limit(length);
+                        in.position(copied);
+                        try {
+                            encode(encoder, in, out, channel);
+                        } catch (CharacterCodingException e) {
+                            throw new IOException("\"" + new String(chars, 0, length)
+                                    + "\" can't be encoded in " + options.getCharset() + ".", e);
+                        }
+                    }
+                    if (out.remaining() < lineSeparator.length) {
+                        write(channel, out);
+                        unreported = report(unreported);
+                    }
+                    out.put(lineSeparator);
+                    unreported++;
+                }
+                write(channel, out);
+                report(unreported);
+            } finally {
+                channel.close();
+                buffers.offer(out);
+            }
+            return null;
+        }
+
+        private long report(long unreported) {
+            long exportedSoFar = exported.addAndGet(unreported);
+            ExportOptions.ProgressListener listener = options.getProgressListener();
+            if (listener != null && unreported > 0) listener.onProgress(exportedSoFar, total);
+            return 0;
+        }
+    }
+
+    private static void encode(CharsetEncoder encoder, CharBuffer in, ByteBuffer out, FileChannel channel)
+            throws IOException {
+        encoder.reset();
+        CoderResult result;
+        while ((result = encoder.encode(in, out, true)).isOverflow()) write(channel, out);
+        if (result.isError()) result.throwException();
+        while (encoder.flush(out).isOverflow()) write(channel, out);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Creates the daemon threads of the pool an export creates for itself, so that they never keep the JVM alive.
+     */
+    private static final class ExportThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "generex-export-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
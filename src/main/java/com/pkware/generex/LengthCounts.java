@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * An immutable table of how many strings of each exact length every state of a {@link FlatAutomaton} accepts.
+ * <p>
+ * Row {@code r} holds, for every state {@code s}, the number of strings of length {@code r} that lead from {@code s}
+ * to an accepting state. Row {@code 0} is {@code 1} for accepting states and {@code 0} otherwise, and every further
+ * row follows from the previous one: {@code count(r, s)} is the sum, over the transitions of {@code s}, of the
+ * transition's width times {@code count(r - 1, dest)}.
+ * <p>
+ * Rows are kept as {@code long}s while every value fits and switch to {@link BigInteger} from the first row that
+ * overflows, so small languages never pay for arbitrary precision arithmetic.
+ */
+final class LengthCounts {
+
+    /**
+     * Roughly what a {@link BigInteger} takes on top of its magnitude: its own object header and fields, plus the
+     * header of its magnitude array.
+     */
+    private static final long BIG_INTEGER_BYTES = 56;
+
+    private final FlatAutomaton automaton;
+
+    /**
+     * Rows whose values all fit in a {@code long}. {@code null} for rows kept in {@link #bigRows}.
+     */
+    private final long[][] longRows;
+
+    /**
+     * Rows with at least one value that doesn't fit in a {@code long}. {@code null} for rows kept in
+     * {@link #longRows}.
+     */
+    private final BigInteger[][] bigRows;
+
+    LengthCounts(FlatAutomaton automaton, int maxLength) {
+        this(automaton, new long[0][], new BigInteger[0][], maxLength);
+    }
+
+    private LengthCounts(FlatAutomaton automaton, long[][] previousLongRows, BigInteger[][] previousBigRows, int maxLength) {
+        this.automaton = automaton;
+        longRows = Arrays.copyOf(previousLongRows, maxLength + 1);
+        bigRows = Arrays.copyOf(previousBigRows, maxLength + 1);
+
+        for (int length = previousLongRows.length; length <= maxLength; length++) {
+            if (length == 0) {
+                longRows[0] = acceptRow(automaton);
+            } else if (longRows[length - 1] != null) {
+                longRows[length] = nextLongRow(automaton, longRows[length - 1]);
+                if (longRows[length] == null) bigRows[length] = nextBigRow(automaton, toBigRow(longRows[length - 1]));
+            } else {
+                bigRows[length] = nextBigRow(automaton, bigRows[length - 1]);
+            }
+        }
+    }
+
+    /**
+     * @return a table covering every length up to at least {@code maxLength}, sharing the rows already computed.
+     */
+    LengthCounts extendTo(int maxLength) {
+        if (maxLength <= getMaxLength()) return this;
+        return new LengthCounts(automaton, longRows, bigRows, maxLength);
+    }
+
+    /**
+     * @return the longest length this table has counts for.
+     */
+    int getMaxLength() {
+        return longRows.length - 1;
+    }
+
+    /**
+     * @return the number of strings of exactly {@code length} characters accepted from {@code state}.
+     */
+    BigInteger getCount(int length, int state) {
+        long[] longRow = longRows[length];
+        return longRow != null ? BigInteger.valueOf(longRow[state]) : bigRows[length][state];
+    }
+
+    /**
+     * Returns the same value as {@link #getCount(int, int)} for callers that already know it fits in a {@code long},
+     * for instance because it is bounded by a count that does.
+     */
+    long getLongCount(int length, int state) {
+        long[] longRow = longRows[length];
+        return longRow != null ? longRow[state] : bigRows[length][state].longValue();
+    }
+
+    /**
+     * @return {@code true} if every count of row {@code length} fits in a {@code long}.
+     */
+    boolean isLongRow(int length) {
+        return longRows[length] != null;
+    }
+
+    /**
+     * Estimates how many bytes a table covering every length up to {@code maxLength} takes, without building it.
+     * <p>
+     * A count of length {@code r} is at most {@code w^r}, where {@code w} is the largest total width of the transitions
+     * leaving a state, so it takes about {@code r * log2(w)} bits. Counts are priced as a {@code long} while that fits,
+     * and as a {@link BigInteger} with its object overhead after, for every state of every row. The estimate stops
+     * adding rows once it passes {@code limit}, so it stays cheap for lengths far beyond any sensible table.
+     *
+     * @return the estimated size in bytes, or some value greater than {@code limit} if the estimate passes it
+     */
+    static long estimateBytes(FlatAutomaton automaton, int maxLength, long limit) {
+        long widest = 1;
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            long width = 0;
+            for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                width += automaton.getWidth(t);
+            }
+            widest = Math.max(widest, width);
+        }
+        double bitsPerLength = Math.log(widest) / Math.log(2);
+        long states = Math.max(1, automaton.getStateCount());
+
+        long bytes = 0;
+        for (int length = 0; length <= maxLength && bytes <= limit; length++) {
+            double bits = length * bitsPerLength;
+            long entryBytes = bits < Long.SIZE - 1 ? Long.BYTES
+                    : BIG_INTEGER_BYTES + (long) Math.ceil(bits / Byte.SIZE);
+            bytes += states * entryBytes;
+        }
+        return bytes;
+    }
+
+    static long[] acceptRow(FlatAutomaton automaton) {
+        long[] row = new long[automaton.getStateCount()];
+        for (int state = 0; state < row.length; state++) {
+            row[state] = automaton.isAccept(state) ? 1 : 0;
+        }
+        return row;
+    }
+
+    /**
+     * @return the row following {@code previous}, or {@code null} if one of its values overflows a {@code long}.
+     */
+    static long[] nextLongRow(FlatAutomaton automaton, long[] previous) {
+        long[] row = new long[previous.length];
+        try {
+            for (int state = 0; state < row.length; state++) {
+                long count = 0;
+                for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                    long destCount = previous[automaton.getDest(t)];
+                    if (destCount != 0) {
+                        count = Math.addExact(count, Math.multiplyExact(automaton.getWidth(t), destCount));
+                    }
+                }
+                row[state] = count;
+            }
+        } catch (ArithmeticException overflow) {
+            return null;
+        }
+        return row;
+    }
+
+    static BigInteger[] nextBigRow(FlatAutomaton automaton, BigInteger[] previous) {
+        BigInteger[] row = new BigInteger[previous.length];
+        for (int state = 0; state < row.length; state++) {
+            BigInteger count = BigInteger.ZERO;
+            for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                BigInteger destCount = previous[automaton.getDest(t)];
+                if (destCount.signum() != 0) {
+                    count = count.add(destCount.multiply(BigInteger.valueOf(automaton.getWidth(t))));
+                }
+            }
+            row[state] = count;
+        }
+        return row;
+    }
+
+    static BigInteger[] toBigRow(long[] row) {
+        BigInteger[] bigRow = new BigInteger[row.length];
+        for (int state = 0; state < row.length; state++) {
+            bigRow[state] = BigInteger.valueOf(row[state]);
+        }
+        return bigRow;
+    }
+}
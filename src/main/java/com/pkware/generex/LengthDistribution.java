@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+/**
+ * How {@link Generex#random(int, int)} and the other random methods draw the length of the string they generate.
+ * <p>
+ * A distribution gives every length a relative weight. Only the lengths in the requested range that the pattern has
+ * matches of are drawn from, with probabilities proportional to their weights, so a generated string never has to be
+ * rejected for its length. The weights of a range are computed once and reused by every call with the same
+ * distribution and bounds, which makes a draw a single binary search.
+ * <p>
+ * Only the first {@value #MAX_WEIGHED_LENGTHS} lengths of a range are weighed, which matters only for ranges like
+ * {@code random(1, Integer.MAX_VALUE)} on infinite patterns. If every length that can be drawn has weight zero, the
+ * length is drawn uniformly instead.
+ *
+ * @see Generex#setLengthDistribution(LengthDistribution)
+ */
+public interface LengthDistribution {
+
+    /**
+     * The number of lengths of a range, starting from its shortest, that are weighed.
+     */
+    int MAX_WEIGHED_LENGTHS = 1 << 20;
+
+    /**
+     * Draws every length in range that matches have with the same probability. This is the default.
+     */
+    LengthDistribution UNIFORM = new LengthDistribution() {
+        @Override
+        public double weight(int length, int minLength, int maxLength) {
+            return 1;
+        }
+    };
+
+    /**
+     * Returns the relative weight of {@code length} when drawing from {@code [minLength, maxLength]}, which is the
+     * requested range narrowed down to the lengths the pattern can match. Weights are relative: only their ratios
+     * within a range matter.
+     *
+     * @return a finite, non-negative weight
+     */
+    double weight(int length, int minLength, int maxLength);
+
+    /**
+     * Favors short strings: each length is {@code 1 - p} times as likely as the one before it, starting from the
+     * shortest length in range, like the number of failures before the first success of a coin that lands heads with
+     * probability {@code p}.
+     *
+     * @param p the probability of stopping at each length, in {@code (0, 1]}. {@code 1} always draws the shortest
+     *          length in range.
+     * @throws IllegalArgumentException if {@code p} is not in {@code (0, 1]}
+     */
+    static LengthDistribution geometric(double p) {
+        if (!(p > 0 && p <= 1)) throw new IllegalArgumentException("p must be in (0, 1]: " + p);
+        final double ratio = 1 - p;
+        return new LengthDistribution() {
+            @Override
+            public double weight(int length, int minLength, int maxLength) {
+                return Math.pow(ratio, length - minLength);
+            }
+        };
+    }
+
+    /**
+     * Draws lengths around {@code mean} along a bell curve, restricted to the range. A mean outside the range puts
+     * most of the weight on the nearest end of it, rather than on no length at all.
+     *
+     * @param mean              the most likely length
+     * @param standardDeviation how far lengths spread around the mean
+     * @throws IllegalArgumentException if {@code mean} is not finite or {@code standardDeviation} is not positive
+     */
+    static LengthDistribution normal(final double mean, double standardDeviation) {
+        if (Double.isNaN(mean) || Double.isInfinite(mean)) {
+            throw new IllegalArgumentException("mean must be finite: " + mean);
+        }
+        if (!(standardDeviation > 0) || Double.isInfinite(standardDeviation)) {
+            throw new IllegalArgumentException("standardDeviation must be positive: " + standardDeviation);
+        }
+        final double twiceVariance = 2 * standardDeviation * standardDeviation;
+        return new LengthDistribution() {
+            @Override
+            public double weight(int length, int minLength, int maxLength) {
+                // Relative to the length in range nearest to the mean, whose weight is 1, so that a mean far outside
+                // the range doesn't underflow every weight to zero.
+                double nearest = Math.max(minLength, Math.min(maxLength, mean));
+                double distance = length - mean;
+                double nearestDistance = nearest - mean;
+                return Math.exp((nearestDistance * nearestDistance - distance * distance) / twiceVariance);
+            }
+        };
+    }
+
+    /**
+     * Draws lengths with the given weights, for instance the observed frequencies of the lengths of real data.
+     *
+     * @param weights the weight of each length, indexed by length. Lengths past the end of the array have weight zero.
+     * @throws IllegalArgumentException if a weight is negative or not finite
+     */
+    static LengthDistribution histogram(double... weights) {
+        final double[] copy = weights.clone();
+        for (int length = 0; length < copy.length; length++) {
+            if (!(copy[length] >= 0) || Double.isInfinite(copy[length])) {
+                throw new IllegalArgumentException("Invalid weight for length " + length + ": " + copy[length]);
+            }
+        }
+        return new LengthDistribution() {
+            @Override
+            public double weight(int length, int minLength, int maxLength) {
+                return length < copy.length ? copy[length] : 0;
+            }
+        };
+    }
+}
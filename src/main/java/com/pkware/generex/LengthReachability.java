@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable table of which states of a {@link FlatAutomaton} can reach an accepting state in exactly a given number
+ * of characters. It lets a random walk aimed at a target length only ever take transitions that can still reach it.
+ * <p>
+ * Row {@code r} is a bitset over the states: row {@code 0} holds the accepting states, and a state is in row
+ * {@code r} if one of its transitions leads to a state in row {@code r - 1}. Each row only depends on the previous
+ * one, so as soon as a row repeats an earlier one, every further row repeats the rows in between. The table stops
+ * there and answers for any length from that cycle. Finite automata reach an empty row, which repeats right away,
+ * after their longest string; infinite ones typically repeat after a few rows.
+ */
+final class LengthReachability {
+
+    private final FlatAutomaton automaton;
+
+    private final long[][] rows;
+
+    /**
+     * The row the cycle starts at, or {@code -1} if no row repeated within {@link #rows}. The cycle runs from there to
+     * the last row.
+     */
+    private final int cycleStart;
+
+    LengthReachability(FlatAutomaton automaton, int maxLength) {
+        this(automaton, new long[0][], maxLength);
+    }
+
+    private LengthReachability(FlatAutomaton automaton, long[][] previousRows, int maxLength) {
+        this.automaton = automaton;
+        Map<LongBuffer, Integer> seen = new HashMap<LongBuffer, Integer>();
+        for (int length = 0; length < previousRows.length; length++) {
+            seen.put(LongBuffer.wrap(previousRows[length]), length);
+        }
+
+        long[][] table = Arrays.copyOf(previousRows, maxLength + 1);
+        int start = -1;
+        int length = previousRows.length;
+        for (; length <= maxLength; length++) {
+            long[] row = length == 0 ? acceptRow() : nextRow(table[length - 1]);
+            Integer repeated = seen.put(LongBuffer.wrap(row), length);
+            if (repeated != null) {
+                start = repeated;
+                break;
+            }
+            table[length] = row;
+        }
+        rows = Arrays.copyOf(table, length);
+        cycleStart = start;
+    }
+
+    /**
+     * @return a table that answers for every length up to at least {@code maxLength}, sharing the rows already
+     * computed.
+     */
+    LengthReachability extendTo(int maxLength) {
+        if (covers(maxLength)) return this;
+        return new LengthReachability(automaton, rows, maxLength);
+    }
+
+    /**
+     * @return {@code true} if {@link #canReach(int, int)} answers for every length up to {@code maxLength}.
+     */
+    boolean covers(int maxLength) {
+        return cycleStart >= 0 || maxLength < rows.length;
+    }
+
+    /**
+     * @return the number of rows this table holds.
+     */
+    int getRowCount() {
+        return rows.length;
+    }
+
+    /**
+     * @return {@code true} if a string of exactly {@code length} characters leads from {@code state} to an accepting
+     * state. {@code length} must be {@linkplain #covers(int) covered}.
+     */
+    boolean canReach(int state, int length) {
+        long[] row;
+        if (length < rows.length) {
+            row = rows[length];
+        } else {
+            int cycleLength = rows.length - cycleStart;
+            row = rows[cycleStart + (length - cycleStart) % cycleLength];
+        }
+        return (row[state >>> 6] & 1L << state) != 0;
+    }
+
+    /**
+     * @return how many lengths in {@code [0, length)} lead from {@code state} to an accepting state. Lengths past the
+     * computed rows are counted a whole cycle at a time.
+     */
+    long countReachable(int state, long length) {
+        long count = 0;
+        for (int row = 0; row < Math.min(length, rows.length); row++) {
+            if (canReach(state, row)) count++;
+        }
+        if (length <= rows.length) return count;
+
+        int cycleLength = rows.length - cycleStart;
+        long cycles = (length - rows.length) / cycleLength;
+        int rest = (int) ((length - rows.length) % cycleLength);
+        int perCycle = 0;
+        int inRest = 0;
+        for (int offset = 0; offset < cycleLength; offset++) {
+            if (canReach(state, cycleStart + offset)) {
+                perCycle++;
+                if (offset < rest) inRest++;
+            }
+        }
+        return count + cycles * perCycle + inRest;
+    }
+
+    /**
+     * @return the {@code index}th (zero-based) length that leads from {@code state} to an accepting state, which must
+     * exist.
+     */
+    int findReachable(int state, long index) {
+        for (int row = 0; row < rows.length; row++) {
+            if (canReach(state, row) && index-- == 0) return row;
+        }
+
+        int cycleLength = rows.length - cycleStart;
+        int perCycle = 0;
+        for (int offset = 0; offset < cycleLength; offset++) {
+            if (canReach(state, cycleStart + offset)) perCycle++;
+        }
+        long base = rows.length + index / perCycle * cycleLength;
+        index %= perCycle;
+        for (int offset = 0; ; offset++) {
+            if (canReach(state, cycleStart + offset) && index-- == 0) return (int) (base + offset);
+        }
+    }
+
+    private long[] acceptRow() {
+        long[] row = new long[(automaton.getStateCount() + 63) >>> 6];
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            if (automaton.isAccept(state)) row[state >>> 6] |= 1L << state;
+        }
+        return row;
+    }
+
+    private long[] nextRow(long[] previous) {
+        long[] row = new long[previous.length];
+        for (int state = 0; state < automaton.getStateCount(); state++) {
+            for (int t = automaton.getTransitionStart(state); t < automaton.getTransitionEnd(state); t++) {
+                int dest = automaton.getDest(t);
+                if ((previous[dest >>> 6] & 1L << dest) != 0) {
+                    row[state >>> 6] |= 1L << state;
+                    break;
+                }
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the strings accepted by a {@link FlatAutomaton} in lexicographical order, one at a time, in a reused buffer.
+ * <p>
+ * The walk is a depth-first traversal kept in plain arrays indexed by depth: the state at each depth and the next
+ * transition and character to follow from it. Stepping to the next string therefore allocates nothing, except when a
+ * string longer than any before it grows the arrays.
+ * <p>
+ * As an {@link Iterator}, the cursor returns each string as a new {@code String}. Callers that can consume the buffer
+ * directly use {@link #advance()} instead.
+ */
+final class MatchCursor implements Iterator<String> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final FlatAutomaton automaton;
+
+    /**
+     * The characters of the current string. Characters past {@link #length} are stale.
+     */
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    /**
+     * {@code states[d]} is the state reached after the first {@code d} characters of the buffer.
+     */
+    private int[] states = new int[INITIAL_CAPACITY + 1];
+
+    /**
+     * {@code nextTransitions[d]} and {@code nextChars[d]} are the transition and character to follow next from
+     * {@code states[d]}. The transition is past the state's last transition once every branch has been visited.
+     */
+    private int[] nextTransitions = new int[INITIAL_CAPACITY + 1];
+    private char[] nextChars = new char[INITIAL_CAPACITY + 1];
+
+    /**
+     * Depth of the deepest state on the path, or {@code -1} once the walk is over.
+     */
+    private int depth;
+
+    private int length;
+
+    /**
+     * {@code true} if the string currently on the path is accepted and not visited yet, so that {@link #advance()}
+     * stops on it before moving on.
+     */
+    private boolean pending;
+
+    /**
+     * {@code true} if {@link #hasNext()} already advanced to a string {@link #next()} has not returned yet.
+     */
+    private boolean advanced;
+
+    MatchCursor(FlatAutomaton automaton) {
+        this.automaton = automaton;
+        enter(0, FlatAutomaton.INITIAL_STATE);
+        pending = automaton.isAccept(FlatAutomaton.INITIAL_STATE);
+    }
+
+    /**
+     * Positions the cursor so that the next string it visits is the first accepted string that is not lower than
+     * {@code lowerBound} in lexicographical order, which is {@code lowerBound} itself if it is accepted.
+     * <p>
+     * The path is rebuilt in a single pass over {@code lowerBound}: at every depth, the branches lower than the bound
+     * are skipped and the branches above it are left for later, exactly as if the walk had started from the beginning
+     * and just visited every lower string.
+     *
+     * @return this cursor
+     */
+    MatchCursor seek(CharSequence lowerBound) {
+        enter(0, FlatAutomaton.INITIAL_STATE);
+        pending = false;
+        advanced = false;
+        for (int position = 0; position < lowerBound.length(); position++) {
+            char c = lowerBound.charAt(position);
+            int state = states[depth];
+            int end = automaton.getTransitionEnd(state);
+
+            int transition = automaton.getTransitionStart(state);
+            while (transition < end && automaton.getMax(transition) < c) transition++;
+            if (transition == end || automaton.getMin(transition) > c) {
+                // No transition continues the bound here: every remaining branch of this state is above it.
+                nextTransitions[depth] = transition;
+                if (transition < end) nextChars[depth] = automaton.getMin(transition);
+                return this;
+            }
+
+            nextTransitions[depth] = transition;
+            nextChars[depth] = c;
+            step(state, transition, c);
+        }
+        // The whole bound is on the path; it comes before every string it is a prefix of.
+        pending = automaton.isAccept(states[depth]);
+        length = depth;
+        return this;
+    }
+
+    /**
+     * Moves to the next accepted string.
+     *
+     * @return {@code false} if every accepted string has been visited
+     */
+    boolean advance() {
+        if (pending) {
+            pending = false;
+            length = depth;
+            return true;
+        }
+
+        while (depth >= 0) {
+            int state = states[depth];
+            int transition = nextTransitions[depth];
+            if (transition == automaton.getTransitionEnd(state)) {
+                depth--;
+                continue;
+            }
+
+            int dest = step(state, transition, nextChars[depth]);
+            if (automaton.isAccept(dest)) {
+                length = depth;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Follows {@code transition} from {@code state}, the deepest state on the path, with character {@code c}, after
+     * recording the branch that comes after it as the next one to visit from {@code state}.
+     *
+     * @return the state reached
+     */
+    private int step(int state, int transition, char c) {
+        if (c == automaton.getMax(transition)) {
+            nextTransitions[depth] = transition + 1;
+            if (transition + 1 < automaton.getTransitionEnd(state)) nextChars[depth] = automaton.getMin(transition + 1);
+        } else {
+            nextChars[depth] = (char) (c + 1);
+        }
+
+        if (depth == buffer.length) grow();
+        buffer[depth] = c;
+        int dest = automaton.getDest(transition);
+        enter(depth + 1, dest);
+        return dest;
+    }
+
+    /**
+     * @return the buffer holding the current string in its first {@link #length()} characters. The buffer is reused,
+     * and may be replaced by a larger one, by the next call to {@link #advance()} or {@link #seek(CharSequence)}.
+     */
+    char[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the length of the current string.
+     */
+    int length() {
+        return length;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!advanced) advanced = advance();
+        return advanced;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        advanced = false;
+        return new String(buffer, 0, length);
+    }
+
+    private void enter(int depth, int state) {
+        this.depth = depth;
+        states[depth] = state;
+        int transition = automaton.getTransitionStart(state);
+        nextTransitions[depth] = transition;
+        if (transition < automaton.getTransitionEnd(state)) nextChars[depth] = automaton.getMin(transition);
+    }
+
+    private void grow() {
+        int capacity = buffer.length * 2;
+        buffer = Arrays.copyOf(buffer, capacity);
+        states = Arrays.copyOf(states, capacity + 1);
+        nextTransitions = Arrays.copyOf(nextTransitions, capacity + 1);
+        nextChars = Arrays.copyOf(nextChars, capacity + 1);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over a range of positions in the lexicographically sorted strings of a finite pattern.
+ * <p>
+ * Each string is built directly from its position with {@link LanguageCounts#unrank(BigInteger)}, so splitting is just
+ * halving the range: both halves can be traversed independently, on different threads, without building any of the
+ * strings the other half covers. Bulk traversal seeks a {@link MatchCursor} to the start of the range once and steps
+ * from there.
+ */
+final class MatchSpliterator implements Spliterator<String> {
+
+    /**
+     * Ranges smaller than this are not split further, since handing them to another thread costs more than traversing
+     * them.
+     */
+    private static final long MINIMUM_SPLIT_SIZE = 64;
+
+    private static final BigInteger MINIMUM_SPLIT_SIZE_BIG = BigInteger.valueOf(MINIMUM_SPLIT_SIZE);
+
+    private final FlatAutomaton automaton;
+
+    private final LanguageCounts counts;
+
+    /**
+     * Zero-based rank of the next string to return.
+     */
+    private BigInteger next;
+
+    /**
+     * Zero-based rank one past the last string to return.
+     */
+    private final BigInteger end;
+
+    /**
+     * @param counts the counts of {@code automaton}
+     * @param next   zero-based rank of the first string to return
+     */
+    MatchSpliterator(FlatAutomaton automaton, LanguageCounts counts, BigInteger next) {
+        this(automaton, counts, next, counts.getTotal());
+    }
+
+    private MatchSpliterator(FlatAutomaton automaton, LanguageCounts counts, BigInteger next, BigInteger end) {
+        this.automaton = automaton;
+        this.counts = counts;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (next.compareTo(end) >= 0) return false;
+
+        String match = counts.unrank(next);
+        next = next.add(BigInteger.ONE);
+        action.accept(match);
+        return true;
+    }
+
+    /**
+     * Visits the rest of the range with a {@link MatchCursor}, which only needs the position of the first string and
+     * then steps from string to string without ranking or unranking anything.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        if (next.compareTo(end) >= 0) return;
+
+        MatchCursor cursor = new MatchCursor(automaton).seek(counts.unrank(next));
+        long count = estimateSize();
+        next = next.add(BigInteger.valueOf(count));
+        for (long i = count; i > 0 && cursor.hasNext(); i--) action.accept(cursor.next());
+
+        // Only reached by ranges of more than Long.MAX_VALUE strings.
+        while (tryAdvance(action)) {
+            // Keep going.
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        BigInteger size = end.subtract(next);
+        if (size.compareTo(MINIMUM_SPLIT_SIZE_BIG) < 0) return null;
+
+        BigInteger middle = next.add(size.shiftRight(1));
+        MatchSpliterator prefix = new MatchSpliterator(automaton, counts, next, middle);
+        next = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        BigInteger size = end.subtract(next);
+        return size.bitLength() < Long.SIZE ? size.longValue() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        // Sizes beyond a long can't be reported exactly.
+        if (end.bitLength() < Long.SIZE) characteristics |= SIZED | SUBSIZED;
+        return characteristics;
+    }
+}
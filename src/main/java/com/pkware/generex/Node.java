@@ -27,7 +27,10 @@ import java.util.List;
  * the next positions.
  *
  * @author y.mifrah
+ * @deprecated Generex no longer builds a tree of nodes: it counts the strings each automaton state accepts once per
+ * state instead of once per path. This class is unused and will be removed.
  */
+@Deprecated
 public class Node {
     private int nbrChar = 1;
     private long nbrMatchedString = 0;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Uniform bounded draws that {@link Random} lacks on Java 8.
+ */
+final class RandomNumbers {
+
+    private RandomNumbers() {
+    }
+
+    /**
+     * @return a uniformly distributed value in {@code [0, bound)}.
+     * @throws IllegalArgumentException if {@code bound} is not positive
+     */
+    static long nextLong(Random random, long bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+
+        // Same rejection scheme as SplittableRandom.nextLong(long): reject the partial range at the top so that every
+        // remainder is equally likely.
+        long mask = bound - 1;
+        long value = random.nextLong() >>> 1;
+        if ((bound & mask) == 0L) return value & mask;
+
+        for (long unsigned = value; unsigned - (value = unsigned % bound) + mask < 0L; unsigned = random.nextLong() >>> 1) {
+            // Retry until the draw falls in the unbiased range.
+        }
+        return value;
+    }
+
+    /**
+     * @return a uniformly distributed value in {@code [0, bound)}.
+     * @throws IllegalArgumentException if {@code bound} is not positive
+     */
+    static BigInteger nextBigInteger(Random random, BigInteger bound) {
+        if (bound.signum() <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+
+        int bits = bound.bitLength();
+        BigInteger value;
+        do {
+            // Each draw lands below the bound with a probability of at least one half.
+            value = new BigInteger(bits, random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The random walk behind {@link Generex#random(int, int)}, along with the scratch space it reuses from one string to
+ * the next.
+ * <p>
+ * When a {@link LengthReachability} table is available, the walk only takes transitions that can still reach the
+ * pre-selected target length, so it produces a match of exactly that length in as many steps.
+ * <p>
+ * Otherwise, the walk is a depth-first search with backtracking that aims for the target length. It runs on an
+ * explicit stack of frames, one per character of the current path, so its call stack depth is constant however long
+ * the generated string is. The path itself is kept in a single {@code StringBuilder}: a frame's best match so far is
+ * recorded as a length along the path, and only copied out when a later branch is about to overwrite it. A walk that
+ * doesn't backtrack therefore costs time linear in the length of the generated string.
+ * <p>
+ * A walk is not thread-safe. Single calls create one per string; batch calls create one per batch, so that the
+ * scratch space is only allocated once.
+ */
+final class RandomWalk {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The scratch space of the backtracking walk starts out empty, since walks with a {@link LengthReachability}
+     * table don't need it.
+     */
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final boolean[] EMPTY_BOOLEANS = new boolean[0];
+    private static final String[] EMPTY_STRINGS = new String[0];
+
+    private final Random random;
+
+    /**
+     * Shared attempt counter for infinite regexes, or {@code null} for finite regexes.
+     */
+    private final AttemptBudget budget;
+
+    /**
+     * The characters of the current path. The frame at depth {@code d} owns the state reached after the first
+     * {@code d} characters.
+     */
+    private StringBuilder path;
+
+    private FlatAutomaton automaton;
+
+    private int[] states = EMPTY_INTS;
+
+    /**
+     * The number and total weight of the transitions each frame has not tried yet.
+     */
+    private int[] candidateCount = EMPTY_INTS;
+    private int[] totalWeight = EMPTY_INTS;
+
+    /**
+     * The transition each frame tried first, or {@link #NO_PICK}. The first pick is a binary search over the
+     * automaton's cumulative weights, which needs no copy of the transitions.
+     */
+    private int[] firstPick = EMPTY_INTS;
+
+    private static final int NO_PICK = -1;
+
+    /**
+     * Frames that backtrack copy the indexes of their remaining transitions to
+     * {@code candidates[candidateStart[d]]} to {@code candidates[candidateStart[d] + candidateCount[d] - 1]}, right
+     * after their parent's, and pick among them with a linear scan. {@code copied[d]} is set once they have.
+     */
+    private int[] candidates = EMPTY_INTS;
+    private int[] candidateStart = EMPTY_INTS;
+    private boolean[] copied = EMPTY_BOOLEANS;
+
+    /**
+     * The best match each frame has found so far: {@link #NO_MATCH}, the first {@code bestLength[d]} characters of
+     * {@link #path} if {@code bestString[d]} is {@code null}, or {@code bestString[d]} otherwise.
+     */
+    private int[] bestLength = EMPTY_INTS;
+    private String[] bestString = EMPTY_STRINGS;
+
+    private static final int NO_MATCH = -1;
+
+    /**
+     * The result of the frame that just finished, in the same form as a best match.
+     */
+    private int resultLength;
+    private String resultString;
+
+    RandomWalk(Random random, boolean finite) {
+        this.random = random;
+        this.budget = finite ? null : new AttemptBudget();
+    }
+
+    /**
+     * Generates a match of exactly {@code length} characters, which {@code reachability} must allow.
+     */
+    String walk(FlatAutomaton automaton, LengthReachability reachability, int length) {
+        char[] chars = new char[length];
+        int state = FlatAutomaton.INITIAL_STATE;
+        for (int position = 0; position < length; position++) {
+            int transition = pickReachingTransition(automaton, reachability, state, length - position - 1);
+            chars[position] = (char) (random.nextInt(automaton.getWidth(transition)) + automaton.getMin(transition));
+            state = automaton.getDest(transition);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The number of weighted picks among all the transitions of a state before
+     * {@link #pickReachingTransition} only weighs the ones that can reach the target.
+     */
+    private static final int PICK_ATTEMPTS = 4;
+
+    /**
+     * Picks a transition of {@code state} whose destination can reach an accepting state in exactly {@code remaining}
+     * characters, randomly based on the weight of each transition.
+     */
+    private int pickReachingTransition(FlatAutomaton automaton, LengthReachability reachability, int state,
+                                       int remaining) {
+        // Usually every transition can still reach the target, so a pick among all of them is rarely rejected.
+        // Rejecting picks that can't leaves the others with the same relative chances.
+        int total = automaton.getTotalWeight(state);
+        for (int attempt = 0; attempt < PICK_ATTEMPTS; attempt++) {
+            int transition = automaton.pickTransition(state, random.nextInt(total));
+            if (reachability.canReach(automaton.getDest(transition), remaining)) return transition;
+        }
+
+        int start = automaton.getTransitionStart(state);
+        int end = automaton.getTransitionEnd(state);
+        int reachingTotal = 0;
+        for (int t = start; t < end; t++) {
+            if (reachability.canReach(automaton.getDest(t), remaining)) reachingTotal += automaton.getWeight(t);
+        }
+        int value = random.nextInt(reachingTotal);
+        for (int t = start; ; t++) {
+            if (reachability.canReach(automaton.getDest(t), remaining)) {
+                value -= automaton.getWeight(t);
+                if (value < 0) return t;
+            }
+        }
+    }
+
+    /**
+     * Generates a string as defined by {@link Generex#random(int, int)}, aiming for {@code targetLength}, for
+     * patterns without a {@link LengthReachability} table.
+     *
+     * @return the generated string, which may be {@code maxLength + 1} characters long if no shorter match could be
+     * found. The caller trims it.
+     */
+    String walk(FlatAutomaton automaton, int minLength, int maxLength, int targetLength) {
+        if (budget != null) budget.reset();
+        this.automaton = automaton;
+        if (path == null) {
+            path = new StringBuilder();
+            growFrames();
+        }
+        path.setLength(0);
+
+        int depth = 0;
+        states[0] = FlatAutomaton.INITIAL_STATE;
+        candidateStart[0] = 0;
+        boolean returning = !enter(0, maxLength, targetLength);
+
+        while (true) {
+            if (returning) {
+                if (depth == 0) return resultString != null ? resultString : path.substring(0, resultLength);
+                depth--;
+
+                // Greedily return the first valid result found that is of the wanted length.
+                if (resultLength == targetLength) continue;
+
+                if (isBetterMatch(resultLength, bestLength[depth], minLength, maxLength, targetLength)) {
+                    bestLength[depth] = resultLength;
+                    bestString[depth] = resultString;
+                }
+                returning = false;
+            }
+
+            // Only retries count against the budget, so that a walk that never backtracks can run to any length.
+            boolean exhausted = false;
+            if (budget != null && candidateCount[depth] > 0
+                    && candidateCount[depth] < transitionCount(states[depth])) {
+                budget.increment();
+                exhausted = budget.isExhausted();
+            }
+            if (candidateCount[depth] == 0 || exhausted) {
+                // For infinite regexes, if budget was exhausted before reaching an accept state, return the current
+                // path as a fallback.
+                finish(bestLength[depth] != NO_MATCH ? bestLength[depth] : depth, bestString[depth]);
+                returning = true;
+                continue;
+            }
+
+            int transition = pickRandomWeightedTransition(depth);
+            char randomChar = (char) (random.nextInt(automaton.getWidth(transition)) + automaton.getMin(transition));
+
+            // The best match so far may run through the character about to be replaced; keep a copy.
+            if (bestString[depth] == null && bestLength[depth] > depth) {
+                bestString[depth] = path.substring(0, bestLength[depth]);
+            }
+            path.setLength(depth);
+            path.append(randomChar);
+
+            depth++;
+            if (depth == states.length) growFrames();
+            states[depth] = automaton.getDest(transition);
+            candidateStart[depth] = candidateStart[depth - 1] + (copied[depth - 1] ? candidateCount[depth - 1] : 0);
+            returning = !enter(depth, maxLength, targetLength);
+        }
+    }
+
+    /**
+     * Starts the frame at {@code depth}.
+     *
+     * @return {@code true} if the frame has transitions to explore, {@code false} if it already has its result
+     */
+    private boolean enter(int depth, int maxLength, int targetLength) {
+        int state = states[depth];
+
+        // Return a string of length 'maxLength + 1' to indicate a dead branch.
+        // For infinite regexes, the automaton has cycles that can cause exponential backtracking.
+        // The budget limit caps total iterations to prevent hanging.
+        if (depth > maxLength || transitionCount(state) == 0 || (budget != null && budget.isExhausted())) {
+            finish(depth, null);
+            return false;
+        }
+
+        bestLength[depth] = NO_MATCH;
+        bestString[depth] = null;
+        if (automaton.isAccept(state)) {
+            // Keep the current path, just in case this would happen to be the closest match to the target length.
+            bestLength[depth] = depth;
+            if (depth == targetLength) {
+                finish(depth, null);
+                return false;
+            }
+        }
+
+        candidateCount[depth] = transitionCount(state);
+        totalWeight[depth] = automaton.getTotalWeight(state);
+        firstPick[depth] = NO_PICK;
+        copied[depth] = false;
+        return true;
+    }
+
+    private void finish(int length, String string) {
+        resultLength = length;
+        resultString = string;
+    }
+
+    private void growFrames() {
+        int capacity = Math.max(INITIAL_CAPACITY, states.length * 2);
+        states = Arrays.copyOf(states, capacity);
+        candidateStart = Arrays.copyOf(candidateStart, capacity);
+        candidateCount = Arrays.copyOf(candidateCount, capacity);
+        totalWeight = Arrays.copyOf(totalWeight, capacity);
+        firstPick = Arrays.copyOf(firstPick, capacity);
+        copied = Arrays.copyOf(copied, capacity);
+        bestLength = Arrays.copyOf(bestLength, capacity);
+        bestString = Arrays.copyOf(bestString, capacity);
+    }
+
+    /**
+     * Mutable counter shared by every frame of a walk, used to cap the total number of retries and prevent
+     * exponential backtracking for infinite regexes.
+     */
+    private static class AttemptBudget {
+        private static final int MAX_ATTEMPTS = 1000;
+        int count = 0;
+
+        boolean isExhausted() {
+            return count >= MAX_ATTEMPTS;
+        }
+
+        void increment() {
+            count++;
+        }
+
+        void reset() {
+            count = 0;
+        }
+    }
+
+    /**
+     * Determines if a new generation is better than the current generation.
+     * <p></p>
+     * The new generation is better if it is within the bounds and is closer to the target length than the current
+     * generation. Otherwise, the current generation is better.
+     *
+     * @param newLength     the length of the new generation.
+     * @param currentLength the length of the current generation, or {@link #NO_MATCH}.
+     * @param min           minimum length of the generated string.
+     * @param max           maximum length of the generated string.
+     * @param target        the target length of the generated string.
+     * @return {@code true} if the new generation is better than the current generation.
+     */
+    private static boolean isBetterMatch(int newLength, int currentLength, int min, int max, int target) {
+
+        if (currentLength == NO_MATCH) return true;
+        if (newLength > max && currentLength > min) return false;
+
+        boolean newInRange = newLength >= min;
+        boolean currentInRange = currentLength >= min && currentLength <= max;
+
+        if (newInRange && !currentInRange) return true;
+        if (currentInRange && !newInRange) return false;
+
+        int currentTargetDistance = Math.abs(currentLength - target);
+        int newTargetDistance = Math.abs(newLength - target);
+
+        return newTargetDistance < currentTargetDistance;
+    }
+
+    /**
+     * Removes and returns the index of one of the candidates of the frame at {@code depth}, chosen randomly based on
+     * the weight of each transition.
+     * <p>
+     * The first pick of a frame, which is the only one unless the walk backtracks, is a binary search over the
+     * automaton's cumulative weights. Later picks scan the remaining candidates.
+     *
+     * @throws IllegalArgumentException When the frame's total weight is not equal to the sum of the weights of its
+     *                                  candidates.
+     */
+    private int pickRandomWeightedTransition(int depth) {
+
+        int state = states[depth];
+        if (firstPick[depth] == NO_PICK) {
+            int transition = automaton.pickTransition(state, random.nextInt(totalWeight[depth]));
+            firstPick[depth] = transition;
+            candidateCount[depth]--;
+            totalWeight[depth] -= automaton.getWeight(transition);
+            return transition;
+        }
+
+        int start = candidateStart[depth];
+        int last = start + candidateCount[depth] - 1;
+        if (!copied[depth]) {
+            // Lay the candidates out as if the first pick had been removed from a full copy.
+            int first = automaton.getTransitionStart(state);
+            int count = candidateCount[depth] + 1;
+            if (start + count > candidates.length) {
+                int capacity = Math.max(start + count, Math.max(INITIAL_CAPACITY, candidates.length * 2));
+                candidates = Arrays.copyOf(candidates, capacity);
+            }
+            for (int i = 0; i < count; i++) candidates[start + i] = first + i;
+            candidates[start + firstPick[depth] - first] = candidates[start + count - 1];
+            copied[depth] = true;
+        }
+
+        int value = random.nextInt(totalWeight[depth]) + 1;
+        for (int i = start; i <= last; i++) {
+
+            int transition = candidates[i];
+            value -= automaton.getWeight(transition);
+            if (value <= 0) {
+                // Order doesn't matter to a weighted pick, so swap the last candidate in rather than shifting.
+                candidates[i] = candidates[last];
+                candidateCount[depth]--;
+                totalWeight[depth] -= automaton.getWeight(transition);
+                return transition;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "totalWeightedTransitions was greater than the total number of weighted transitions in the supplied collection."
+        );
+    }
+
+    private int transitionCount(int state) {
+        return automaton.getTransitionEnd(state) - automaton.getTransitionStart(state);
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.BasicAutomata;
+import dk.brics.automaton.BasicOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable node of a parsed pattern, as produced by {@link RegexParser}.
+ * <p>
+ * The nodes follow the operators of brics' own {@code RegExp}, so that {@link #toAutomaton(boolean)} builds the same
+ * automaton brics would, operator by operator, without brics parsing the pattern again. The tree is already
+ * simplified: adjacent literal characters form a single {@link Kind#STRING}, nested concatenations and unions are
+ * flattened, and character classes, shorthands like {@code \d} and {@code .} are sets of ranges.
+ * <p>
+ * {@link #toString()} renders the tree back into a canonical pattern, which is the same for every spelling of the same
+ * tree, e.g. {@code ^(?:ab)+$}, {@code (ab)+} and {@code \Qab\E+}, and can be used as a cache key.
+ */
+final class RegexNode {
+
+    enum Kind {
+        UNION, INTERSECTION, CONCATENATION, OPTIONAL, REPEAT, COMPLEMENT, CHARS, STRING, EMPTY, ANY_STRING, INTERVAL
+    }
+
+    /**
+     * Binding strengths, used to put parentheses back only where {@link #toString()} needs them.
+     */
+    private static final int UNION_PRECEDENCE = 0;
+    private static final int INTERSECTION_PRECEDENCE = 1;
+    private static final int CONCATENATION_PRECEDENCE = 2;
+    private static final int POSTFIX_PRECEDENCE = 3;
+    private static final int COMPLEMENT_PRECEDENCE = 4;
+    private static final int ATOM_PRECEDENCE = 5;
+
+    private final Kind kind;
+
+    /**
+     * The operands of {@link Kind#UNION}, {@link Kind#INTERSECTION} and {@link Kind#CONCATENATION}, or the single
+     * operand of {@link Kind#OPTIONAL}, {@link Kind#REPEAT} and {@link Kind#COMPLEMENT}.
+     */
+    private final RegexNode[] children;
+
+    /**
+     * The characters of a {@link Kind#STRING}.
+     */
+    private final String string;
+
+    /**
+     * The code points of a {@link Kind#CHARS}.
+     */
+    private final CodePointSet codePoints;
+
+    /**
+     * The bounds of a {@link Kind#REPEAT}, where a negative {@code max} means unbounded, or of an
+     * {@link Kind#INTERVAL}.
+     */
+    private final int min;
+    private final int max;
+
+    /**
+     * The number of digits every number of an {@link Kind#INTERVAL} is padded to, or {@code 0} for no padding.
+     */
+    private final int digits;
+
+    private RegexNode(Kind kind, RegexNode[] children, String string, CodePointSet codePoints, int min, int max,
+                      int digits) {
+        this.kind = kind;
+        this.children = children;
+        this.string = string;
+        this.codePoints = codePoints;
+        this.min = min;
+        this.max = max;
+        this.digits = digits;
+    }
+
+    static RegexNode string(String string) {
+        return new RegexNode(Kind.STRING, null, string, null, 0, 0, 0);
+    }
+
+    static RegexNode empty() {
+        return new RegexNode(Kind.EMPTY, null, null, null, 0, 0, 0);
+    }
+
+    static RegexNode anyString() {
+        return new RegexNode(Kind.ANY_STRING, null, null, null, 0, 0, 0);
+    }
+
+    static RegexNode interval(int min, int max, int digits) {
+        return new RegexNode(Kind.INTERVAL, null, null, null, min, max, digits);
+    }
+
+    /**
+     * @param codePoints the code points to match. A single code point becomes a {@link Kind#STRING}, and no code point
+     *                   at all {@link Kind#EMPTY}.
+     */
+    static RegexNode chars(CodePointSet codePoints) {
+        if (codePoints.isEmpty()) return empty();
+        if (codePoints.rangeCount() == 1 && codePoints.getFirst(0) == codePoints.getLast(0)) {
+            return string(new String(Character.toChars(codePoints.getFirst(0))));
+        }
+        return new RegexNode(Kind.CHARS, null, null, codePoints, 0, 0, 0);
+    }
+
+    static RegexNode optional(RegexNode child) {
+        return new RegexNode(Kind.OPTIONAL, new RegexNode[] {child}, null, null, 0, 0, 0);
+    }
+
+    /**
+     * @param max the maximum number of repetitions, or a negative number for no maximum
+     */
+    static RegexNode repeat(RegexNode child, int min, int max) {
+        return new RegexNode(Kind.REPEAT, new RegexNode[] {child}, null, null, min, max, 0);
+    }
+
+    static RegexNode complement(RegexNode child) {
+        return new RegexNode(Kind.COMPLEMENT, new RegexNode[] {child}, null, null, 0, 0, 0);
+    }
+
+    static RegexNode intersection(List<RegexNode> children) {
+        if (children.size() == 1) return children.get(0);
+        return new RegexNode(Kind.INTERSECTION, children.toArray(new RegexNode[0]), null, null, 0, 0, 0);
+    }
+
+    /**
+     * Flattens nested unions, like brics does before building them.
+     */
+    static RegexNode union(List<RegexNode> children) {
+        if (children.size() == 1) return children.get(0);
+        List<RegexNode> flat = new ArrayList<RegexNode>(children.size());
+        for (RegexNode child : children) {
+            if (child.kind == Kind.UNION) {
+                flat.addAll(Arrays.asList(child.children));
+            } else {
+                flat.add(child);
+            }
+        }
+        return new RegexNode(Kind.UNION, flat.toArray(new RegexNode[0]), null, null, 0, 0, 0);
+    }
+
+    /**
+     * Flattens nested concatenations and joins adjacent strings, like brics does while parsing, so that literal text
+     * becomes a single string automaton instead of a chain of one-character ones.
+     */
+    static RegexNode concatenation(List<RegexNode> children) {
+        List<RegexNode> flat = new ArrayList<RegexNode>(children.size());
+        StringBuilder text = null;
+        for (RegexNode child : children) {
+            RegexNode[] parts = child.kind == Kind.CONCATENATION ? child.children : new RegexNode[] {child};
+            for (RegexNode part : parts) {
+                if (part.kind == Kind.STRING) {
+                    if (text == null) text = new StringBuilder();
+                    text.append(part.string);
+                    continue;
+                }
+                if (text != null) {
+                    flat.add(string(text.toString()));
+                    text = null;
+                }
+                flat.add(part);
+            }
+        }
+        if (text != null) flat.add(string(text.toString()));
+
+        if (flat.size() == 1) return flat.get(0);
+        return new RegexNode(Kind.CONCATENATION, flat.toArray(new RegexNode[0]), null, null, 0, 0, 0);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Builds the automaton of this node the way brics' {@code RegExp.toAutomaton(boolean)} would: each operator is
+     * applied to the automatons of its operands and, if {@code minimize} is {@code true}, the result is minimized.
+     * Every call builds new automatons, so this is safe to call from several threads.
+     *
+     * @param minimize whether to minimize the automaton of every operator
+     * @return a new automaton, which is deterministic if {@code minimize} is {@code true}
+     */
+    Automaton toAutomaton(boolean minimize) {
+        Automaton automaton;
+        switch (kind) {
+            case UNION:
+                automaton = BasicOperations.union(childAutomatons(minimize));
+                break;
+            case CONCATENATION:
+                automaton = BasicOperations.concatenate(childAutomatons(minimize));
+                break;
+            case INTERSECTION:
+                automaton = children[0].toAutomaton(minimize);
+                for (int i = 1; i < children.length; i++) {
+                    automaton = automaton.intersection(children[i].toAutomaton(minimize));
+                    if (minimize) automaton = FlatAutomaton.minimize(automaton);
+                }
+                return automaton;
+            case OPTIONAL:
+                automaton = children[0].toAutomaton(minimize).optional();
+                break;
+            case REPEAT:
+                Automaton child = children[0].toAutomaton(minimize);
+                if (max >= 0) {
+                    automaton = child.repeat(min, max);
+                } else if (min > 0) {
+                    automaton = child.repeat(min);
+                } else {
+                    automaton = child.repeat();
+                }
+                break;
+            case COMPLEMENT:
+                automaton = children[0].toAutomaton(minimize).complement();
+                break;
+            case CHARS:
+                return codePoints.toAutomaton();
+            case STRING:
+                return BasicAutomata.makeString(string);
+            case EMPTY:
+                return BasicAutomata.makeEmpty();
+            case ANY_STRING:
+                return BasicAutomata.makeAnyString();
+            case INTERVAL:
+                return BasicAutomata.makeInterval(min, max, digits);
+            default:
+                throw new AssertionError(kind);
+        }
+        return minimize ? FlatAutomaton.minimize(automaton) : automaton;
+    }
+
+    private List<Automaton> childAutomatons(boolean minimize) {
+        List<Automaton> automatons = new ArrayList<Automaton>(children.length);
+        for (RegexNode child : children) automatons.add(child.toAutomaton(minimize));
+        return automatons;
+    }
+
+    /**
+     * @return the canonical pattern of this tree. Parsing it gives the same tree back.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        render(builder, UNION_PRECEDENCE);
+        return builder.toString();
+    }
+
+    private int precedence() {
+        switch (kind) {
+            case UNION:
+                return UNION_PRECEDENCE;
+            case INTERSECTION:
+                return INTERSECTION_PRECEDENCE;
+            case CONCATENATION:
+                return CONCATENATION_PRECEDENCE;
+            case STRING:
+                return string.length() == 1 ? ATOM_PRECEDENCE : CONCATENATION_PRECEDENCE;
+            case OPTIONAL:
+            case REPEAT:
+                return POSTFIX_PRECEDENCE;
+            case COMPLEMENT:
+                return COMPLEMENT_PRECEDENCE;
+            default:
+                return ATOM_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Appends this node, in parentheses if it binds less tightly than {@code minimumPrecedence}.
+     */
+    private void render(StringBuilder builder, int minimumPrecedence) {
+        // The empty string is written as an empty group, which is an atom.
+        boolean group = precedence() < minimumPrecedence && !(kind == Kind.STRING && string.isEmpty());
+        if (group) builder.append('(');
+        switch (kind) {
+            case UNION:
+                renderChildren(builder, '|', INTERSECTION_PRECEDENCE);
+                break;
+            case INTERSECTION:
+                renderChildren(builder, '&', CONCATENATION_PRECEDENCE);
+                break;
+            case CONCATENATION:
+                renderChildren(builder, (char) 0, CONCATENATION_PRECEDENCE);
+                break;
+            case OPTIONAL:
+                children[0].render(builder, COMPLEMENT_PRECEDENCE);
+                builder.append('?');
+                break;
+            case REPEAT:
+                children[0].render(builder, COMPLEMENT_PRECEDENCE);
+                if (max < 0 && min <= 1) {
+                    builder.append(min == 0 ? '*' : '+');
+                } else {
+                    builder.append('{').append(min);
+                    if (max != min) builder.append(',');
+                    if (max != min && max >= 0) builder.append(max);
+                    builder.append('}');
+                }
+                break;
+            case COMPLEMENT:
+                builder.append('~');
+                children[0].render(builder, COMPLEMENT_PRECEDENCE);
+                break;
+            case CHARS:
+                builder.append('[');
+                for (int i = 0; i < codePoints.rangeCount(); i++) {
+                    appendCodePoint(builder, codePoints.getFirst(i));
+                    if (codePoints.getLast(i) != codePoints.getFirst(i)) {
+                        builder.append('-');
+                        appendCodePoint(builder, codePoints.getLast(i));
+                    }
+                }
+                builder.append(']');
+                break;
+            case STRING:
+                if (string.isEmpty()) builder.append("()");
+                for (int i = 0; i < string.length(); i++) appendLiteral(builder, string.charAt(i));
+                break;
+            case EMPTY:
+                builder.append('#');
+                break;
+            case ANY_STRING:
+                builder.append('@');
+                break;
+            case INTERVAL:
+                // Bounds of the same length mean padding, so unpadded bounds get an extra zero to keep them apart.
+                builder.append('<');
+                if (digits == 0 && Integer.toString(min).length() == Integer.toString(max).length()) {
+                    builder.append('0');
+                }
+                appendPadded(builder, min);
+                builder.append('-');
+                appendPadded(builder, max);
+                builder.append('>');
+                break;
+            default:
+                throw new AssertionError(kind);
+        }
+        if (group) builder.append(')');
+    }
+
+    private void renderChildren(StringBuilder builder, char separator, int minimumPrecedence) {
+        for (int i = 0; i < children.length; i++) {
+            if (i > 0 && separator != 0) builder.append(separator);
+            children[i].render(builder, minimumPrecedence);
+        }
+    }
+
+    private void appendPadded(StringBuilder builder, int number) {
+        String text = Integer.toString(number);
+        for (int i = text.length(); i < digits; i++) builder.append('0');
+        builder.append(text);
+    }
+
+    /**
+     * Appends {@code codePoint} so that it reads as itself inside a class, where a surrogate pair right after its
+     * escaping {@code \\} is a single code point.
+     */
+    private static void appendCodePoint(StringBuilder builder, int codePoint) {
+        if (Character.isSupplementaryCodePoint(codePoint)) {
+            builder.append('\\').appendCodePoint(codePoint);
+        } else {
+            appendLiteral(builder, (char) codePoint);
+        }
+    }
+
+    /**
+     * Appends {@code c} so that it reads as itself: letters and digits as they are, anything else escaped.
+     */
+    private static void appendLiteral(StringBuilder builder, char c) {
+        if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9')) builder.append('\\');
+        builder.append(c);
+    }
+}
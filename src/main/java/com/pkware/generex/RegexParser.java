@@ -0,0 +1,371 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses a pattern into a {@link RegexNode} in a single pass over its characters.
+ * <p>
+ * The grammar is the one of brics' {@code RegExp}, including its leniency: an operator that cannot start an
+ * expression, like the {@code *} of {@code *a}, is a literal character. On top of it, the parser understands the Java
+ * syntax Generex supports: {@code ^} and {@code $} anchors around the whole pattern, non-capturing groups
+ * {@code (?:...)}, quoted text {@code \Q...\E}, the shorthand classes {@code \d \D \s \S \w \W} and the Unicode
+ * properties {@code \p{...}} and {@code \P{...}}, which all match the same characters as in Java. So does {@code .},
+ * which brics would let match line terminators too.
+ * <p>
+ * Character classes are sets of code points: a surrogate pair in a class, or one named by a property, is a single
+ * element that generates both of its characters. Negations are taken within the BMP, as in brics.
+ * <p>
+ * Errors are reported as a {@link PatternSyntaxException} whose index points at the offending character, or at the
+ * opening character of an unclosed construct.
+ */
+final class RegexParser {
+
+    /**
+     * What {@code .} matches in Java: any character but the line terminators {@code \n}, {@code \r}, {@code \u0085},
+     * {@code \u2028} and {@code \u2029}.
+     */
+    private static final CodePointSet DOT = CodePointSet.of(
+        0, '\t', '\u000b', '\f', '\u000e', '\u0084', '\u0086', '\u2027', '\u202a', Character.MAX_VALUE
+    );
+    private static final CodePointSet DIGIT = CodePointSet.of('0', '9');
+    private static final CodePointSet SPACE = CodePointSet.of('\t', '\r', ' ', ' ');
+    private static final CodePointSet WORD = CodePointSet.of('0', '9', 'A', 'Z', '_', '_', 'a', 'z');
+
+    private final String regex;
+
+    /**
+     * The index after the last character to parse, which excludes a trailing {@code $} anchor.
+     */
+    private final int end;
+
+    private int pos;
+
+    /**
+     * Whether {@link #pos} is between {@code \Q} and {@code \E}.
+     */
+    private boolean quoting;
+
+    private RegexParser(String regex) {
+        this.regex = regex;
+        pos = regex.startsWith("^") ? 1 : 0;
+        end = hasEndAnchor(regex, pos) ? regex.length() - 1 : regex.length();
+    }
+
+    /**
+     * @throws NullPointerException    if {@code regex} is {@code null}
+     * @throws PatternSyntaxException if {@code regex} is not a valid pattern
+     */
+    static RegexNode parse(String regex) {
+        RegexParser parser = new RegexParser(regex);
+        if (!parser.more()) return RegexNode.string("");
+
+        RegexNode node = parser.parseUnion();
+        if (parser.more()) throw parser.error("Unmatched closing ')'", parser.pos);
+        return node;
+    }
+
+    /**
+     * @return whether {@code regex} ends with a {@code $} that is neither escaped nor quoted
+     */
+    private static boolean hasEndAnchor(String regex, int start) {
+        int last = regex.length() - 1;
+        boolean quoting = false;
+        int i = start;
+        while (i < last) {
+            if (quoting) {
+                if (regex.startsWith("\\E", i)) {
+                    quoting = false;
+                    i += 2;
+                } else {
+                    i++;
+                }
+            } else if (regex.charAt(i) == '\\') {
+                if (regex.startsWith("\\Q", i)) quoting = true;
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return i == last && !quoting && regex.charAt(last) == '$';
+    }
+
+    private RegexNode parseUnion() {
+        List<RegexNode> alternatives = new ArrayList<RegexNode>();
+        alternatives.add(parseIntersection());
+        while (matchOperator('|')) alternatives.add(parseIntersection());
+        return RegexNode.union(alternatives);
+    }
+
+    private RegexNode parseIntersection() {
+        List<RegexNode> operands = new ArrayList<RegexNode>();
+        operands.add(parseConcatenation());
+        while (matchOperator('&')) operands.add(parseConcatenation());
+        return RegexNode.intersection(operands);
+    }
+
+    /**
+     * Like brics, the first element is parsed whatever it starts with, so {@code (|a)} is the string {@code |a}.
+     */
+    private RegexNode parseConcatenation() {
+        List<RegexNode> elements = new ArrayList<RegexNode>();
+        do {
+            elements.add(parseRepeat());
+        } while (more() && !atOperator(')') && !atOperator('|') && !atOperator('&'));
+        return RegexNode.concatenation(elements);
+    }
+
+    private RegexNode parseRepeat() {
+        RegexNode node = parseComplement();
+        while (true) {
+            if (matchOperator('?')) {
+                node = RegexNode.optional(node);
+            } else if (matchOperator('*')) {
+                node = RegexNode.repeat(node, 0, -1);
+            } else if (matchOperator('+')) {
+                node = RegexNode.repeat(node, 1, -1);
+            } else if (atOperator('{')) {
+                int open = pos++;
+                int min = parseNumber();
+                int max = min;
+                if (matchOperator(',')) max = atDigit() ? parseNumber() : -1;
+                if (!matchOperator('}')) throw error("Unclosed repetition", open);
+                node = RegexNode.repeat(node, min, max);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private int parseNumber() {
+        int start = pos;
+        while (atDigit()) pos++;
+        if (start == pos) throw error("Number expected", pos);
+        try {
+            return Integer.parseInt(regex.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("Number too large", start);
+        }
+    }
+
+    private RegexNode parseComplement() {
+        int complements = 0;
+        while (matchOperator('~')) complements++;
+        RegexNode node = parseCharClass();
+        for (int i = 0; i < complements; i++) node = RegexNode.complement(node);
+        return node;
+    }
+
+    private RegexNode parseCharClass() {
+        if (!atOperator('[')) return parseSimple();
+
+        int open = pos++;
+        boolean negate = matchOperator('^');
+        List<CodePointSet> sets = new ArrayList<CodePointSet>();
+        // The first item is never the end of the class, so in []] and [^]] the first ] is a literal.
+        do {
+            sets.add(parseClassItem());
+        } while (more() && !atOperator(']'));
+        if (!matchOperator(']')) throw error("Unclosed character class", open);
+
+        CodePointSet set = CodePointSet.union(sets);
+        return RegexNode.chars(negate ? set.complement() : set);
+    }
+
+    /**
+     * Parses a character, a range or a shorthand class inside a character class. As in brics, a {@code -} right before
+     * the closing {@code ]} is a literal.
+     */
+    private CodePointSet parseClassItem() {
+        int start = pos;
+        CodePointSet shorthand = parseShorthand();
+        if (shorthand != null) return shorthand;
+
+        int first = parseCodePoint();
+        if (!matchOperator('-')) return CodePointSet.of(first, first);
+        if (atOperator(']')) return CodePointSet.of(first, first, '-', '-');
+
+        if (parseShorthand() != null) throw error("Illegal character range", start);
+        int last = parseCodePoint();
+        return CodePointSet.of(first, last);
+    }
+
+    private RegexNode parseSimple() {
+        if (matchOperator('.')) return RegexNode.chars(DOT);
+        if (matchOperator('#')) return RegexNode.empty();
+        if (matchOperator('@')) return RegexNode.anyString();
+        if (atOperator('"')) {
+            int close = regex.indexOf('"', pos + 1);
+            if (close < 0 || close >= end) throw error("Unclosed string", pos);
+            String string = regex.substring(pos + 1, close);
+            pos = close + 1;
+            return RegexNode.string(string);
+        }
+        if (atOperator('(')) {
+            int open = pos++;
+            if (regex.startsWith("?:", pos) && pos + 2 <= end) pos += 2;
+            if (matchOperator(')')) return RegexNode.string("");
+            RegexNode node = parseUnion();
+            if (!matchOperator(')')) throw error("Unclosed group", open);
+            return node;
+        }
+        if (atOperator('<')) return parseInterval();
+
+        CodePointSet shorthand = parseShorthand();
+        if (shorthand != null) return RegexNode.chars(shorthand);
+        return RegexNode.string(new String(Character.toChars(parseCodePoint())));
+    }
+
+    /**
+     * Parses a brics numeric interval like {@code <1-12>}. Bounds of the same length are zero-padded to that length.
+     */
+    private RegexNode parseInterval() {
+        int open = pos;
+        int close = regex.indexOf('>', open + 1);
+        if (close < 0 || close >= end) throw error("Unclosed interval", open);
+        String interval = regex.substring(open + 1, close);
+
+        int dash = interval.indexOf('-');
+        if (dash < 0) throw error("Named automata are not supported", open);
+        if (dash == 0 || dash == interval.length() - 1 || dash != interval.lastIndexOf('-')) {
+            throw error("Malformed interval", open);
+        }
+        String first = interval.substring(0, dash);
+        String last = interval.substring(dash + 1);
+        int min;
+        int max;
+        try {
+            min = Integer.parseInt(first);
+            max = Integer.parseInt(last);
+        } catch (NumberFormatException e) {
+            throw error("Malformed interval", open);
+        }
+        pos = close + 1;
+        int digits = first.length() == last.length() ? first.length() : 0;
+        return RegexNode.interval(Math.min(min, max), Math.max(min, max), digits);
+    }
+
+    /**
+     * Consumes a shorthand class like {@code \d} or a property like {@code \p{L}}, if there is one.
+     *
+     * @return the code points of the class, or {@code null} if there is no shorthand class at the current position
+     */
+    private CodePointSet parseShorthand() {
+        skipQuoteMarks();
+        if (quoting || pos + 1 >= end || regex.charAt(pos) != '\\') return null;
+
+        CodePointSet set;
+        switch (regex.charAt(pos + 1)) {
+            case 'd': set = DIGIT; break;
+            case 'D': set = DIGIT.complement(); break;
+            case 's': set = SPACE; break;
+            case 'S': set = SPACE.complement(); break;
+            case 'w': set = WORD; break;
+            case 'W': set = WORD.complement(); break;
+            case 'p': return parseProperty();
+            case 'P': return parseProperty().complement();
+            default: return null;
+        }
+        pos += 2;
+        return set;
+    }
+
+    /**
+     * Consumes a property like {@code \p{IsLatin}}, or {@code \pL} for a one-letter name.
+     */
+    private CodePointSet parseProperty() {
+        int start = pos;
+        pos += 2;
+        String name;
+        if (pos < end && regex.charAt(pos) == '{') {
+            int close = regex.indexOf('}', pos + 1);
+            if (close < 0 || close >= end) throw error("Unclosed character property", start);
+            name = regex.substring(pos + 1, close);
+            pos = close + 1;
+        } else if (pos < end) {
+            name = String.valueOf(regex.charAt(pos++));
+        } else {
+            throw error("Unclosed character property", start);
+        }
+
+        CodePointSet set = UnicodeProperties.forName(name);
+        if (set == null) throw error("Unknown character property name {" + name + "}", start);
+        return set;
+    }
+
+    /**
+     * Consumes a character, which is escaped by a preceding {@code \} or by being quoted.
+     */
+    private char parseChar() {
+        skipQuoteMarks();
+        if (!quoting && pos < end && regex.charAt(pos) == '\\') pos++;
+        if (pos >= end) throw error("Unexpected end of pattern", regex.length());
+        return regex.charAt(pos++);
+    }
+
+    /**
+     * Consumes a character like {@link #parseChar()}, along with the low surrogate right after a high surrogate, which
+     * together encode a single code point.
+     */
+    private int parseCodePoint() {
+        char c = parseChar();
+        if (Character.isHighSurrogate(c) && pos < end && Character.isLowSurrogate(regex.charAt(pos))) {
+            return Character.toCodePoint(c, regex.charAt(pos++));
+        }
+        return c;
+    }
+
+    /**
+     * @return whether the next character is the operator {@code c}, that is, neither escaped nor quoted
+     */
+    private boolean atOperator(char c) {
+        skipQuoteMarks();
+        return !quoting && more() && regex.charAt(pos) == c;
+    }
+
+    private boolean matchOperator(char c) {
+        if (!atOperator(c)) return false;
+        pos++;
+        return true;
+    }
+
+    private boolean atDigit() {
+        return more() && !quoting && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9';
+    }
+
+    private boolean more() {
+        skipQuoteMarks();
+        return pos < end;
+    }
+
+    /**
+     * Steps over {@code \Q} and {@code \E} marks, which only switch quoting on and off. Quoting without an
+     * {@code \E} lasts until the end of the pattern.
+     */
+    private void skipQuoteMarks() {
+        while (pos + 1 < end && regex.charAt(pos) == '\\' && regex.charAt(pos + 1) == (quoting ? 'E' : 'Q')) {
+            quoting = !quoting;
+            pos += 2;
+        }
+    }
+
+    private PatternSyntaxException error(String description, int index) {
+        return new PatternSyntaxException(description, regex, index);
+    }
+}
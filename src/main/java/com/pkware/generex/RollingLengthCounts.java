@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+
+/**
+ * The number of strings of one exact length a {@link FlatAutomaton} accepts, and of every length up to it, computed
+ * with the same rows as {@link LengthCounts} but keeping only the last one.
+ * <p>
+ * Memory stays at one row however long the length, and instances are immutable, so a later, longer length can continue
+ * from an earlier instance instead of starting over.
+ */
+final class RollingLengthCounts {
+
+    private final FlatAutomaton automaton;
+    private final int length;
+
+    /**
+     * The row of {@link #length}, or {@code null} if {@link #bigRow} is used.
+     */
+    private final long[] longRow;
+
+    /**
+     * The row of {@link #length}, or {@code null} if {@link #longRow} is used.
+     */
+    private final BigInteger[] bigRow;
+
+    /**
+     * The number of strings of at most {@link #length} characters accepted from the initial state.
+     */
+    private final BigInteger countUpTo;
+
+    /**
+     * Starts at length {@code 0}.
+     */
+    RollingLengthCounts(FlatAutomaton automaton) {
+        this(automaton, 0, LengthCounts.acceptRow(automaton), null,
+                automaton.isAccept(FlatAutomaton.INITIAL_STATE) ? BigInteger.ONE : BigInteger.ZERO);
+    }
+
+    private RollingLengthCounts(FlatAutomaton automaton, int length, long[] longRow, BigInteger[] bigRow,
+                                BigInteger countUpTo) {
+        this.automaton = automaton;
+        this.length = length;
+        this.longRow = longRow;
+        this.bigRow = bigRow;
+        this.countUpTo = countUpTo;
+    }
+
+    /**
+     * @return the counts of {@code length}, which must not be lower than {@link #getLength()}.
+     */
+    RollingLengthCounts advanceTo(int length) {
+        long[] longRow = this.longRow;
+        BigInteger[] bigRow = this.bigRow;
+        BigInteger countUpTo = this.countUpTo;
+        // The running total stays a long until it can't, like the rows.
+        long longCountUpTo = countUpTo.bitLength() < Long.SIZE - 1 ? countUpTo.longValue() : -1;
+
+        for (int current = this.length; current < length; current++) {
+            if (longRow != null) {
+                long[] next = LengthCounts.nextLongRow(automaton, longRow);
+                if (next == null) {
+                    bigRow = LengthCounts.nextBigRow(automaton, LengthCounts.toBigRow(longRow));
+                }
+                longRow = next;
+            } else {
+                bigRow = LengthCounts.nextBigRow(automaton, bigRow);
+            }
+
+            if (longRow != null && longCountUpTo >= 0) {
+                long sum = longCountUpTo + longRow[FlatAutomaton.INITIAL_STATE];
+                if (sum >= 0) {
+                    longCountUpTo = sum;
+                    continue;
+                }
+            }
+            if (longCountUpTo >= 0) {
+                countUpTo = BigInteger.valueOf(longCountUpTo);
+                longCountUpTo = -1;
+            }
+            countUpTo = countUpTo.add(initialCount(longRow, bigRow));
+        }
+        if (longCountUpTo >= 0) countUpTo = BigInteger.valueOf(longCountUpTo);
+        return new RollingLengthCounts(automaton, length, longRow, bigRow, countUpTo);
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the number of strings of exactly {@link #getLength()} characters.
+     */
+    BigInteger getCount() {
+        return initialCount(longRow, bigRow);
+    }
+
+    /**
+     * @return the number of strings of at most {@link #getLength()} characters.
+     */
+    BigInteger getCountUpTo() {
+        return countUpTo;
+    }
+
+    private static BigInteger initialCount(long[] longRow, BigInteger[] bigRow) {
+        return longRow != null
+                ? BigInteger.valueOf(longRow[FlatAutomaton.INITIAL_STATE])
+                : bigRow[FlatAutomaton.INITIAL_STATE];
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose draws are a pure function of a seed and the index of the sample being generated, so that
+ * sample {@code i} comes out the same whichever thread generates it and whatever was generated before.
+ * <p>
+ * Each sample starts the SplitMix64 generator, the one {@link java.util.SplittableRandom} uses, at a state hashed from
+ * the seed and the index, and then steps it with a constant increment. Unlike {@code Random}, nothing is shared
+ * between threads and there is no atomic update on every draw: each thread resets its own instance before each sample.
+ * Instances are therefore not thread-safe.
+ */
+final class SplitMixRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    SplitMixRandom() {
+        super(0);
+    }
+
+    /**
+     * Starts the draws of sample {@code index} of the stream identified by {@code seed}.
+     */
+    void reset(long seed, long index) {
+        state = mix(mix(seed) + index);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        reset(seed, 0);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (Long.SIZE - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) nextLong();
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The SplitMix64 finalizer: a cheap bijective mix of all 64 bits.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
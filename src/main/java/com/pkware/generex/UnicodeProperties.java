@@ -0,0 +1,455 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * The code points of the Unicode properties {@code \p{...}} can name, with the same names and meanings as in
+ * {@link java.util.regex.Pattern}: general categories like {@code L} or {@code IsLu}, scripts like {@code IsLatin} or
+ * {@code script=Greek}, blocks like {@code InCyrillic} or {@code block=Arrows}, binary properties like
+ * {@code IsAlphabetic}, the ASCII-only POSIX classes like {@code Alpha}, and the {@code java...} classes like
+ * {@code javaLowerCase}.
+ * <p>
+ * A property is looked up by testing every code point once, against the character data of the running JVM, and the
+ * result is kept for every later pattern that names it.
+ */
+final class UnicodeProperties {
+
+    /**
+     * The two-letter names of the general categories, indexed by their {@link Character#getType(int)} value.
+     */
+    private static final String[] CATEGORY_NAMES = {
+        "Cn", "Lu", "Ll", "Lt", "Lm", "Lo", "Mn", "Me", "Mc", "Nd", "Nl", "No", "Zs", "Zl", "Zp", "Cc", "Cf", null,
+        "Co", "Cs", "Pd", "Ps", "Pe", "Pc", "Po", "Sm", "Sc", "Sk", "So", "Pi", "Pf"
+    };
+
+    /**
+     * The general categories, and the groups of them like {@code L}, as masks of {@link Character#getType(int)} bits.
+     */
+    private static final Map<String, Integer> CATEGORIES = new HashMap<String, Integer>();
+
+    private static final Map<String, CodePointSet> POSIX = new HashMap<String, CodePointSet>();
+
+    static {
+        for (int type = 0; type < CATEGORY_NAMES.length; type++) {
+            String name = CATEGORY_NAMES[type];
+            if (name == null) continue;
+            CATEGORIES.put(name, 1 << type);
+            String group = name.substring(0, 1);
+            Integer mask = CATEGORIES.get(group);
+            CATEGORIES.put(group, (mask == null ? 0 : mask) | 1 << type);
+        }
+        CATEGORIES.put("LC", 1 << Character.UPPERCASE_LETTER | 1 << Character.LOWERCASE_LETTER
+                | 1 << Character.TITLECASE_LETTER);
+        CATEGORIES.put("LD", CATEGORIES.get("L") | 1 << Character.DECIMAL_DIGIT_NUMBER);
+
+        POSIX.put("Lower", CodePointSet.of('a', 'z'));
+        POSIX.put("Upper", CodePointSet.of('A', 'Z'));
+        POSIX.put("ASCII", CodePointSet.of(0, 0x7F));
+        POSIX.put("Alpha", CodePointSet.of('a', 'z', 'A', 'Z'));
+        POSIX.put("Digit", CodePointSet.of('0', '9'));
+        POSIX.put("Alnum", CodePointSet.of('a', 'z', 'A', 'Z', '0', '9'));
+        POSIX.put("Punct", CodePointSet.of('!', '/', ':', '@', '[', '`', '{', '~'));
+        POSIX.put("Graph", CodePointSet.of('!', '~'));
+        POSIX.put("Print", CodePointSet.of(' ', '~'));
+        POSIX.put("Blank", CodePointSet.of(' ', ' ', '\t', '\t'));
+        POSIX.put("Cntrl", CodePointSet.of(0, 0x1F, 0x7F, 0x7F));
+        POSIX.put("XDigit", CodePointSet.of('0', '9', 'a', 'f', 'A', 'F'));
+        POSIX.put("Space", CodePointSet.of('\t', '\r', ' ', ' '));
+        POSIX.put("L1", CodePointSet.of(0, 0xFF));
+        POSIX.put("all", CodePointSet.of(0, Character.MAX_CODE_POINT));
+    }
+
+    /**
+     * The categories {@link #printable()} keeps: letters, marks, numbers, punctuation, symbols and spaces.
+     */
+    private static final int PRINTABLE_CATEGORIES = CATEGORIES.get("L") | CATEGORIES.get("M") | CATEGORIES.get("N")
+            | CATEGORIES.get("P") | CATEGORIES.get("S") | CATEGORIES.get("Zs");
+
+    private static final Map<String, CodePointSet> CACHE = new ConcurrentHashMap<String, CodePointSet>();
+
+    private UnicodeProperties() {
+    }
+
+    /**
+     * @param name the name of a property, as written between the braces of {@code \p{...}}
+     * @return the code points that have the property, or {@code null} if there is no property by that name
+     */
+    static CodePointSet forName(String name) {
+        CodePointSet set = CACHE.get(name);
+        if (set == null) {
+            set = lookUp(name);
+            if (set != null) CACHE.put(name, set);
+        }
+        return set;
+    }
+
+    /**
+     * @return the code points that are assigned a visible glyph or are a space: every category but separators other
+     * than spaces, controls, format characters, surrogates, private use characters and unassigned code points
+     */
+    static CodePointSet printable() {
+        return Printable.SET;
+    }
+
+    private static CodePointSet lookUp(String name) {
+        int equals = name.indexOf('=');
+        if (equals >= 0) {
+            String key = name.substring(0, equals);
+            String value = name.substring(equals + 1);
+            if (key.equals("script") || key.equals("sc")) return script(value);
+            if (key.equals("block") || key.equals("blk")) return block(value);
+            if (key.equals("general_category") || key.equals("gc")) return named(value);
+            return null;
+        }
+        if (name.startsWith("In")) return block(name.substring(2));
+        if (name.startsWith("Is")) {
+            String property = name.substring(2);
+            CodePointSet set = binary(property);
+            if (set == null) set = named(property);
+            return set != null ? set : script(property);
+        }
+        return named(name);
+    }
+
+    /**
+     * @return a general category, a POSIX class or a {@code java...} class
+     */
+    private static CodePointSet named(String name) {
+        Integer mask = CATEGORIES.get(name);
+        if (mask != null) return CodePointSet.matching(new CategoryPredicate(mask));
+        CodePointSet posix = POSIX.get(name);
+        if (posix != null) return posix;
+        for (JavaProperty property : JavaProperty.values()) {
+            if (property.name.equals(name)) return CodePointSet.matching(property);
+        }
+        return null;
+    }
+
+    private static CodePointSet script(String name) {
+        final Character.UnicodeScript script;
+        try {
+            script = Character.UnicodeScript.forName(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return CodePointSet.matching(new IntPredicate() {
+            @Override
+            public boolean test(int codePoint) {
+                return Character.UnicodeScript.of(codePoint) == script;
+            }
+        });
+    }
+
+    private static CodePointSet block(String name) {
+        final Character.UnicodeBlock block;
+        try {
+            block = Character.UnicodeBlock.forName(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return CodePointSet.matching(new IntPredicate() {
+            @Override
+            public boolean test(int codePoint) {
+                return Character.UnicodeBlock.of(codePoint) == block;
+            }
+        });
+    }
+
+    private static CodePointSet binary(String name) {
+        String upperCase = name.toUpperCase(Locale.ENGLISH);
+        for (BinaryProperty property : BinaryProperty.values()) {
+            if (property.name().equals(upperCase) || property.name().replace("_", "").equals(upperCase)) {
+                return CodePointSet.matching(property);
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasCategory(int codePoint, int mask) {
+        return (mask >>> Character.getType(codePoint) & 1) != 0;
+    }
+
+    /**
+     * Holds the set of {@link #printable()}, computed on first use by scanning every code point, like the properties
+     * in {@link #CACHE}.
+     */
+    private static final class Printable {
+        static final CodePointSet SET = CodePointSet.matching(new CategoryPredicate(PRINTABLE_CATEGORIES));
+    }
+
+    private static final class CategoryPredicate implements IntPredicate {
+
+        private final int mask;
+
+        CategoryPredicate(int mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean test(int codePoint) {
+            return hasCategory(codePoint, mask);
+        }
+    }
+
+    /**
+     * The binary properties {@code \p{Is...}} can name, matching case-insensitively and with or without underscores.
+     */
+    private enum BinaryProperty implements IntPredicate {
+        ALPHABETIC {
+            @Override
+            public boolean test(int c) {
+                return Character.isAlphabetic(c);
+            }
+        },
+        LETTER {
+            @Override
+            public boolean test(int c) {
+                return Character.isLetter(c);
+            }
+        },
+        IDEOGRAPHIC {
+            @Override
+            public boolean test(int c) {
+                return Character.isIdeographic(c);
+            }
+        },
+        LOWERCASE {
+            @Override
+            public boolean test(int c) {
+                return Character.isLowerCase(c);
+            }
+        },
+        UPPERCASE {
+            @Override
+            public boolean test(int c) {
+                return Character.isUpperCase(c);
+            }
+        },
+        TITLECASE {
+            @Override
+            public boolean test(int c) {
+                return Character.isTitleCase(c);
+            }
+        },
+        WHITE_SPACE {
+            @Override
+            public boolean test(int c) {
+                return hasCategory(c, CATEGORIES.get("Z")) || c >= '\t' && c <= '\r' || c == '\u0085';
+            }
+        },
+        CONTROL {
+            @Override
+            public boolean test(int c) {
+                return Character.getType(c) == Character.CONTROL;
+            }
+        },
+        PUNCTUATION {
+            @Override
+            public boolean test(int c) {
+                return hasCategory(c, CATEGORIES.get("P"));
+            }
+        },
+        HEX_DIGIT {
+            @Override
+            public boolean test(int c) {
+                return Character.isDigit(c) || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F'
+                        || c >= 0xFF21 && c <= 0xFF26 || c >= 0xFF41 && c <= 0xFF46;
+            }
+        },
+        JOIN_CONTROL {
+            @Override
+            public boolean test(int c) {
+                return c == 0x200C || c == 0x200D;
+            }
+        },
+        NONCHARACTER_CODE_POINT {
+            @Override
+            public boolean test(int c) {
+                return (c & 0xFFFE) == 0xFFFE || c >= 0xFDD0 && c <= 0xFDEF;
+            }
+        },
+        ASSIGNED {
+            @Override
+            public boolean test(int c) {
+                return Character.getType(c) != Character.UNASSIGNED;
+            }
+        },
+        DIGIT {
+            @Override
+            public boolean test(int c) {
+                return Character.isDigit(c);
+            }
+        },
+        ALNUM {
+            @Override
+            public boolean test(int c) {
+                return Character.isAlphabetic(c) || Character.isDigit(c);
+            }
+        },
+        BLANK {
+            @Override
+            public boolean test(int c) {
+                return Character.getType(c) == Character.SPACE_SEPARATOR || c == '\t';
+            }
+        },
+        GRAPH {
+            @Override
+            public boolean test(int c) {
+                return !hasCategory(c, CATEGORIES.get("Z") | CATEGORIES.get("Cc") | CATEGORIES.get("Cs")
+                        | CATEGORIES.get("Cn"));
+            }
+        },
+        PRINT {
+            @Override
+            public boolean test(int c) {
+                return (GRAPH.test(c) || BLANK.test(c)) && !CONTROL.test(c);
+            }
+        },
+        WORD {
+            @Override
+            public boolean test(int c) {
+                return Character.isAlphabetic(c) || hasCategory(c, CATEGORIES.get("M") | CATEGORIES.get("Nd")
+                        | CATEGORIES.get("Pc")) || JOIN_CONTROL.test(c);
+            }
+        }
+    }
+
+    /**
+     * The {@code \p{java...}} classes, which match what the {@link Character} method of the same name accepts.
+     */
+    private enum JavaProperty implements IntPredicate {
+        LOWER_CASE("javaLowerCase") {
+            @Override
+            public boolean test(int c) {
+                return Character.isLowerCase(c);
+            }
+        },
+        UPPER_CASE("javaUpperCase") {
+            @Override
+            public boolean test(int c) {
+                return Character.isUpperCase(c);
+            }
+        },
+        TITLE_CASE("javaTitleCase") {
+            @Override
+            public boolean test(int c) {
+                return Character.isTitleCase(c);
+            }
+        },
+        ALPHABETIC("javaAlphabetic") {
+            @Override
+            public boolean test(int c) {
+                return Character.isAlphabetic(c);
+            }
+        },
+        IDEOGRAPHIC("javaIdeographic") {
+            @Override
+            public boolean test(int c) {
+                return Character.isIdeographic(c);
+            }
+        },
+        DIGIT("javaDigit") {
+            @Override
+            public boolean test(int c) {
+                return Character.isDigit(c);
+            }
+        },
+        DEFINED("javaDefined") {
+            @Override
+            public boolean test(int c) {
+                return Character.isDefined(c);
+            }
+        },
+        LETTER("javaLetter") {
+            @Override
+            public boolean test(int c) {
+                return Character.isLetter(c);
+            }
+        },
+        LETTER_OR_DIGIT("javaLetterOrDigit") {
+            @Override
+            public boolean test(int c) {
+                return Character.isLetterOrDigit(c);
+            }
+        },
+        JAVA_IDENTIFIER_START("javaJavaIdentifierStart") {
+            @Override
+            public boolean test(int c) {
+                return Character.isJavaIdentifierStart(c);
+            }
+        },
+        JAVA_IDENTIFIER_PART("javaJavaIdentifierPart") {
+            @Override
+            public boolean test(int c) {
+                return Character.isJavaIdentifierPart(c);
+            }
+        },
+        UNICODE_IDENTIFIER_START("javaUnicodeIdentifierStart") {
+            @Override
+            public boolean test(int c) {
+                return Character.isUnicodeIdentifierStart(c);
+            }
+        },
+        UNICODE_IDENTIFIER_PART("javaUnicodeIdentifierPart") {
+            @Override
+            public boolean test(int c) {
+                return Character.isUnicodeIdentifierPart(c);
+            }
+        },
+        IDENTIFIER_IGNORABLE("javaIdentifierIgnorable") {
+            @Override
+            public boolean test(int c) {
+                return Character.isIdentifierIgnorable(c);
+            }
+        },
+        SPACE_CHAR("javaSpaceChar") {
+            @Override
+            public boolean test(int c) {
+                return Character.isSpaceChar(c);
+            }
+        },
+        WHITESPACE("javaWhitespace") {
+            @Override
+            public boolean test(int c) {
+                return Character.isWhitespace(c);
+            }
+        },
+        ISO_CONTROL("javaISOControl") {
+            @Override
+            public boolean test(int c) {
+                return Character.isISOControl(c);
+            }
+        },
+        MIRRORED("javaMirrored") {
+            @Override
+            public boolean test(int c) {
+                return Character.isMirrored(c);
+            }
+        };
+
+        private final String name;
+
+        JavaProperty(String name) {
+            this.name = name;
+        }
+    }
+}
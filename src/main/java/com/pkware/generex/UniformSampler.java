@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 PKWARE, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pkware.generex;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Draws strings uniformly from the strings an automaton accepts within a length range.
+ * <p>
+ * A sample is a single uniform draw of a position among all candidate strings, which is then turned into its string
+ * by walking the automaton once: at every step the transitions are skipped over by the number of strings they lead
+ * to, as given by {@link LengthCounts}. There is no rejection and no backtracking, so a sample of length {@code n}
+ * costs {@code O(n)} steps and always matches.
+ */
+final class UniformSampler {
+
+    private final FlatAutomaton automaton;
+    private final LengthCounts counts;
+
+    /**
+     * @param counts counts of {@code automaton} covering every length that will be sampled. Lengths beyond the table
+     *               are assumed to have no accepted strings.
+     */
+    UniformSampler(FlatAutomaton automaton, LengthCounts counts) {
+        this.automaton = automaton;
+        this.counts = counts;
+    }
+
+    /**
+     * Returns a string drawn uniformly from every accepted string with a length in {@code [minLength, maxLength]}.
+     *
+     * @throws IllegalArgumentException if no accepted string has a length in the range
+     */
+    String sample(Random random, int minLength, int maxLength) {
+        int lastLength = Math.min(maxLength, counts.getMaxLength());
+        long total = 0;
+        for (int length = minLength; length <= lastLength && total >= 0; length++) {
+            total = addCount(total, length);
+        }
+
+        if (total > 0) {
+            long rank = RandomNumbers.nextLong(random, total);
+            int length = minLength;
+            for (long count; rank >= (count = counts.getLongCount(length, FlatAutomaton.INITIAL_STATE)); length++) {
+                rank -= count;
+            }
+            return unrank(length, rank);
+        }
+        if (total == 0) throw noMatchInRange(minLength, maxLength);
+
+        BigInteger bigTotal = BigInteger.ZERO;
+        for (int length = minLength; length <= lastLength; length++) {
+            bigTotal = bigTotal.add(counts.getCount(length, FlatAutomaton.INITIAL_STATE));
+        }
+        BigInteger rank = RandomNumbers.nextBigInteger(random, bigTotal);
+        int length = minLength;
+        for (BigInteger count; rank.compareTo(count = counts.getCount(length, FlatAutomaton.INITIAL_STATE)) >= 0; length++) {
+            rank = rank.subtract(count);
+        }
+        return unrank(length, rank);
+    }
+
+    /**
+     * Returns a string whose length is drawn uniformly from the lengths in {@code [minLength, maxLength]} that have at
+     * least one accepted string, and which is then drawn uniformly from the accepted strings of that length.
+     *
+     * @throws IllegalArgumentException if no accepted string has a length in the range
+     */
+    String samplePerLength(Random random, int minLength, int maxLength) {
+        int lastLength = Math.min(maxLength, counts.getMaxLength());
+        int viableLengths = 0;
+        for (int length = minLength; length <= lastLength; length++) {
+            if (counts.getCount(length, FlatAutomaton.INITIAL_STATE).signum() != 0) viableLengths++;
+        }
+        if (viableLengths == 0) throw noMatchInRange(minLength, maxLength);
+
+        int remaining = random.nextInt(viableLengths);
+        int length = minLength;
+        while (counts.getCount(length, FlatAutomaton.INITIAL_STATE).signum() == 0 || remaining-- > 0) {
+            length++;
+        }
+
+        BigInteger count = counts.getCount(length, FlatAutomaton.INITIAL_STATE);
+        if (count.bitLength() < Long.SIZE) {
+            return unrank(length, RandomNumbers.nextLong(random, count.longValue()));
+        }
+        return unrank(length, RandomNumbers.nextBigInteger(random, count));
+    }
+
+    /**
+     * @return {@code total} plus the count of {@code length}, or {@code -1} if the sum doesn't fit in a {@code long}.
+     */
+    private long addCount(long total, int length) {
+        BigInteger count = counts.getCount(length, FlatAutomaton.INITIAL_STATE);
+        if (count.bitLength() >= Long.SIZE) return -1;
+        long sum = total + count.longValue();
+        return sum < 0 ? -1 : sum;
+    }
+
+    /**
+     * @return the accepted string of exactly {@code length} characters at position {@code rank} in lexicographical
+     * order, using {@code long} arithmetic. {@code rank} must be below the count of {@code length}, which must fit in
+     * a {@code long}; every count visited on the way is bounded by it.
+     */
+    String unrank(int length, long rank) {
+        char[] chars = new char[length];
+        int state = FlatAutomaton.INITIAL_STATE;
+        for (int position = 0; position < length; position++) {
+            int remaining = length - position - 1;
+            for (int t = automaton.getTransitionStart(state); ; t++) {
+                long destCount = counts.getLongCount(remaining, automaton.getDest(t));
+                if (destCount == 0) continue;
+
+                long block = destCount * automaton.getWidth(t);
+                if (rank < block) {
+                    chars[position] = (char) (automaton.getMin(t) + rank / destCount);
+                    rank %= destCount;
+                    state = automaton.getDest(t);
+                    break;
+                }
+                rank -= block;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Same as {@link #unrank(int, long)} for counts that need arbitrary precision.
+     */
+    String unrank(int length, BigInteger rank) {
+        char[] chars = new char[length];
+        int state = FlatAutomaton.INITIAL_STATE;
+        for (int position = 0; position < length; position++) {
+            int remaining = length - position - 1;
+            for (int t = automaton.getTransitionStart(state); ; t++) {
+                BigInteger destCount = counts.getCount(remaining, automaton.getDest(t));
+                if (destCount.signum() == 0) continue;
+
+                BigInteger block = destCount.multiply(BigInteger.valueOf(automaton.getWidth(t)));
+                if (rank.compareTo(block) < 0) {
+                    BigInteger[] offsetAndRank = rank.divideAndRemainder(destCount);
+                    chars[position] = (char) (automaton.getMin(t) + offsetAndRank[0].intValue());
+                    rank = offsetAndRank[1];
+                    state = automaton.getDest(t);
+                    break;
+                }
+                rank = rank.subtract(block);
+            }
+        }
+        return new String(chars);
+    }
+
+    private static IllegalArgumentException noMatchInRange(int minLength, int maxLength) {
+        return new IllegalArgumentException(
+                "The pattern matches no string with a length between " + minLength + " and " + maxLength + "."
+        );
+    }
+}
@@ -109,6 +109,22 @@ public class GenerexIteratorUnitTest {
         assertThat(followingNext).isEqualTo("b");
     }
 
+    @Test
+    public void shouldSkipBranchesThatCannotReachAnAcceptedState() {
+
+        State initialState = new State();
+        State acceptedState = new State();
+        State deadState = new State();
+        acceptedState.setAccept(true);
+        initialState.addTransition(new Transition('a', deadState));
+        initialState.addTransition(new Transition('b', acceptedState));
+        deadState.addTransition(new Transition('a', deadState));
+        GenerexIterator iterator = new GenerexIterator(initialState);
+
+        assertThat(iterator.next()).isEqualTo("b");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
     @Test
     public void shouldReturnFalseIfNoNextEvenIfHasNextIsCalledMultipleTimes() {
 
@@ -0,0 +1,72 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+import java.util.stream.Collectors
+
+class BatchRandomTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-z]{3,10}\\@(foo|bar)\\.com", "[0-9]+(\\.[0-9]+)?", "[a-f]+-[0-9]{2}"])
+    fun `batch strings match the pattern and the bounds`(regex: String) {
+        val batch = Generex(regex).randomBatch(1_000, 5, 30)
+
+        assertThat(batch).hasSize(1_000)
+        for (result in batch) {
+            assertThat(result).matches(regex)
+            assertThat(result.length).isIn(5..30)
+        }
+    }
+
+    @Test
+    fun `batch is reproducible with a seed`() {
+        val first = Generex("[A-Z]{1,10}", Random(7)).randomBatch(100, 1, 10)
+        val second = Generex("[A-Z]{1,10}", Random(7)).randomBatch(100, 1, 10)
+
+        assertThat(first).isEqualTo(second)
+        assertThat(first.toSet().size).isGreaterThan(90)
+    }
+
+    @Test
+    fun `batch lengths are spread like single calls`() {
+        val lengths = Generex("[a-z]+", Random(3)).randomBatch(100_000, 1, 10).groupingBy { it.length }.eachCount()
+
+        assertThat(lengths.keys).containsExactlyElementsIn(1..10)
+        assertThat(1.0 * lengths.values.max() / lengths.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `characters are spread evenly across ranges of a class`() {
+        val counts = Generex("[a-ce-gi-km-o]", Random(5)).randomBatch(120_000, 1, 1).groupingBy { it }.eachCount()
+
+        assertThat(counts.keys).containsExactly("a", "b", "c", "e", "f", "g", "i", "j", "k", "m", "n", "o")
+        assertThat(1.0 * counts.values.max() / counts.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `fill stores into every element`() {
+        val out = arrayOfNulls<String>(50)
+
+        Generex("[0-9]{4}").fill(out, 1, 4)
+
+        assertThat(out.toList()).doesNotContain(null)
+        for (result in out) assertThat(result).matches("[0-9]{4}")
+    }
+
+    @Test
+    fun `random stream generates on demand`() {
+        val results = Generex("x[a-c]{2}y").randomStream(4, 4).limit(20).collect(Collectors.toList())
+
+        assertThat(results).hasSize(20)
+        for (result in results) assertThat(result).matches("x[a-c]{2}y")
+    }
+
+    @Test
+    fun `rejects a negative count`() {
+        assertThrows(IllegalArgumentException::class.java) { Generex("a").randomBatch(-1, 1, 1) }
+    }
+}
@@ -0,0 +1,68 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import java.util.Random
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+
+class CompiledGenerexTests {
+
+    @Test
+    fun `many threads can sample from one compiled pattern`() {
+        val regex = "[a-z]{3,10}\\@(foo|bar)\\.com"
+        val compiled = CompiledGenerex(regex)
+        val executor = Executors.newFixedThreadPool(8)
+
+        try {
+            val tasks = List(8) {
+                Callable {
+                    List(1_000) { compiled.random(ThreadLocalRandom.current(), 5, 20) }
+                }
+            }
+            for (future in executor.invokeAll(tasks)) {
+                for (result in future.get()) {
+                    assertThat(result).matches(regex)
+                }
+            }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `instances sharing a compiled pattern keep independent randoms`() {
+        val compiled = CompiledGenerex("[A-Z]{1,10}")
+        val first = Generex(compiled, Random(7))
+        val second = Generex(compiled, Random(7))
+
+        first.random()
+        first.random()
+        val third = Generex(compiled, Random(7))
+
+        assertThat(second.random()).isEqualTo(third.random())
+        assertThat(first.compiled).isSameInstanceAs(second.compiled)
+    }
+
+    @Test
+    fun `length bounds are exposed`() {
+        assertThat(CompiledGenerex("a{2,5}").minLength).isEqualTo(2)
+        assertThat(CompiledGenerex("a{2,5}").maxLength).isEqualTo(5)
+        assertThat(CompiledGenerex("ab+").maxLength).isEqualTo(Int.MAX_VALUE)
+        assertThat(CompiledGenerex("ab+").isInfinite).isTrue()
+    }
+
+    @Test
+    fun `matches the random output of Generex for the same seed`() {
+        val regex = "[0-9]{2,6}[a-f]*"
+
+        val generex = Generex(regex, Random(11))
+        val compiled = CompiledGenerex(regex)
+        val random = Random(11)
+
+        repeat(20) {
+            assertThat(compiled.random(random, 3, 12)).isEqualTo(generex.random(3, 12))
+        }
+    }
+}
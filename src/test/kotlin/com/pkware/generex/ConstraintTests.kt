@@ -0,0 +1,85 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.io.ByteArrayOutputStream
+import java.math.BigInteger
+import java.nio.ByteBuffer
+import java.util.Random
+
+class ConstraintTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["", "a", "ab", "bx", "abcx", "q"])
+    fun `prefix constraints keep exactly the matching strings`(prefix: String) {
+        val generex = Generex("[a-c]{0,3}(x|yz)?")
+        val expected = generex.getAllMatchedStrings().filter { it.startsWith(prefix) }
+
+        assertThat(generex.withPrefix(prefix).getAllMatchedStrings()).isEqualTo(expected)
+        assertThat(generex.iteratorWithPrefix(prefix).asSequence().toList()).isEqualTo(expected)
+    }
+
+    @Test
+    fun `suffix and infix constraints keep exactly the matching strings`() {
+        val generex = Generex("(alpha|beta|gamma)(-[1-3]){0,2}")
+        val all = generex.getAllMatchedStrings()
+
+        assertThat(generex.withSuffix("-2").getAllMatchedStrings()).isEqualTo(all.filter { it.endsWith("-2") })
+        assertThat(generex.containing("a-3").getAllMatchedStrings()).isEqualTo(all.filter { it.contains("a-3") })
+    }
+
+    @Test
+    fun `rare prefixes are sampled without rejection`() {
+        val generex = Generex("[a-z]{8}", Random(1)).withPrefix("zzzzzzz")
+
+        assertThat(generex.matchedStringsCount()).isEqualTo(BigInteger.valueOf(26))
+        repeat(100) { assertThat(generex.random()).matches("zzzzzzz[a-z]") }
+    }
+
+    @Test
+    fun `infinite patterns can be constrained`() {
+        val generex = Generex("[a-z]+\\@[a-z]+\\.(com|org)", Random(2))
+        val tenant = generex.withPrefix("acme").withSuffix(".org")
+
+        assertThat(tenant.isInfinite).isTrue()
+        repeat(100) {
+            val result = tenant.random(10, 30)
+            assertThat(result).matches("acme[a-z]*@[a-z]+\\.org")
+            assertThat(result.length).isIn(10..30)
+        }
+        for (result in generex.iteratorWithPrefix("zz@").asSequence().take(50)) assertThat(result).startsWith("zz@")
+    }
+
+    @Test
+    fun `intersections match both patterns`() {
+        val first = Generex("[a-f0-9]{2,4}")
+        val second = Generex("[0-9]{1,5}|[a-z]{3}")
+        val both = first.intersect(second)
+
+        assertThat(both.getAllMatchedStrings().toSet())
+            .isEqualTo(first.getAllMatchedStrings().toSet().intersect(second.getAllMatchedStrings().toSet()))
+        assertThat(both.getAllMatchedStrings()).isInOrder()
+    }
+
+    @Test
+    fun `disjoint constraints match nothing`() {
+        val none = Generex("[a-c]{2}").withPrefix("d")
+
+        assertThat(none.matchedStringsCount()).isEqualTo(BigInteger.ZERO)
+        assertThat(none.getAllMatchedStrings()).isEmpty()
+        assertThat(Generex("[a-c]{2}").iteratorWithPrefix("d").hasNext()).isFalse()
+    }
+
+    @Test
+    fun `patterns read back from their binary form can be constrained`() {
+        val out = ByteArrayOutputStream()
+        CompiledGenerex("[0-9]{3}-[0-9]{4}").writeTo(out)
+        val read = CompiledGenerex.readFrom(ByteBuffer.wrap(out.toByteArray()))
+
+        assertThat(read.withPrefix("555-01").matchedStringsCount()).isEqualTo(BigInteger.valueOf(100))
+        assertThat(read.intersect(CompiledGenerex("[0-9]{3}-0000")).matchedStringsCount())
+            .isEqualTo(BigInteger.valueOf(1000))
+    }
+}
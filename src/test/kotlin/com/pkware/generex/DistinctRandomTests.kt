@@ -0,0 +1,68 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+
+class DistinctRandomTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-c]{1,3}", "x", "(a|b|c)?", "[0-9]{4}", "(alpha|beta|gamma)(-[1-3]){0,2}"])
+    fun `shuffled iterator returns every match once`(regex: String) {
+        val generex = Generex(regex, Random(1))
+        val shuffled = generex.shuffledIterator().asSequence().toList()
+
+        assertThat(shuffled).containsExactlyElementsIn(generex.getAllMatchedStrings())
+    }
+
+    @Test
+    fun `shuffled order is not the sorted order`() {
+        val generex = Generex("[0-9]{4}", Random(2))
+
+        assertThat(generex.shuffledIterator().asSequence().toList()).isNotEqualTo(generex.getAllMatchedStrings())
+    }
+
+    @Test
+    fun `shuffled order is reproducible with a seed`() {
+        val first = Generex("[a-z]{3}", Random(3)).shuffledIterator().asSequence().take(100).toList()
+        val second = Generex("[a-z]{3}", Random(3)).shuffledIterator().asSequence().take(100).toList()
+
+        assertThat(first).isEqualTo(second)
+    }
+
+    @Test
+    fun `every string is equally likely to come first`() {
+        val generex = Generex("[a-d]", Random(4))
+        val firsts = HashMap<String, Int>()
+
+        repeat(20_000) {
+            val first = generex.shuffledIterator().next()
+            firsts[first] = firsts.getOrDefault(first, 0) + 1
+        }
+
+        assertThat(firsts.keys).containsExactly("a", "b", "c", "d")
+        assertThat(1.0 * firsts.values.max() / firsts.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `draws distinct strings from languages larger than a long`() {
+        val regex = "[a-z]{20,30}"
+        val results = Generex(regex).distinctRandom(1_000)
+
+        assertThat(results.toSet()).hasSize(1_000)
+        for (result in results) assertThat(result).matches(regex)
+    }
+
+    @Test
+    fun `draws the whole language`() {
+        val generex = Generex("[a-c]{2}")
+
+        assertThat(generex.distinctRandom(9)).containsExactlyElementsIn(generex.getAllMatchedStrings())
+        assertThrows(IllegalArgumentException::class.java) { generex.distinctRandom(10) }
+        assertThrows(IllegalArgumentException::class.java) { generex.distinctRandom(-1) }
+        assertThrows(IllegalStateException::class.java) { Generex("a+").distinctRandom(1) }
+    }
+}
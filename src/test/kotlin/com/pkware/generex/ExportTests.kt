@@ -0,0 +1,113 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+
+class ExportTests {
+
+    @TempDir
+    lateinit var directory: Path
+
+    @Test
+    fun `concatenated export holds every match in order`() {
+        val generex = Generex("[a-c]{0,3}(x|yz)?")
+        val file = directory.resolve("out.txt")
+        val options = ExportOptions.builder().threads(3).shards(7).bufferSize(64).build()
+
+        assertThat(generex.exportTo(file, options)).isEqualTo(generex.matchedStringsSize())
+        assertThat(String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+            .isEqualTo(generex.getAllMatchedStrings().joinToString("") { it + "\n" })
+        assertThat(Files.list(directory).count()).isEqualTo(1)
+    }
+
+    @Test
+    fun `shard files concatenate to the whole language`() {
+        val generex = Generex("[0-9]{4}")
+        val shardDirectory = directory.resolve("shards")
+        val options = ExportOptions.builder().shards(5).layout(ExportOptions.Layout.SHARD_FILES).build()
+
+        generex.exportTo(shardDirectory, options)
+
+        val files = Files.list(shardDirectory).sorted().toArray().map { it as Path }
+        assertThat(files.map { it.fileName.toString() })
+            .containsExactly("part-00000", "part-00001", "part-00002", "part-00003", "part-00004").inOrder()
+        val lines = files.flatMap { Files.readAllLines(it) }
+        assertThat(lines).isEqualTo(generex.getAllMatchedStrings())
+    }
+
+    @Test
+    fun `encodes with the given charset and separator`() {
+        val generex = Generex("[é-ë]x?")
+        val file = directory.resolve("out.txt")
+        val options = ExportOptions.builder().charset(StandardCharsets.ISO_8859_1).lineSeparator("\r\n").build()
+
+        generex.exportTo(file, options)
+
+        assertThat(String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1))
+            .isEqualTo("é\r\néx\r\nê\r\nêx\r\në\r\nëx\r\n")
+    }
+
+    @Test
+    fun `fails on characters the charset can't encode unless asked to replace them`() {
+        val generex = Generex("[é-ë]\u2603?")
+        val file = directory.resolve("out.txt")
+        val strict = ExportOptions.builder().charset(StandardCharsets.ISO_8859_1).build()
+        val replacing = ExportOptions.builder().charset(StandardCharsets.ISO_8859_1).replaceUnencodable(true).build()
+
+        val exception = assertThrows(IOException::class.java) { generex.exportTo(file, strict) }
+        assertThat(exception).hasMessageThat().contains("\u2603")
+        val separator = ExportOptions.builder().charset(StandardCharsets.US_ASCII).lineSeparator("\u2028").build()
+        assertThrows(IllegalArgumentException::class.java) { generex.exportTo(file, separator) }
+
+        generex.exportTo(file, replacing)
+
+        assertThat(String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1))
+            .isEqualTo("é\né?\nê\nê?\në\në?\n")
+    }
+
+    @Test
+    fun `reports progress up to the total`() {
+        val generex = Generex("[a-z]{3}")
+        val highest = AtomicLong()
+        val options = ExportOptions.builder()
+            .bufferSize(256)
+            .progressListener { exported, total ->
+                assertThat(total).isEqualTo(17_576)
+                highest.accumulateAndGet(exported, Math::max)
+            }
+            .build()
+
+        generex.exportTo(directory.resolve("out.txt"), options)
+
+        assertThat(highest.get()).isEqualTo(17_576)
+    }
+
+    @Test
+    fun `leaves a given executor running`() {
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val options = ExportOptions.builder().executor(executor).build()
+            Generex("[a-f]{2}").exportTo(directory.resolve("out.txt"), options)
+
+            assertThat(executor.isShutdown).isFalse()
+            assertThat(Files.readAllLines(directory.resolve("out.txt"))).hasSize(36)
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `rejects infinite patterns and bad options`() {
+        assertThrows(IllegalStateException::class.java) { Generex("a+").exportTo(directory.resolve("out.txt")) }
+        assertThrows(IllegalArgumentException::class.java) { ExportOptions.builder().threads(0) }
+        assertThrows(IllegalArgumentException::class.java) { ExportOptions.builder().bufferSize(10) }
+    }
+}
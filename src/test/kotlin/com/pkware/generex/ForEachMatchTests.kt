@@ -0,0 +1,56 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.nio.CharBuffer
+
+class ForEachMatchTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[0-3]([a-c]|[e-g]{1,2})", "(a|b|c)?", "[A-B]{5,9}", "a{100}|b{1,40}"])
+    fun `visits the same strings as getAllMatchedStrings`(regex: String) {
+        val generex = Generex(regex)
+        val visited = ArrayList<String>()
+
+        generex.forEachMatch { visited.add(it.toString()) }
+
+        assertThat(visited).containsExactlyElementsIn(generex.getAllMatchedStrings()).inOrder()
+    }
+
+    @Test
+    fun `reuses the same buffer`() {
+        var first: CharBuffer? = null
+        var count = 0
+
+        Generex("[a-z]{3}").forEachMatch {
+            if (first == null) first = it
+            assertThat(it).isSameInstanceAs(first)
+            assertThat(it.position()).isEqualTo(0)
+            assertThat(it.remaining()).isEqualTo(3)
+            count++
+        }
+
+        assertThat(count).isEqualTo(26 * 26 * 26)
+    }
+
+    @Test
+    fun `stops at the limit`() {
+        val visited = ArrayList<String>()
+
+        Generex("a+").forEachMatch(3) { visited.add(it.toString()) }
+
+        assertThat(visited).containsExactly("a", "aa", "aaa").inOrder()
+    }
+
+    @Test
+    fun `iterator matches forEachMatch`() {
+        val generex = Generex("[0-9]{2}(x|yz)?")
+        val visited = ArrayList<String>()
+
+        generex.forEachMatch { visited.add(it.toString()) }
+
+        assertThat(generex.toList()).containsExactlyElementsIn(visited).inOrder()
+    }
+}
@@ -0,0 +1,101 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+class GenerexCacheTests {
+
+    @Test
+    fun `repeated lookups of the same pattern hit the cache`() {
+        val cache = GenerexCache(GenerexCache.DEFAULT_MAXIMUM_WEIGHT)
+
+        val first = cache.get("[a-z]{3,5}")
+        val second = cache.get("[a-z]{3,5}")
+
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(cache.missCount).isEqualTo(1)
+        assertThat(cache.hitCount).isEqualTo(1)
+        assertThat(cache.size()).isEqualTo(1)
+    }
+
+    @Test
+    fun `spellings of the same pattern share an entry`() {
+        val cache = GenerexCache(GenerexCache.DEFAULT_MAXIMUM_WEIGHT)
+
+        val first = cache.get("^(?:ab)+$")
+        val second = cache.get("(ab)+")
+
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(cache.size()).isEqualTo(1)
+    }
+
+    @Test
+    fun `least recently used patterns are evicted once the weight is exceeded`() {
+        val patternWeight = GenerexCache(Long.MAX_VALUE).run {
+            get("a{10}")
+            weight
+        }
+        val cache = GenerexCache(patternWeight * 2)
+
+        cache.get("a{10}")
+        cache.get("b{10}")
+        cache.get("a{10}") // b is now the least recently used
+        cache.get("c{10}")
+
+        assertThat(cache.evictionCount).isEqualTo(1)
+        assertThat(cache.weight).isAtMost(cache.maximumWeight)
+        cache.get("a{10}")
+        assertThat(cache.hitCount).isEqualTo(2)
+        cache.get("b{10}")
+        assertThat(cache.missCount).isEqualTo(4)
+    }
+
+    @Test
+    fun `patterns heavier than the maximum weight are not stored`() {
+        val cache = GenerexCache(1)
+
+        assertThat(cache.get("[a-z]{20}")).isNotNull()
+        assertThat(cache.size()).isEqualTo(0)
+        assertThat(cache.weight).isEqualTo(0)
+    }
+
+    @Test
+    fun `invalid patterns are rejected and not cached`() {
+        val cache = GenerexCache(GenerexCache.DEFAULT_MAXIMUM_WEIGHT)
+
+        assertThrows(IllegalArgumentException::class.java) { cache.get("a)") }
+        assertThat(cache.size()).isEqualTo(0)
+    }
+
+    @Test
+    fun `compiled instances keep their own random`() {
+        val seed = 42L
+        val first = Generex.compile("[a-z]{10}", Random(seed))
+        val second = Generex.compile("[a-z]{10}", Random(seed))
+        val unseeded = Generex.compile("[a-z]{10}")
+
+        repeat(10) {
+            assertThat(first.random()).isEqualTo(second.random())
+        }
+        assertThat(unseeded.random()).matches("[a-z]{10}")
+    }
+
+    @Test
+    fun `compiled instances generate the same language as constructed ones`() {
+        val regex = "[0-3]([a-c]|[e-g]{1,2})"
+
+        assertThat(Generex.compile(regex).allMatchedStrings)
+            .containsExactlyElementsIn(Generex(regex).allMatchedStrings)
+    }
+
+    @Test
+    fun `compiled patterns whose deterministic automaton blows up are sampled without building it`() {
+        val regex = "(a|b)*a(a|b){20}"
+        val generex = Generex.compile(regex, Random(3))
+
+        for (result in generex.randomBatch(100, 21, 40)) assertThat(result).matches(regex)
+        assertThat(generex.getCompiled().isCompiled).isFalse()
+    }
+}
@@ -0,0 +1,108 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.Collectors
+
+class IndexedRandomTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-z]{3,10}\\@(foo|bar)\\.com", "[0-9]+(\\.[0-9]+)?", "(a|b)*a(a|b){20}", "\\p{L}{1,5}"])
+    fun `indexed strings match the pattern and the bounds`(regex: String) {
+        val generex = Generex(regex)
+        generex.setSeed(1)
+
+        for (index in 0L until 500L) {
+            val result = generex.randomAt(index, 1, 40)
+            assertThat(result).matches(regex)
+            assertThat(result.length).isIn(1..40)
+        }
+    }
+
+    @Test
+    fun `a sample depends only on the seed and its index`() {
+        val first = Generex("[a-z]{5,15}")
+        first.setSeed(42)
+        val second = Generex("[a-z]{5,15}", Random(9))
+        second.setSeed(42)
+        second.randomBatch(100, 1, 10)
+
+        val forward = (0L until 100L).map { first.randomAt(it, 5, 15) }
+        val backward = (99L downTo 0L).map { second.randomAt(it, 5, 15) }.reversed()
+
+        assertThat(forward).isEqualTo(backward)
+        assertThat(forward.toSet().size).isGreaterThan(95)
+    }
+
+    @Test
+    fun `different seeds give different samples`() {
+        val first = Generex("[a-z]{10}")
+        first.setSeed(1)
+        val second = Generex("[a-z]{10}")
+        second.setSeed(2)
+
+        assertThat((0L until 20L).map { first.randomAt(it) }).containsNoneIn((0L until 20L).map { second.randomAt(it) })
+    }
+
+    @Test
+    fun `parallel stream is the same for any number of threads`() {
+        val generex = Generex("[a-z]{1,8}(-[0-9]{1,3})*")
+        generex.setSeed(7)
+        val sequential = generex.randomStream(0, 10_000, 1, 30).collect(Collectors.toList())
+
+        for (threads in listOf(1, 3, 16)) {
+            val pool = ForkJoinPool(threads)
+            try {
+                val parallel = pool.submit<List<String>> {
+                    generex.randomStream(0, 10_000, 1, 30).parallel().collect(Collectors.toList())
+                }.get()
+                assertThat(parallel).isEqualTo(sequential)
+            } finally {
+                pool.shutdown()
+            }
+        }
+        assertThat(sequential.subList(5, 10)).isEqualTo((5L until 10L).map { generex.randomAt(it, 1, 30) })
+    }
+
+    @Test
+    fun `a shard of the stream matches the same indexes of the whole stream`() {
+        val compiled = CompiledGenerex("[A-Z][a-z]{2,12}")
+        val whole = compiled.randomStream(3, 0, 1_000, 1, 20).collect(Collectors.toList())
+
+        assertThat(compiled.randomStream(3, 400, 600, 1, 20).collect(Collectors.toList()))
+            .isEqualTo(whole.subList(400, 600))
+    }
+
+    @Test
+    fun `characters are spread evenly`() {
+        val counts = CompiledGenerex("[a-ce-gi-km-o]").randomStream(5, 0, 120_000, 1, 1)
+            .collect(Collectors.groupingBy({ it }, Collectors.counting()))
+
+        assertThat(counts.keys).containsExactly("a", "b", "c", "e", "f", "g", "i", "j", "k", "m", "n", "o")
+        assertThat(1.0 * counts.values.max() / counts.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `derived patterns keep the seed`() {
+        val generex = Generex("[a-z]{4}")
+        generex.setSeed(11)
+        val derived = generex.withPrefix("q")
+
+        assertThat((0L until 20L).map { derived.randomAt(it, 1, 4) })
+            .isEqualTo((0L until 20L).map { generex.getCompiled().withPrefix("q").randomAt(11, it, 1, 4) })
+    }
+
+    @Test
+    fun `rejects negative and reversed indexes`() {
+        val generex = Generex("a")
+
+        assertThrows(IllegalArgumentException::class.java) { generex.randomAt(-1L) }
+        assertThrows(IllegalArgumentException::class.java) { generex.randomStream(-1, 1, 1, 1) }
+        assertThrows(IllegalArgumentException::class.java) { generex.randomStream(2, 1, 1, 1) }
+    }
+}
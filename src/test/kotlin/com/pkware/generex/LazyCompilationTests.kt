@@ -0,0 +1,67 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class LazyCompilationTests {
+
+    @Test
+    fun `construction does not build the automaton`() {
+        val compiled = CompiledGenerex("[a-z]{1,20}@(foo|bar)\\.com")
+
+        assertThat(compiled.isCompiled).isFalse()
+        compiled.isInfinite
+        assertThat(compiled.isCompiled).isTrue()
+    }
+
+    @Test
+    fun `prepare builds the automaton once`() {
+        val generex = Generex("[0-9]{3}-[0-9]{4}")
+
+        assertThat(generex.prepare()).isSameInstanceAs(generex)
+        val automaton = generex.compiled.automaton
+        generex.prepare()
+        assertThat(generex.compiled.automaton).isSameInstanceAs(automaton)
+    }
+
+    @Test
+    fun `threads share a single automaton`() {
+        val compiled = CompiledGenerex("(a|b|c){2,8}x")
+        val pool = Executors.newFixedThreadPool(8)
+        try {
+            val automatons = pool.invokeAll(List(8) { Callable { compiled.prepare().automaton } }).map { it.get() }
+
+            assertThat(automatons.toSet()).hasSize(1)
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun `invalid patterns still fail at construction`() {
+        assertThrows(IllegalArgumentException::class.java) { CompiledGenerex("a{") }
+        assertThrows(IllegalArgumentException::class.java) { CompiledGenerex("(a", false) }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-c]{0,3}(x|yz)?", "(ab|a)(bc|c)", "(alpha|beta|gamma)(-[1-3]){0,2}", "a*b?a*"])
+    fun `skipping minimization matches the same strings`(regex: String) {
+        val minimized = Generex(regex)
+        val unminimized = Generex(CompiledGenerex(regex, false))
+
+        if (minimized.isInfinite) {
+            assertThat(unminimized.isInfinite).isTrue()
+            assertThat(unminimized.getMatchedStrings(500)).isEqualTo(minimized.getMatchedStrings(500))
+        } else {
+            assertThat(unminimized.matchedStringsCount()).isEqualTo(minimized.matchedStringsCount())
+            assertThat(unminimized.getAllMatchedStrings()).isEqualTo(minimized.getAllMatchedStrings())
+        }
+        for (length in 0..6) assertThat(unminimized.countOfLength(length)).isEqualTo(minimized.countOfLength(length))
+        repeat(100) { assertThat(unminimized.random(0, 10)).matches(regex) }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+
+class LengthAwareRandomTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["(ab|cd)*e", "(a|b{5}|c{7})+x", "((ab)+|(cde)+)f", "[0-9]+(\\.[0-9]{3})*"])
+    fun `every string matches when the pattern has a length in range`(regex: String) {
+        val generex = Generex(regex, Random(1))
+
+        repeat(2_000) {
+            val result = generex.random(1, 30)
+            assertThat(result).matches(regex)
+            assertThat(result.length).isIn(1..30)
+        }
+    }
+
+    @Test
+    fun `tight bounds only produce the lengths the pattern has`() {
+        val generex = Generex("(ab)+", Random(2))
+
+        repeat(100) { assertThat(generex.random(5, 6)).hasLength(6) }
+        repeat(100) { assertThat(Generex("a|aaa").random(2, 3)).isEqualTo("aaa") }
+    }
+
+    @Test
+    fun `target lengths are drawn from the lengths the pattern has`() {
+        val lengths = Generex("(ab|cde)+", Random(3)).randomBatch(50_000, 1, 12).groupingBy { it.length }.eachCount()
+
+        assertThat(lengths.keys).containsExactlyElementsIn(2..12)
+        assertThat(1.0 * lengths.values.max() / lengths.values.min()).isLessThan(1.2)
+    }
+
+    @Test
+    fun `long strings that end in a fixed suffix`() {
+        val result = Generex("(ab|[0-9]c)+d", Random(4)).random(100_000, 100_001)
+
+        assertThat(result).hasLength(100_001)
+        assertThat(result).endsWith("d")
+        // java.util.regex recurses per repetition of a group, so check the repetitions one at a time.
+        for (group in result.dropLast(1).chunked(2)) assertThat(group).matches("ab|[0-9]c")
+    }
+
+    @Test
+    fun `lengths past the table are answered from its cycle`() {
+        val generex = Generex("x(abc)*", Random(5))
+
+        repeat(20) {
+            val result = generex.random(10_000, 10_300)
+            assertThat(result.length).isIn(10_000..10_300)
+            assertThat(result).startsWith("xabcabc")
+            assertThat((result.length - 1) % 3).isEqualTo(0)
+        }
+    }
+}
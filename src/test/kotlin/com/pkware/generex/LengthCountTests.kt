@@ -0,0 +1,68 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.math.BigInteger
+
+class LengthCountTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-c]{0,3}(x|yz)?", "(alpha|beta|gamma)(-[1-3]){0,2}", "x?", "[0-9]{4}"])
+    fun `counts agree with the enumerated strings`(regex: String) {
+        val generex = Generex(regex)
+        val lengths = generex.getAllMatchedStrings().groupingBy { it.length }.eachCount()
+
+        var upTo = 0
+        for (length in 0..20) {
+            upTo += lengths[length] ?: 0
+            assertThat(generex.countOfLength(length)).isEqualTo(BigInteger.valueOf((lengths[length] ?: 0).toLong()))
+            assertThat(generex.countUpToLength(length)).isEqualTo(BigInteger.valueOf(upTo.toLong()))
+        }
+    }
+
+    @Test
+    fun `counts infinite patterns`() {
+        val generex = Generex("\\w+")
+        val letters = BigInteger.valueOf(63)
+
+        assertThat(generex.countOfLength(0)).isEqualTo(BigInteger.ZERO)
+        assertThat(generex.countOfLength(3)).isEqualTo(letters.pow(3))
+        assertThat(generex.countUpToLength(3)).isEqualTo(letters + letters.pow(2) + letters.pow(3))
+    }
+
+    @Test
+    fun `switches to big integers past a long`() {
+        val generex = Generex("[a-z]+")
+        val letters = BigInteger.valueOf(26)
+        var sum = BigInteger.ZERO
+        for (length in 1..1_000) sum += letters.pow(length)
+
+        assertThat(generex.countOfLength(1_000)).isEqualTo(letters.pow(1_000))
+        assertThat(generex.countUpToLength(1_000)).isEqualTo(sum)
+    }
+
+    @Test
+    fun `answers lengths in any order`() {
+        val generex = Generex("(ab|c)*")
+        // The number of strings of length n follows the Fibonacci sequence.
+        val expected = listOf(1, 1, 2, 3, 5, 8, 13, 21, 34, 55, 89).map { BigInteger.valueOf(it.toLong()) }
+
+        for (length in listOf(10, 3, 7, 7, 0, 9, 1)) {
+            assertThat(generex.countOfLength(length)).isEqualTo(expected[length])
+            assertThat(generex.countUpToLength(length)).isEqualTo(expected.take(length + 1).reduce(BigInteger::add))
+        }
+    }
+
+    @Test
+    fun `past the longest string`() {
+        val generex = Generex("[a-c]{2}")
+
+        assertThat(generex.countOfLength(1_000_000)).isEqualTo(BigInteger.ZERO)
+        assertThat(generex.countUpToLength(Int.MAX_VALUE)).isEqualTo(BigInteger.valueOf(9))
+        assertThrows(IllegalArgumentException::class.java) { generex.countOfLength(-1) }
+        assertThrows(IllegalArgumentException::class.java) { generex.countUpToLength(-1) }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+
+class LengthDistributionTests {
+
+    @Test
+    fun `geometric favors short lengths`() {
+        val generex = Generex("[a-z]+", Random(1))
+        generex.setLengthDistribution(LengthDistribution.geometric(0.5))
+        val lengths = generex.randomBatch(100_000, 3, 20).groupingBy { it.length }.eachCount()
+
+        // Each length should be about half as likely as the one before it.
+        assertThat(lengths.keys.min()).isEqualTo(3)
+        assertThat(lengths.getValue(3).toDouble() / 100_000).isWithin(0.01).of(0.5)
+        assertThat(lengths.getValue(4).toDouble() / lengths.getValue(3)).isWithin(0.03).of(0.5)
+        assertThat(lengths.getValue(5).toDouble() / lengths.getValue(4)).isWithin(0.05).of(0.5)
+    }
+
+    @Test
+    fun `histogram only draws lengths with weight`() {
+        val generex = Generex("[0-9]{2,12}", Random(2))
+        generex.setLengthDistribution(LengthDistribution.histogram(0.0, 0.0, 0.0, 1.0, 0.0, 0.0, 0.0, 3.0))
+        val lengths = generex.randomBatch(40_000, 1, 50).groupingBy { it.length }.eachCount()
+
+        assertThat(lengths.keys).containsExactly(3, 7)
+        assertThat(lengths.getValue(7).toDouble() / lengths.getValue(3)).isWithin(0.1).of(3.0)
+    }
+
+    @Test
+    fun `histogram skips lengths the pattern cannot match`() {
+        val generex = Generex("(ab)+", Random(3))
+        generex.setLengthDistribution(LengthDistribution.histogram(0.0, 5.0, 1.0, 5.0, 1.0))
+
+        assertThat(generex.randomBatch(1_000, 1, 10).toSet()).containsExactly("ab", "abab")
+    }
+
+    @Test
+    fun `normal concentrates around the mean`() {
+        val generex = Generex("[a-z]*", Random(4))
+        generex.setLengthDistribution(LengthDistribution.normal(20.0, 2.0))
+        val lengths = generex.randomBatch(20_000, 0, 40).map { it.length }
+
+        assertThat(lengths.average()).isWithin(0.2).of(20.0)
+        assertThat(lengths.count { it in 16..24 }.toDouble() / lengths.size).isGreaterThan(0.93)
+    }
+
+    @Test
+    fun `normal with a mean outside the range draws the nearest end`() {
+        val generex = Generex("[a-z]*", Random(5))
+        generex.setLengthDistribution(LengthDistribution.normal(1_000.0, 1.0))
+
+        assertThat(generex.randomBatch(100, 0, 10).map { it.length }.toSet()).containsExactly(10)
+    }
+
+    @Test
+    fun `all zero weights fall back to uniform`() {
+        val generex = Generex("[a-z]{1,4}", Random(6))
+        generex.setLengthDistribution(LengthDistribution.histogram(0.0))
+
+        assertThat(generex.randomBatch(1_000, 1, 4).map { it.length }.toSet()).containsExactly(1, 2, 3, 4)
+    }
+
+    @Test
+    fun `uniform is the default`() {
+        val default = Generex("[a-z]{1,30}", Random(7)).randomBatch(100, 1, 30)
+        val uniform = Generex("[a-z]{1,30}", Random(7))
+        uniform.setLengthDistribution(LengthDistribution.UNIFORM)
+
+        assertThat(uniform.randomBatch(100, 1, 30)).isEqualTo(default)
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-z]{3,10}\\@(foo|bar)\\.com", "[0-9]+(\\.[0-9]+)?", "(a|bc|def)*x"])
+    fun `strings still match the pattern`(regex: String) {
+        val generex = Generex(regex, Random(8))
+        generex.setLengthDistribution(LengthDistribution.geometric(0.2))
+
+        for (result in generex.randomBatch(1_000, 1, 40)) assertThat(result).matches(regex)
+        assertThat(generex.random()).matches(regex)
+        assertThat(generex.randomStream(1, 40).findFirst().get()).matches(regex)
+    }
+
+    @Test
+    fun `custom distributions must give valid weights`() {
+        val generex = Generex("[a-z]+")
+        generex.setLengthDistribution { length, _, _ -> if (length == 5) -1.0 else 1.0 }
+
+        assertThrows(IllegalArgumentException::class.java) { generex.random(1, 10) }
+    }
+
+    @Test
+    fun `rejects invalid parameters`() {
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.geometric(0.0) }
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.geometric(1.5) }
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.normal(Double.NaN, 1.0) }
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.normal(5.0, 0.0) }
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.histogram(1.0, -1.0) }
+        assertThrows(IllegalArgumentException::class.java) { LengthDistribution.histogram(Double.POSITIVE_INFINITY) }
+    }
+}
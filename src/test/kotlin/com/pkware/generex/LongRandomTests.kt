@@ -0,0 +1,44 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+class LongRandomTests {
+
+    @Test
+    fun `long strings are generated without recursing per character`() {
+        val generex = Generex("[a-z]+", Random(1))
+
+        repeat(20) {
+            val result = generex.random(5_000, 10_000)
+            assertThat(result.length).isIn(5_000..10_000)
+            assertThat(result).matches("[a-z]+")
+        }
+    }
+
+    @Test
+    fun `strings hundreds of thousands of characters long`() {
+        val result = Generex("[a-z]+", Random(2)).random(300_000, 300_000)
+
+        assertThat(result.length).isEqualTo(300_000)
+        assertThat(result).matches("[a-z]+")
+    }
+
+    @Test
+    fun `long strings through alternations and groups`() {
+        val result = Generex("(ab|[0-9]c)+", Random(3)).random(100_000, 100_001)
+
+        assertThat(result.length).isEqualTo(100_000)
+        // java.util.regex recurses per repetition of a group, so check the repetitions one at a time.
+        for (group in result.chunked(2)) assertThat(group).matches("ab|[0-9]c")
+    }
+
+    @Test
+    fun `long finite patterns`() {
+        val regex = "[a-c]{50000}x?"
+        val result = Generex(regex, Random(4)).random(50_000, 50_001)
+
+        assertThat(result).matches(regex)
+    }
+}
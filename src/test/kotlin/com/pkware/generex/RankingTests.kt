@@ -0,0 +1,98 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.math.BigInteger
+
+class RankingTests {
+
+    @Test
+    fun `counts languages larger than a long`() {
+        val generex = Generex("[a-zA-Z0-9]{1,30}")
+
+        // 62 + 62^2 + ... + 62^30
+        var expected = BigInteger.ZERO
+        for (length in 1..30) expected += BigInteger.valueOf(62).pow(length)
+
+        assertThat(generex.matchedStringsCount()).isEqualTo(expected)
+        assertThrows(ArithmeticException::class.java) { generex.matchedStringsSize() }
+    }
+
+    @Test
+    fun `unranks positions beyond a long`() {
+        val generex = Generex("[a-zA-Z0-9]{1,30}")
+        val count = generex.matchedStringsCount()
+
+        assertThat(generex.getMatchedString(BigInteger.ONE)).isEqualTo("0")
+        assertThat(generex.getMatchedString(count)).isEqualTo("z".repeat(30))
+        assertThat(generex.getMatchedString(count - BigInteger.ONE)).isEqualTo("z".repeat(29) + "y")
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-zA-Z0-9]{1,30}", "[A-Z]{3}-[0-9]{4,40}(-(x|yz))?", "[a-z]{3,40}\\@(foo|bar)\\.com"])
+    fun `rankOf is the inverse of getMatchedString`(regex: String) {
+        val generex = Generex(regex)
+        val count = generex.matchedStringsCount()
+
+        for (position in listOf(BigInteger.ONE, BigInteger.valueOf(2), count.shiftRight(1), count.shiftRight(7), count)) {
+            val match = generex.getMatchedString(position)
+            assertThat(match).matches(regex)
+            assertThat(generex.rankOf(match)).isEqualTo(position)
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[A-B]{5,9}", "[0-3]([a-c]|[e-g]{1,2})", "(a|b|c)?", "(ab|a)(bc|c)?"])
+    fun `ranks follow iteration order`(regex: String) {
+        val generex = Generex(regex)
+        var position = BigInteger.ONE
+
+        for (match in generex) {
+            assertThat(generex.getMatchedString(position)).isEqualTo(match)
+            assertThat(generex.rankOf(match)).isEqualTo(position)
+            position += BigInteger.ONE
+        }
+        assertThat(generex.matchedStringsCount()).isEqualTo(position - BigInteger.ONE)
+    }
+
+    @Test
+    fun `counting scales with states rather than paths`() {
+        val generex = Generex("(a|b){20}")
+
+        assertThat(generex.matchedStringsSize()).isEqualTo(1L shl 20)
+        assertThat(generex.getFirstMatch()).isEqualTo("a".repeat(20))
+        assertThat(generex.getMatchedString(1 shl 20)).isEqualTo("b".repeat(20))
+        assertThat(generex.getMatchedString(2)).isEqualTo("a".repeat(19) + "b")
+    }
+
+    @Test
+    fun `index zero is the first match`() {
+        val generex = Generex("[a-c]{2}")
+
+        assertThat(generex.getMatchedString(0)).isEqualTo("aa")
+        assertThat(generex.getMatchedString(1)).isEqualTo("aa")
+        assertThrows(IndexOutOfBoundsException::class.java) { generex.getMatchedString(10) }
+    }
+
+    @Test
+    fun `rejects positions and strings outside the language`() {
+        val generex = Generex("[a-c]{2}")
+
+        assertThrows(IndexOutOfBoundsException::class.java) { generex.getMatchedString(BigInteger.ZERO) }
+        assertThrows(IndexOutOfBoundsException::class.java) { generex.getMatchedString(BigInteger.TEN) }
+        assertThrows(IllegalArgumentException::class.java) { generex.rankOf("a") }
+        assertThrows(IllegalArgumentException::class.java) { generex.rankOf("ad") }
+        assertThrows(IllegalArgumentException::class.java) { generex.rankOf("abc") }
+    }
+
+    @Test
+    fun `infinite patterns have no count`() {
+        val generex = Generex("a+")
+
+        assertThrows(IllegalStateException::class.java) { generex.matchedStringsCount() }
+        assertThrows(IllegalStateException::class.java) { generex.rankOf("aa") }
+    }
+}
@@ -0,0 +1,97 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.Arguments
+import org.junit.jupiter.params.provider.MethodSource
+import org.junit.jupiter.params.provider.ValueSource
+import java.math.BigInteger
+import java.util.regex.PatternSyntaxException
+import java.util.stream.Stream
+
+class RegexParserTests {
+
+    @ParameterizedTest
+    @MethodSource("errorArgs")
+    fun `errors point at the offending character`(pattern: String, index: Int) {
+        val exception = assertThrows(PatternSyntaxException::class.java) { RegexParser.parse(pattern) }
+
+        assertThat(exception.index).isEqualTo(index)
+        assertThat(exception.pattern).isEqualTo(pattern)
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["^(?:ab)+$", "(ab)+", "((ab))+", "(\\Qab\\E)+", "(a(?:b))+"])
+    fun `spellings of the same pattern have the same canonical form`(pattern: String) {
+        assertThat(RegexParser.parse(pattern).toString()).isEqualTo("(ab)+")
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[^a-c]x{2,}", "a|()|b&~c", "<07-13>|<1-9>", "\"x y\"[\\]\\-]?", "(a|b){3,1}#@",
+        "[\\p{IsGreek}\uD83D\uDE00-\uD83D\uDE4F]+"])
+    fun `canonical form parses back to the same pattern`(pattern: String) {
+        val canonical = RegexParser.parse(pattern).toString()
+        val reparsed = RegexParser.parse(canonical)
+
+        assertThat(reparsed.toString()).isEqualTo(canonical)
+        assertThat(reparsed.toAutomaton(true)).isEqualTo(RegexParser.parse(pattern).toAutomaton(true))
+    }
+
+    @Test
+    fun `quoted text is literal`() {
+        assertThat(Generex("\\Q&~#@\"<1-2>\\E").getAllMatchedStrings()).containsExactly("&~#@\"<1-2>")
+    }
+
+    @Test
+    fun `quoting without an end lasts until the end of the pattern`() {
+        assertThat(Generex("a\\Q(b|c)$").getAllMatchedStrings()).containsExactly("a(b|c)$")
+    }
+
+    @Test
+    fun `dot does not match line terminators`() {
+        val automaton = RegexParser.parse(".").toAutomaton(true)
+
+        assertThat(Generex(automaton).matchedStringsCount()).isEqualTo(BigInteger.valueOf(0x10000 - 5))
+        for (terminator in listOf("\n", "\r", "\u0085", "\u2028", "\u2029")) {
+            assertThat(automaton.run(terminator)).isFalse()
+        }
+    }
+
+    @Test
+    fun `whitespace shorthand matches the same characters as in Java`() {
+        assertThat(Generex("\\s").getAllMatchedStrings()).containsExactly(" ", "\t", "\n", "\u000B", "\u000C", "\r")
+        assertThat(RegexParser.parse("[\\S]").toAutomaton(true).run("\u000B")).isFalse()
+    }
+
+    @Test
+    fun `long patterns do not overflow the stack`() {
+        val pattern = "ab".repeat(100_000)
+        val generex = Generex(pattern)
+
+        assertThat(generex.matchedStringsCount()).isEqualTo(BigInteger.ONE)
+        assertThat(generex.getMatchedString(1)).isEqualTo(pattern)
+    }
+
+    companion object {
+
+        @JvmStatic
+        fun errorArgs() = Stream.of(
+            Arguments.of("ab(cd", 2),
+            Arguments.of("ab[cd", 2),
+            Arguments.of("ab\"cd", 2),
+            Arguments.of("a{2,3", 1),
+            Arguments.of("a{x}", 2),
+            Arguments.of("a{2147483648}", 2),
+            Arguments.of("ab)", 2),
+            Arguments.of("a|", 2),
+            Arguments.of("a\\", 2),
+            Arguments.of("[a-\\d]", 1),
+            Arguments.of("(?<name>abc)", 2),
+            Arguments.of("x<1-2", 1),
+            Arguments.of("a\\p{Foo}", 1),
+            Arguments.of("a[\\p{L]", 2),
+        )
+    }
+}
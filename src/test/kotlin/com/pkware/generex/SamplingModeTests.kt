@@ -0,0 +1,85 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import com.pkware.generex.CompiledGenerex.SamplingMode
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+
+class SamplingModeTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        "(a|b)*a(a|b){20}",
+        "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}",
+        "(foo|far|fun)+[0-9]{2}",
+        "(ab|a)(bc|c)?x*",
+    ])
+    fun `nondeterministic walks generate matches within the bounds`(regex: String) {
+        val compiled = CompiledGenerex(regex, true, SamplingMode.NFA)
+        val random = Random(1)
+
+        for (result in compiled.randomBatch(random, 1_000, 10, 40)) {
+            assertThat(result).matches(regex)
+            assertThat(result.length).isIn(10..40)
+        }
+        assertThat(compiled.isCompiled).isFalse()
+    }
+
+    @Test
+    fun `automatic mode walks the nondeterministic automaton when determinizing blows up`() {
+        val regex = "(a|b)*a(a|b){24}"
+        val compiled = CompiledGenerex(regex)
+
+        repeat(100) { assertThat(compiled.random(Random(it.toLong()), 25, 60)).matches(regex) }
+        assertThat(compiled.isCompiled).isFalse()
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-z]{3,10}\\@(foo|bar)\\.com", "(foo|far|fun)+[0-9]{2}", "[a-f]+-[0-9]{2}"])
+    fun `automatic mode walks the deterministic automaton of ordinary patterns`(regex: String) {
+        val automatic = CompiledGenerex(regex)
+        val deterministic = CompiledGenerex(regex, true, SamplingMode.DFA)
+
+        assertThat(automatic.randomBatch(Random(5), 100, 1, 30))
+            .isEqualTo(deterministic.randomBatch(Random(5), 100, 1, 30))
+        assertThat(automatic.isCompiled).isTrue()
+    }
+
+    @Test
+    fun `automatic mode keeps the automaton its check determinized`() {
+        val regex = "(foo|far|fun)+[0-9]{2}"
+        val unminimized = CompiledGenerex(regex, false)
+
+        unminimized.random(Random(6), 1, 30)
+
+        assertThat(unminimized.isCompiled).isTrue()
+        assertThat(unminimized.getMatchedStrings(500)).isEqualTo(CompiledGenerex(regex).getMatchedStrings(500))
+    }
+
+    @Test
+    fun `complements and intersections are supported`() {
+        val compiled = CompiledGenerex("[a-c]{3}&~(abc)", true, SamplingMode.NFA)
+        val results = compiled.randomBatch(Random(2), 2_000, 1, 3).toSet()
+
+        assertThat(results).hasSize(26)
+        assertThat(results).doesNotContain("abc")
+    }
+
+    @Test
+    fun `lengths out of range fall back like the deterministic walk`() {
+        val compiled = CompiledGenerex("(ab)+", true, SamplingMode.NFA)
+
+        assertThat(compiled.random(Random(3), 5, 6)).isEqualTo("ababab")
+        assertThat(compiled.random(Random(3), 0, 1)).isEqualTo("a")
+    }
+
+    @Test
+    fun `nondeterministic walks are reproducible with a seed`() {
+        val compiled = CompiledGenerex("(a|b)*a(a|b){20}", true, SamplingMode.NFA)
+
+        assertThat(compiled.randomBatch(Random(4), 50, 21, 40))
+            .isEqualTo(compiled.randomBatch(Random(4), 50, 21, 40))
+    }
+}
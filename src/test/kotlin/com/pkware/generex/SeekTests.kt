@@ -0,0 +1,67 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import com.google.common.truth.Truth.assertWithMessage
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.math.BigInteger
+
+class SeekTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[0-3]([a-c]|[e-g]{1,2})", "(a|b|c)?", "(ab|a)(bc|c)?", "[A-B]{1,4}"])
+    fun `iterator starts at any index`(regex: String) {
+        val generex = Generex(regex)
+        val all = generex.getAllMatchedStrings()
+
+        for (index in 1..all.size + 1) {
+            assertThat(generex.iterator(index.toLong()).asSequence().toList())
+                .containsExactlyElementsIn(all.subList(index - 1, all.size))
+                .inOrder()
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[0-3]([a-c]|[e-g]{1,2})", "(a|b|c)?", "(ab|a)(bc|c)?", "[A-B]{1,4}"])
+    fun `iterator starts at any lower bound`(regex: String) {
+        val generex = Generex(regex)
+        val all = generex.getAllMatchedStrings()
+        val bounds = all + listOf("", "0", "0d", "0ez", "1", "4", "ab", "abd", "b", "~", "AAAAA", "AB", "BBBBB")
+
+        for (bound in bounds) {
+            assertWithMessage("from \"%s\"", bound)
+                .that(generex.iteratorFrom(bound).asSequence().toList())
+                .containsExactlyElementsIn(all.filter { it >= bound })
+                .inOrder()
+        }
+    }
+
+    @Test
+    fun `iterator starts at indexes beyond a long`() {
+        val generex = Generex("[a-zA-Z0-9]{1,30}")
+        val count = generex.matchedStringsCount()
+
+        val tail = generex.iterator(count - BigInteger.valueOf(2)).asSequence().toList()
+
+        assertThat(tail).containsExactly("z".repeat(29) + "x", "z".repeat(29) + "y", "z".repeat(30)).inOrder()
+    }
+
+    @Test
+    fun `infinite patterns start at a lower bound`() {
+        val iterator = Generex("a+").iteratorFrom("aa")
+
+        assertThat(iterator.asSequence().take(3).toList()).containsExactly("aa", "aaa", "aaaa").inOrder()
+    }
+
+    @Test
+    fun `rejects indexes out of range`() {
+        val generex = Generex("[a-c]{2}")
+
+        assertThrows(IndexOutOfBoundsException::class.java) { generex.iterator(0) }
+        assertThrows(IndexOutOfBoundsException::class.java) { generex.iterator(11) }
+        assertThat(generex.iterator(10).hasNext()).isFalse()
+        assertThrows(IllegalStateException::class.java) { Generex("a+").iterator(1) }
+    }
+}
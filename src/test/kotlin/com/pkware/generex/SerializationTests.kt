@@ -0,0 +1,143 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.io.ByteArrayOutputStream
+import java.math.BigInteger
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Random
+
+class SerializationTests {
+
+    @TempDir
+    lateinit var directory: Path
+
+    private fun roundTrip(compiled: CompiledGenerex): CompiledGenerex {
+        val out = ByteArrayOutputStream()
+        compiled.writeTo(out)
+        return CompiledGenerex.readFrom(ByteBuffer.wrap(out.toByteArray()))
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-c]{0,3}(x|yz)?", "(alpha|beta|gamma)(-[1-3]){0,2}", "x", "[a-z]{20}", ""])
+    fun `finite patterns read back identical`(regex: String) {
+        val original = CompiledGenerex(regex)
+        val read = roundTrip(original)
+
+        assertThat(read.isInfinite).isFalse()
+        assertThat(read.matchedStringsCount()).isEqualTo(original.matchedStringsCount())
+        assertThat(read.getMatchedStrings(1_000)).isEqualTo(original.getMatchedStrings(1_000))
+        assertThat(read.getMatchedString(BigInteger.ONE)).isEqualTo(original.getMatchedString(BigInteger.ONE))
+        repeat(100) {
+            val match = read.random(Random(it.toLong()), 0, 100)
+            assertThat(match).matches(regex)
+            assertThat(read.rankOf(match)).isEqualTo(original.rankOf(match))
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-z]+\\@[a-z]+\\.com", "(ab|[0-9]c)+d", "a*"])
+    fun `infinite patterns read back identical`(regex: String) {
+        val original = CompiledGenerex(regex)
+        val read = roundTrip(original)
+
+        assertThat(read.isInfinite).isTrue()
+        assertThat(read.getMatchedStrings(200)).isEqualTo(original.getMatchedStrings(200))
+        for (length in 0..10) assertThat(read.countOfLength(length)).isEqualTo(original.countOfLength(length))
+        repeat(100) { assertThat(read.random(Random(it.toLong()), 3, 30)).matches(regex) }
+    }
+
+    @Test
+    fun `read patterns can be rebuilt into brics automatons`() {
+        val read = roundTrip(CompiledGenerex("[0-9]{2}(x|yz)"))
+
+        assertThat(read.automaton.run("42yz")).isTrue()
+        assertThat(read.automaton.run("42y")).isFalse()
+    }
+
+    @Test
+    fun `patterns can be written one after the other`() {
+        val out = ByteArrayOutputStream()
+        Generex("[a-c]{2}").writeTo(out)
+        Generex("[0-9]+").writeTo(out)
+        val buffer = ByteBuffer.wrap(out.toByteArray())
+
+        assertThat(CompiledGenerex.readFrom(buffer).matchedStringsCount()).isEqualTo(BigInteger.valueOf(9))
+        assertThat(CompiledGenerex.readFrom(buffer).isInfinite).isTrue()
+        assertThat(buffer.hasRemaining()).isFalse()
+    }
+
+    @Test
+    fun `counts larger than a long survive`() {
+        val read = roundTrip(CompiledGenerex("[a-z]{30}"))
+
+        assertThat(read.matchedStringsCount()).isEqualTo(BigInteger.valueOf(26).pow(30))
+        assertThat(read.getMatchedString(BigInteger.valueOf(26).pow(30))).isEqualTo("z".repeat(30))
+    }
+
+    @Test
+    fun `rejects other versions and corrupt data`() {
+        val out = ByteArrayOutputStream()
+        CompiledGenerex("[a-c]{2}").writeTo(out)
+        val bytes = out.toByteArray()
+
+        val badMagic = bytes.copyOf().also { it[0] = 0 }
+        val badVersion = bytes.copyOf().also { it[7] = 99 }
+        val badDestination = bytes.copyOf().also { it[it.size - 1 - 3 * 8 - 1 - 4] = 50 }
+        for (corrupt in listOf(badMagic, badVersion, badDestination, bytes.copyOf(bytes.size - 1))) {
+            assertThrows(IllegalArgumentException::class.java) { CompiledGenerex.readFrom(ByteBuffer.wrap(corrupt)) }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[a-c]{2}", "[a-z]{30}"])
+    fun `rejects counts that don't match the automaton`(regex: String) {
+        val out = ByteArrayOutputStream()
+        CompiledGenerex(regex).writeTo(out)
+        val bytes = out.toByteArray()
+
+        // The last byte is the low byte of the count of the last state, which accepts just the empty string.
+        val zeroCount = bytes.copyOf().also { it[it.size - 1] = 0 }
+        val wrongCount = bytes.copyOf().also { it[it.size - 1] = 2 }
+        for (corrupt in listOf(zeroCount, wrongCount)) {
+            assertThrows(IllegalArgumentException::class.java) { CompiledGenerex.readFrom(ByteBuffer.wrap(corrupt)) }
+        }
+    }
+
+    @Test
+    fun `bundles map many patterns`() {
+        val regexes = listOf("[a-z]{3,10}\\.com", "[0-9]{4}", "(ab|[0-9]c)+d", "x")
+        val file = directory.resolve("patterns.bundle")
+        GenerexBundle.write(file, regexes.associateWith { CompiledGenerex(it) })
+
+        val bundle = GenerexBundle.open(file)
+
+        assertThat(bundle.size()).isEqualTo(4)
+        assertThat(bundle.names()).containsExactlyElementsIn(regexes).inOrder()
+        for (regex in regexes) {
+            val generex = Generex(bundle.get(regex)!!)
+            repeat(20) { assertThat(generex.random(1, 20)).matches(regex) }
+        }
+        assertThat(bundle.get("[0-9]{4}")).isSameInstanceAs(bundle.get("[0-9]{4}"))
+        assertThat(bundle.get("missing")).isNull()
+    }
+
+    @Test
+    fun `rejects files that are not bundles`() {
+        val file = directory.resolve("patterns.bundle")
+        GenerexBundle.write(file, mapOf("a" to CompiledGenerex("a")))
+        val bytes = Files.readAllBytes(file)
+
+        val badVersion = bytes.copyOf().also { it[7] = 2 }
+        val badIndex = bytes.copyOf().also { it[it.size - 2] = 0x7f }
+        for (corrupt in listOf(badVersion, badIndex, bytes.copyOf(6), ByteArray(0))) {
+            assertThrows(IllegalArgumentException::class.java) { GenerexBundle.readFrom(ByteBuffer.wrap(corrupt)) }
+        }
+    }
+}
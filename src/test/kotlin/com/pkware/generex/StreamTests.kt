@@ -0,0 +1,60 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Spliterator
+import java.util.stream.Collectors
+
+class StreamTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = ["[0-3]([a-c]|[e-g]{1,2})", "(a|b|c)?", "[A-B]{5,9}"])
+    fun `stream follows iteration order`(regex: String) {
+        val generex = Generex(regex)
+
+        assertThat(generex.stream().collect(Collectors.toList())).containsExactlyElementsIn(generex.toList()).inOrder()
+    }
+
+    @Test
+    fun `parallel stream produces every match once in order`() {
+        val generex = Generex("[a-d]{2}(x|yz)[0-9]{3}")
+
+        val parallel = generex.stream().parallel().collect(Collectors.toList())
+
+        assertThat(parallel).hasSize(32_000)
+        assertThat(parallel).containsExactlyElementsIn(generex.getAllMatchedStrings()).inOrder()
+    }
+
+    @Test
+    fun `spliterator splits by position`() {
+        val spliterator = Generex("(a|b){16}").spliterator()
+
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED or Spliterator.SUBSIZED)).isTrue()
+        assertThat(spliterator.estimateSize()).isEqualTo(1L shl 16)
+
+        val prefix = spliterator.trySplit()!!
+        assertThat(prefix.estimateSize()).isEqualTo(1L shl 15)
+        assertThat(spliterator.estimateSize()).isEqualTo(1L shl 15)
+
+        var first: String? = null
+        spliterator.tryAdvance { first = it }
+        assertThat(first).isEqualTo("b" + "a".repeat(15))
+    }
+
+    @Test
+    fun `streams languages larger than a long`() {
+        val generex = Generex("[a-zA-Z0-9]{1,30}")
+
+        assertThat(generex.spliterator().hasCharacteristics(Spliterator.SIZED)).isFalse()
+        assertThat(generex.stream().limit(3).collect(Collectors.toList())).containsExactly("0", "00", "000").inOrder()
+    }
+
+    @Test
+    fun `streams infinite patterns lazily`() {
+        val generex = Generex("a+")
+
+        assertThat(generex.stream().limit(3).collect(Collectors.toList())).containsExactly("a", "aa", "aaa").inOrder()
+    }
+}
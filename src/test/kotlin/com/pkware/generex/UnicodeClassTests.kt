@@ -0,0 +1,82 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+import java.util.regex.PatternSyntaxException
+
+class UnicodeClassTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        "\\p{L}{1,5}", "\\pN\\p{Sc}", "\\p{IsLatin}+", "\\p{InGreek}", "[\\p{IsHan}\\p{Lu}]{3}", "\\p{So}",
+        "\\p{javaLowerCase}", "\\p{IsAlphabetic}\\p{IsWhite_Space}", "\\p{sc=Greek}\\p{gc=Lu}\\p{blk=Arrows}",
+        "\\p{Alnum}\\p{Punct}", "[^\\p{L}\\d]", "\\P{L}",
+    ])
+    fun `property classes generate what java regex matches`(regex: String) {
+        for (result in Generex(regex, Random(1)).randomBatch(2_000, 0, 20)) {
+            assertThat(result).matches(regex)
+        }
+    }
+
+    @Test
+    fun `supplementary code points come out as surrogate pairs`() {
+        val regex = "[\uD83D\uDE00-\uD83D\uDE4F\uD840\uDC00-\uD869\uDEDF]{1,4}"
+        val results = Generex(regex, Random(2)).randomBatch(1_000, 1, 8)
+
+        for (result in results) {
+            assertThat(result).matches(regex)
+            for (i in result.indices) assertThat(Character.isSurrogate(result[i])).isTrue()
+        }
+    }
+
+    @Test
+    fun `code points are equally likely whatever their width`() {
+        val counts = Generex("[\uD83D\uDE00\uD83D\uDE01ab]", Random(3)).randomBatch(40_000, 1, 2)
+            .groupingBy { it }.eachCount()
+
+        assertThat(counts.keys).containsExactly("\uD83D\uDE00", "\uD83D\uDE01", "a", "b")
+        assertThat(1.0 * counts.values.max() / counts.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `counts code points rather than characters`() {
+        val greek = (0..Character.MAX_CODE_POINT).count {
+            Character.UnicodeScript.of(it) == Character.UnicodeScript.GREEK
+        }
+
+        assertThat(Generex("\\p{IsGreek}").matchedStringsSize()).isEqualTo(greek.toLong())
+    }
+
+    @Test
+    fun `one letter properties need no braces`() {
+        assertThat(RegexParser.parse("\\pL").toString()).isEqualTo(RegexParser.parse("\\p{L}").toString())
+    }
+
+    @Test
+    fun `negated properties stay within the BMP`() {
+        val results = Generex("\\P{L}", Random(4)).randomBatch(1_000, 1, 2)
+
+        for (result in results) assertThat(result).hasLength(1)
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["\\p{Foo}", "\\p{L", "[\\p{IsNotAScript}]", "\\p"])
+    fun `rejects unknown and unclosed properties`(regex: String) {
+        assertThrows(PatternSyntaxException::class.java) { RegexParser.parse(regex) }
+    }
+
+    @Test
+    fun `printable only keeps printable code points`() {
+        val printable = Generex("[\u0001-\u001F\\p{So}a-z]{1,6}", Random(5)).printableOnly()
+
+        for (result in printable.randomBatch(1_000, 1, 12)) {
+            assertThat(result).matches("[\\p{So}a-z]{1,6}")
+        }
+        assertThat(Generex("\\p{Cc}+").printableOnly().matchedStringsSize()).isEqualTo(0)
+        assertThat(UnicodeProperties.printable()).isSameInstanceAs(UnicodeProperties.printable())
+    }
+}
@@ -0,0 +1,99 @@
+package com.pkware.generex
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import java.util.Random
+
+class UniformRandomTests {
+
+    @Test
+    fun `every matching string is equally likely`() {
+        // a, bb, bc, cb, cc
+        val generex = Generex("a|[b-c]{2}", Random(1))
+        val instances = HashMap<String, Int>()
+
+        repeat(100_000) {
+            val result = generex.uniformRandom(1, 2)
+            instances[result] = instances.getOrDefault(result, 0) + 1
+        }
+
+        assertThat(instances.keys).containsExactly("a", "bb", "bc", "cb", "cc")
+        assertThat(1.0 * instances.values.max() / instances.values.min()).isLessThan(1.1)
+    }
+
+    @Test
+    fun `every length is equally likely in per length mode`() {
+        val generex = Generex("a|[b-c]{2}", Random(2))
+        val instances = HashMap<String, Int>()
+
+        repeat(100_000) {
+            val result = generex.uniformRandomPerLength(1, 2)
+            instances[result] = instances.getOrDefault(result, 0) + 1
+        }
+
+        val singles = instances.getValue("a")
+        val doubles = instances.filterKeys { it.length == 2 }.values.sum()
+        assertThat(1.0 * singles / doubles).isWithin(0.05).of(1.0)
+    }
+
+    @Test
+    fun `samples from languages too large for a long`() {
+        val regex = "[a-z]{3,40}\\@(foo|bar)\\.com"
+        val generex = Generex(regex)
+
+        repeat(1_000) {
+            assertThat(generex.uniformRandom(0, 100)).matches(regex)
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["a+", "(ab)*c", "[0-9]+(\\.[0-9]+)?"])
+    fun `infinite patterns always produce a match within the bounds`(regex: String) {
+        val generex = Generex(regex)
+
+        repeat(1_000) {
+            val result = generex.uniformRandom(5, 30)
+            assertThat(result).matches(regex)
+            assertThat(result.length).isIn(5..30)
+        }
+    }
+
+    @Test
+    fun `fails when no match has a length in range`() {
+        val generex = Generex("(abc){2,3}")
+
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandom(7, 8) }
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandomPerLength(10, 20) }
+        assertThat(generex.uniformRandom(6, 8)).isEqualTo("abcabc")
+    }
+
+    @Test
+    fun `fails on an invalid range`() {
+        val generex = Generex("a+")
+
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandom(5, 4) }
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandom(-1, 4) }
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandom(1, Int.MAX_VALUE) }
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandomPerLength(1, Int.MAX_VALUE) }
+        assertThat(Generex("[a-c]{2}").uniformRandom(1, Int.MAX_VALUE)).matches("[a-c]{2}")
+    }
+
+    @Test
+    fun `samples up to the longest length whose counts fit in the limit`() {
+        val regex = "\\w+"
+        val automaton = FlatAutomaton(CompiledGenerex(regex).getAutomaton().initialState)
+        val limit = Generex.MAX_UNIFORM_COUNTS_BYTES
+        var longest = 1
+        while (LengthCounts.estimateBytes(automaton, longest + 1, limit) <= limit) longest++
+        val generex = Generex(regex, Random(4))
+
+        val result = generex.uniformRandom(longest, longest)
+        assertThat(result).matches(regex)
+        assertThat(result).hasLength(longest)
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandom(longest, longest + 1) }
+        assertThrows(IllegalArgumentException::class.java) { generex.uniformRandomPerLength(1, longest + 1) }
+    }
+}